@@ -0,0 +1,104 @@
+package com.kinganjia.backend.config;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Locks on application-defined keys, held until the current transaction
+ * ends. On PostgreSQL they are transaction-level advisory locks, shared by
+ * every node; elsewhere (the single-node H2 test profile) they are striped
+ * JVM locks. Keys are ints so each {@link Space} gets a keyspace of its own.
+ */
+@Component
+public class AdvisoryLocks {
+
+    public enum Space {
+        CLUSTER_CELL, CLAIM_STATS, HEATMAP;
+
+        private int id() {
+            return ordinal() + 1;
+        }
+    }
+
+    private static final int STRIPES = 1024;
+
+    private final DatabasePlatform databasePlatform;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    public AdvisoryLocks(DatabasePlatform databasePlatform, DataSource dataSource) {
+        this.databasePlatform = databasePlatform;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        for (int s = 0; s < STRIPES; s++) {
+            stripes[s] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Waits for every key in turn, in ascending order so that callers locking
+     * overlapping sets never deadlock.
+     */
+    public void lock(Space space, Collection<? extends Number> keys) {
+        requireTransaction();
+        TreeSet<Integer> sorted = new TreeSet<>();
+        keys.forEach(key -> sorted.add(Math.toIntExact(key.longValue())));
+        if (databasePlatform.isPostgres()) {
+            sorted.forEach(key -> jdbcTemplate.queryForObject("select pg_advisory_xact_lock(?, ?)::text",
+                                                              String.class, space.id(), key));
+            return;
+        }
+        TreeSet<Integer> stripeIndexes = new TreeSet<>();
+        sorted.forEach(key -> stripeIndexes.add(stripe(space, key)));
+        List<ReentrantLock> held = new ArrayList<>(stripeIndexes.size());
+        stripeIndexes.forEach(index -> {
+            stripes[index].lock();
+            held.add(stripes[index]);
+        });
+        releaseAtEnd(held);
+    }
+
+    /**
+     * Takes the lock on {@code key} if nobody holds it, without waiting.
+     */
+    public boolean tryLock(Space space, int key) {
+        requireTransaction();
+        if (databasePlatform.isPostgres()) {
+            return Boolean.TRUE.equals(jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?, ?)",
+                                                                   Boolean.class, space.id(), key));
+        }
+        ReentrantLock lock = stripes[stripe(space, key)];
+        if (!lock.tryLock()) {
+            return false;
+        }
+        releaseAtEnd(List.of(lock));
+        return true;
+    }
+
+    private static int stripe(Space space, int key) {
+        return Math.floorMod(31 * space.id() + key, STRIPES);
+    }
+
+    private static void releaseAtEnd(List<ReentrantLock> held) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                held.forEach(ReentrantLock::unlock);
+            }
+        });
+    }
+
+    private static void requireTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Advisory locks are held until the transaction ends and need one");
+        }
+    }
+}
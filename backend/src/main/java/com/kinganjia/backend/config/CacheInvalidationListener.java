@@ -0,0 +1,113 @@
+package com.kinganjia.backend.config;
+
+import com.kinganjia.backend.event.CacheInvalidatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the second-level cache invalidations sent by every node (see
+ * {@link ClusteredCacheRegionFactory}), through a {@link NotificationListener}
+ * on the channel. Whenever the connection is (re)established the whole cache
+ * is emptied, since notifications sent while not listening are lost.
+ * PostgreSQL only.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationListener {
+
+    private final ClusteredCacheRegionFactory regionFactory;
+    private final DataSourceProperties dataSourceProperties;
+    private final DatabasePlatform databasePlatform;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration replayDelay;
+    private final Counter received;
+    private volatile NotificationListener listener;
+    private ScheduledExecutorService replays;
+
+    public CacheInvalidationListener(ClusteredCacheRegionFactory regionFactory,
+                                     DataSourceProperties dataSourceProperties,
+                                     DatabasePlatform databasePlatform,
+                                     ApplicationEventPublisher eventPublisher,
+                                     Environment environment,
+                                     MeterRegistry meterRegistry) {
+        this.regionFactory = regionFactory;
+        this.dataSourceProperties = dataSourceProperties;
+        this.databasePlatform = databasePlatform;
+        this.eventPublisher = eventPublisher;
+        // A read on a lagging replica can re-cache a row just invalidated, so invalidations are applied
+        // again once every replica taking reads has replayed the change
+        this.replayDelay = StringUtils.hasText(environment.getProperty("app.datasource.replicas.urls"))
+                ? environment.getProperty("app.datasource.replicas.max-lag", Duration.class, Duration.ofSeconds(5))
+                             .plus(environment.getProperty("app.datasource.replicas.check-interval", Duration.class,
+                                                           Duration.ofSeconds(2)))
+                : Duration.ZERO;
+        this.received = Counter.builder("cache.invalidation.messages")
+                               .description("Cache invalidation notifications")
+                               .tag("direction", "received")
+                               .register(meterRegistry);
+        Gauge.builder("cache.invalidation.listener.connected", this,
+                      self -> self.listener != null && self.listener.isConnected() ? 1 : 0)
+             .description("Whether this node is receiving cache invalidations from the other nodes")
+             .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (listener != null || !databasePlatform.isPostgres()) {
+            return;
+        }
+        if (!replayDelay.isZero()) {
+            replays = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                                                                       .name("cache-invalidation-replay")
+                                                                       .daemon()
+                                                                       .factory());
+        }
+        listener = new NotificationListener(ClusteredCacheRegionFactory.CHANNEL, dataSourceProperties,
+                                            regionFactory::evictAll, payload -> {
+                                                received.increment();
+                                                apply(payload, true);
+                                            });
+        listener.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (listener != null) {
+            listener.stop();
+        }
+        if (replays != null) {
+            replays.shutdownNow();
+        }
+    }
+
+    private void apply(String payload, boolean replay) {
+        try {
+            Set<String> regions = regionFactory.apply(payload);
+            if (!regions.isEmpty()) {
+                eventPublisher.publishEvent(new CacheInvalidatedEvent(regions));
+            }
+            if (replay && replays != null) {
+                replays.schedule(() -> apply(payload, false), replayDelay.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (RuntimeException e) {
+            log.error("Cannot apply cache invalidation, emptying the cache", e);
+            regionFactory.evictAll();
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.kinganjia.backend.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.internal.SimpleCacheKeysFactory;
+import org.hibernate.cache.jcache.internal.JCacheAccessImpl;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.CacheTransactionSynchronization;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import javax.cache.Cache;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Second-level cache in bounded, expiring Caffeine caches whose invalidations
+ * reach every backend node. Cached entities use {@code NONSTRICT_READ_WRITE},
+ * under which every change Hibernate makes to cached data is a removal from
+ * storage, per entry or region-wide after a bulk statement. Those removals,
+ * and the table invalidations behind the query cache, are collected per
+ * transaction and sent with {@code pg_notify} on the transaction's own
+ * connection just before it commits, so PostgreSQL delivers them exactly when
+ * the change becomes visible and drops them on rollback.
+ * {@link CacheInvalidationListener} applies them on each node.
+ * <p>
+ * A bulk statement empties every region of its entity, on every node, unless
+ * it runs in {@link #evictingOnly} with the ids of the rows it changes.
+ */
+public class ClusteredCacheRegionFactory extends JCacheRegionFactory {
+    public static final String CHANNEL = "cache_invalidation";
+
+    // NOTIFY payloads must stay below 8000 bytes
+    private static final int MAX_PAYLOAD_BYTES = 7_900;
+    // Beyond this many entries of one region in a transaction, the whole region is invalidated instead
+    private static final int MAX_KEYS_PER_REGION = 500;
+    private static final String WHOLE_REGION = "*";
+
+    // Ids of the rows the bulk statement running on this thread changes, if known
+    private static final ThreadLocal<Set<Long>> BULK_IDS = new ThreadLocal<>();
+    // Per region, the ids of each such statement, to evict again once its transaction completes
+    private static final ThreadLocal<Map<String, Deque<Set<Long>>>> COMPLETING = ThreadLocal.withInitial(HashMap::new);
+
+    private final long maxSize;
+    private final Duration ttl;
+    private final Counter sent;
+    private final Map<String, DomainDataStorageAccess> regions = new ConcurrentHashMap<>();
+    private final List<StorageAccess> queryResults = new CopyOnWriteArrayList<>();
+    private volatile String timestampsRegion;
+    private volatile StorageAccess timestamps;
+    private volatile Boolean postgres;
+
+    public ClusteredCacheRegionFactory(long maxSize, Duration ttl, MeterRegistry meterRegistry) {
+        super(SimpleCacheKeysFactory.INSTANCE);
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.sent = Counter.builder("cache.invalidation.messages")
+                           .description("Cache invalidation notifications")
+                           .tag("direction", "sent")
+                           .register(meterRegistry);
+    }
+
+    @Override
+    protected Cache<Object, Object> createCache(String regionName) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return getCacheManager().createCache(regionName, configuration);
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        DomainDataStorageAccess access = new BroadcastingStorageAccess(
+                regionConfig.getRegionName(), super.createDomainDataStorageAccess(regionConfig, buildingContext));
+        regions.put(regionConfig.getRegionName(), access);
+        return access;
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+                                                                  SessionFactoryImplementor sessionFactory) {
+        StorageAccess access = super.createQueryResultsRegionStorageAccess(regionName, sessionFactory);
+        queryResults.add(access);
+        return access;
+    }
+
+    /**
+     * Never bounded or expired: a query result is only known to be stale while
+     * the timestamp of its tables' last change is still here.
+     */
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+                                                                SessionFactoryImplementor sessionFactory) {
+        Cache<Object, Object> cache = getCacheManager().getCache(regionName);
+        if (cache == null) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setStatisticsEnabled(true);
+            cache = getCacheManager().createCache(regionName, configuration);
+        }
+        timestampsRegion = regionName;
+        timestamps = new JCacheAccessImpl(cache);
+        return new BroadcastingTimestampsAccess(regionName, timestamps);
+    }
+
+    @Override
+    public CacheTransactionSynchronization createTransactionContext(SharedSessionContractImplementor session) {
+        return new PendingInvalidations(super.createTransactionContext(session), session);
+    }
+
+    /**
+     * Applies a notification sent by any node, this one included: evicts the
+     * listed entries and regions and marks the listed tables as just changed,
+     * so query results cached before now are discarded.
+     *
+     * @return the regions that were invalidated
+     */
+    public Set<String> apply(String payload) {
+        Set<String> invalidated = new HashSet<>();
+        for (String line : payload.split("\n")) {
+            int tab = line.indexOf('\t');
+            if (tab < 0) {
+                continue;
+            }
+            String region = line.substring(0, tab);
+            String key = line.substring(tab + 1);
+            if (region.equals(timestampsRegion)) {
+                timestamps.putIntoCache(decode(key), nextTimestamp(), null);
+                invalidated.add(region);
+                continue;
+            }
+            DomainDataStorageAccess access = regions.get(region);
+            if (access == null) {
+                continue;
+            }
+            Object id = decode(key);
+            if (id == null) {
+                access.evictData();
+            } else {
+                access.evictData(id);
+            }
+            invalidated.add(region);
+        }
+        return invalidated;
+    }
+
+    /**
+     * Runs a JPQL bulk statement that changes no rows but those of {@code ids}.
+     * The regions Hibernate would empty for it, here and on every node, lose
+     * only the entries of those ids instead. Only for statements on an entity
+     * whose cached collections it owns itself, since those are keyed by its id
+     * too (e.g. {@code Claim} and {@code Claim.images}).
+     */
+    public static <T> T evictingOnly(Collection<Long> ids, Supplier<T> statement) {
+        Set<Long> outer = BULK_IDS.get();
+        BULK_IDS.set(Set.copyOf(ids));
+        try {
+            return statement.get();
+        } finally {
+            if (outer == null) {
+                BULK_IDS.remove();
+            } else {
+                BULK_IDS.set(outer);
+            }
+        }
+    }
+
+    /** Empties every entity, collection and query result region, e.g. after notifications may have been missed. */
+    public void evictAll() {
+        regions.values().forEach(DomainDataStorageAccess::evictData);
+        queryResults.forEach(StorageAccess::evictData);
+    }
+
+    // Keys are entity or owner ids (simple keys factory) and, for timestamps, table names
+    private static String encode(Object key) {
+        if (key instanceof Long id) {
+            return "L" + id;
+        }
+        if (key instanceof String text && text.indexOf('\n') < 0) {
+            return "S" + text;
+        }
+        return WHOLE_REGION;
+    }
+
+    private static Object decode(String key) {
+        return switch (key.isEmpty() ? ' ' : key.charAt(0)) {
+            case 'L' -> Long.valueOf(key.substring(1));
+            case 'S' -> key.substring(1);
+            default -> null;
+        };
+    }
+
+    private static void record(SharedSessionContractImplementor session, String region, String key) {
+        if (session != null && session.getCacheTransactionSynchronization() instanceof PendingInvalidations pending) {
+            pending.add(region, key);
+        }
+    }
+
+    private void send(Connection connection, Map<String, Set<String>> pending) throws SQLException {
+        if (postgres == null) {
+            postgres = "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        }
+        if (!postgres) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement("select pg_notify(?, ?)")) {
+            StringBuilder payload = new StringBuilder();
+            for (Map.Entry<String, Set<String>> region : pending.entrySet()) {
+                for (String key : region.getValue()) {
+                    String line = region.getKey() + '\t' + key + '\n';
+                    if (utf8Length(payload) + utf8Length(line) > MAX_PAYLOAD_BYTES) {
+                        notify(statement, payload);
+                    }
+                    payload.append(line);
+                }
+            }
+            notify(statement, payload);
+        }
+    }
+
+    private void notify(PreparedStatement statement, StringBuilder payload) throws SQLException {
+        if (payload.isEmpty()) {
+            return;
+        }
+        statement.setString(1, CHANNEL);
+        statement.setString(2, payload.toString());
+        statement.execute();
+        sent.increment();
+        payload.setLength(0);
+    }
+
+    private static int utf8Length(CharSequence text) {
+        return text.toString().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /** Invalidations made by one session's current transaction. */
+    private final class PendingInvalidations implements CacheTransactionSynchronization {
+        private final CacheTransactionSynchronization delegate;
+        private final SharedSessionContractImplementor session;
+        private final Map<String, Set<String>> pending = new LinkedHashMap<>();
+
+        private PendingInvalidations(CacheTransactionSynchronization delegate,
+                                     SharedSessionContractImplementor session) {
+            this.delegate = delegate;
+            this.session = session;
+        }
+
+        private void add(String region, String key) {
+            // Removals after completion (e.g. unlocking entries) repeat ones already sent
+            if (!session.isTransactionInProgress()) {
+                return;
+            }
+            Set<String> keys = pending.computeIfAbsent(region, r -> new LinkedHashSet<>());
+            if (keys.contains(WHOLE_REGION)) {
+                return;
+            }
+            if (WHOLE_REGION.equals(key) || keys.size() >= MAX_KEYS_PER_REGION) {
+                keys.clear();
+                keys.add(WHOLE_REGION);
+            } else {
+                keys.add(key);
+            }
+        }
+
+        @Override
+        public long getCachingTimestamp() {
+            return delegate.getCachingTimestamp();
+        }
+
+        @Override
+        public void transactionJoined() {
+            delegate.transactionJoined();
+        }
+
+        // After the flush, before the commit
+        @Override
+        public void transactionCompleting() {
+            delegate.transactionCompleting();
+            if (!pending.isEmpty()) {
+                session.doWork(connection -> send(connection, pending));
+            }
+        }
+
+        @Override
+        public void transactionCompleted(boolean successful) {
+            pending.clear();
+            delegate.transactionCompleted(successful);
+        }
+
+        @Override
+        public void transactionSuspended() {
+            delegate.transactionSuspended();
+        }
+
+        @Override
+        public void transactionResumed() {
+            delegate.transactionResumed();
+        }
+    }
+
+    /** Records removals made by a transaction; evictions and loads are local only. */
+    private static final class BroadcastingStorageAccess implements DomainDataStorageAccess {
+        private final String region;
+        private final DomainDataStorageAccess delegate;
+
+        private BroadcastingStorageAccess(String region, DomainDataStorageAccess delegate) {
+            this.region = region;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            return delegate.getFromCache(key, session);
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            delegate.putIntoCache(key, value, session);
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return delegate.contains(key);
+        }
+
+        @Override
+        public void removeFromCache(Object key, SharedSessionContractImplementor session) {
+            delegate.removeFromCache(key, session);
+            record(session, region, encode(key));
+        }
+
+        // Hibernate's bulk statement cleanup, as the statement runs
+        @Override
+        public void clearCache(SharedSessionContractImplementor session) {
+            Set<Long> ids = BULK_IDS.get();
+            if (ids == null) {
+                delegate.clearCache(session);
+                record(session, region, WHOLE_REGION);
+                return;
+            }
+            ids.forEach(id -> removeFromCache(id, session));
+            COMPLETING.get().computeIfAbsent(region, r -> new ArrayDeque<>()).add(ids);
+        }
+
+        @Override
+        public void evictData(Object key) {
+            delegate.evictData(key);
+        }
+
+        // Also the bulk statement cleanup again once the transaction has completed, on the same thread
+        @Override
+        public void evictData() {
+            Map<String, Deque<Set<Long>>> completing = COMPLETING.get();
+            Deque<Set<Long>> statements = completing.get(region);
+            if (statements == null) {
+                delegate.evictData();
+                return;
+            }
+            statements.poll().forEach(delegate::evictData);
+            if (statements.isEmpty()) {
+                completing.remove(region);
+            }
+        }
+
+        @Override
+        public void release() {
+            delegate.release();
+        }
+    }
+
+    /** Records the tables a transaction changes, as the query cache marks them stale. */
+    private static final class BroadcastingTimestampsAccess implements StorageAccess {
+        private final String region;
+        private final StorageAccess delegate;
+
+        private BroadcastingTimestampsAccess(String region, StorageAccess delegate) {
+            this.region = region;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            return delegate.getFromCache(key, session);
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            delegate.putIntoCache(key, value, session);
+            record(session, region, encode(key));
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return delegate.contains(key);
+        }
+
+        @Override
+        public void removeFromCache(Object key, SharedSessionContractImplementor session) {
+            delegate.removeFromCache(key, session);
+        }
+
+        @Override
+        public void clearCache(SharedSessionContractImplementor session) {
+            delegate.clearCache(session);
+        }
+
+        @Override
+        public void evictData(Object key) {
+            delegate.evictData(key);
+        }
+
+        @Override
+        public void evictData() {
+            delegate.evictData();
+        }
+
+        @Override
+        public void release() {
+            delegate.release();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.kinganjia.backend.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the number of connections checked out of the wrapped pool at once. A
+ * caller takes a permit before borrowing a connection and returns it when the
+ * connection is closed; callers beyond the limit wait in FIFO order on a
+ * {@link Semaphore}, which parks virtual threads without pinning a carrier,
+ * and fail after {@code acquireTimeout} instead of queueing indefinitely.
+ */
+public class ConcurrencyLimitedDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int limit;
+    private final Duration acquireTimeout;
+
+    public ConcurrencyLimitedDataSource(DataSource target, int limit, Duration acquireTimeout) {
+        super(target);
+        if (limit < 1) {
+            throw new IllegalArgumentException("The database concurrency limit must be at least 1");
+        }
+        this.permits = new Semaphore(limit, true);
+        this.limit = limit;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getActive() {
+        return limit - permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("No database permit became available within "
+                                                                  + acquireTimeout + " (limit " + limit + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database permit", e);
+        }
+    }
+
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                   new Class<?>[]{Connection.class},
+                                                   (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                }
+            }
+            if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                } finally {
+                    permits.release();
+                }
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package com.kinganjia.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Puts a {@link ConcurrencyLimitedDataSource} in front of the connection
+ * pool. With virtual threads the number of in-flight requests is no longer
+ * bounded by the Tomcat thread pool, so without the gate every request would
+ * queue inside Hikari and time out together under a burst.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.db.concurrency-limit.enabled", havingValue = "true")
+@Slf4j
+public class DatabaseConcurrencyConfig {
+
+    // Static so that registering the post-processor does not instantiate this configuration early
+    @Bean
+    static BeanPostProcessor databaseConcurrencyLimiter(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource pool)) {
+                    return bean;
+                }
+                int permits = environment.getProperty("app.db.concurrency-limit.permits", Integer.class,
+                                                       pool.getMaximumPoolSize());
+                Duration acquireTimeout = environment.getProperty("app.db.concurrency-limit.acquire-timeout",
+                                                                  Duration.class, Duration.ofSeconds(10));
+                log.info("Limiting {} to {} concurrent connections", beanName, permits);
+                return new ConcurrencyLimitedDataSource(pool, permits, acquireTimeout);
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder databaseConcurrencyMetrics(DataSource dataSource) throws SQLException {
+        ConcurrencyLimitedDataSource gate = dataSource.unwrap(ConcurrencyLimitedDataSource.class);
+        return registry -> {
+            Gauge.builder("db.concurrency.limit", gate, ConcurrencyLimitedDataSource::getLimit)
+                 .description("Maximum connections borrowed at once")
+                 .register(registry);
+            Gauge.builder("db.concurrency.active", gate, ConcurrencyLimitedDataSource::getActive)
+                 .description("Connections currently borrowed through the gate")
+                 .register(registry);
+            Gauge.builder("db.concurrency.waiting", gate, ConcurrencyLimitedDataSource::getWaiting)
+                 .description("Callers waiting for a permit")
+                 .register(registry);
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package com.kinganjia.backend.config;
+
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Which database the application is connected to, for the few statements
+ * (upserts, extensions, indexes) that only PostgreSQL supports. Other
+ * databases, such as H2 in the test profile, get a portable fallback.
+ */
+@Component
+public class DatabasePlatform {
+
+    private final DataSource dataSource;
+    private volatile Boolean postgres;
+
+    public DatabasePlatform(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            try (Connection connection = dataSource.getConnection()) {
+                result = "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+            } catch (SQLException e) {
+                throw new IllegalStateException("Cannot determine the database type", e);
+            }
+            postgres = result;
+        }
+        return result;
+    }
+}
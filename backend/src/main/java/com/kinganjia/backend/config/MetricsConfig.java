@@ -0,0 +1,40 @@
+package com.kinganjia.backend.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Adds a {@code handler} tag ({@code ClaimController#getClaims}) to
+ * {@code http.server.requests}, so latency histograms can be broken down by
+ * controller method as well as by URI template and status.
+ */
+@Configuration
+public class MetricsConfig {
+
+    private static final KeyValue NO_HANDLER = KeyValue.of("handler", "none");
+
+    @Bean
+    public ServerRequestObservationConvention handlerTaggingObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                return super.getLowCardinalityKeyValues(context).and(handler(context));
+            }
+        };
+    }
+
+    private static KeyValue handler(ServerRequestObservationContext context) {
+        Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod method) {
+            return KeyValue.of("handler", method.getBeanType().getSimpleName() + "#" + method.getMethod().getName());
+        }
+        return NO_HANDLER;
+    }
+}
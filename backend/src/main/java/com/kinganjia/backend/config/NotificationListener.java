@@ -0,0 +1,121 @@
+package com.kinganjia.backend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+/**
+ * LISTENs on one PostgreSQL channel over a dedicated connection to the
+ * primary, on a thread of its own, and hands each payload to
+ * {@code onMessage}. The connection is re-established with backoff when it
+ * fails; notifications sent while not listening are lost, so
+ * {@code onConnect} runs every time listening (re)starts, before the first
+ * payload.
+ */
+@Slf4j
+public final class NotificationListener {
+
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+    private static final Duration KEEPALIVE = Duration.ofSeconds(10);
+
+    private final String channel;
+    private final String name;
+    private final DataSourceProperties dataSourceProperties;
+    private final Runnable onConnect;
+    private final Consumer<String> onMessage;
+    private volatile boolean connected;
+    private volatile boolean running;
+    private Thread thread;
+
+    public NotificationListener(String channel, DataSourceProperties dataSourceProperties, Runnable onConnect,
+                                Consumer<String> onMessage) {
+        this.channel = channel;
+        this.name = channel.replace('_', '-') + "-listener";
+        this.dataSourceProperties = dataSourceProperties;
+        this.onConnect = onConnect;
+        this.onMessage = onMessage;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = Thread.ofPlatform().name(name).daemon().start(this::listen);
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    private void listen() {
+        Duration backoff = Duration.ofSeconds(1);
+        while (running) {
+            try (Connection connection = connect();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + channel);
+                onConnect.run();
+                connected = true;
+                backoff = Duration.ofSeconds(1);
+                log.info("Listening on {}", channel);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                long lastCheck = System.nanoTime();
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(1000);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            onMessage.accept(notification.getParameter());
+                        }
+                    }
+                    // A connection that died silently would otherwise just report no notifications
+                    if (System.nanoTime() - lastCheck > KEEPALIVE.toNanos()) {
+                        statement.execute("select 1");
+                        lastCheck = System.nanoTime();
+                    }
+                }
+            } catch (SQLException e) {
+                connected = false;
+                if (!running) {
+                    return;
+                }
+                log.warn("Listener on {} disconnected, reconnecting in {}: {}", channel, backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoff = backoff.multipliedBy(2).compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff.multipliedBy(2);
+            }
+        }
+        connected = false;
+    }
+
+    private Connection connect() throws SQLException {
+        Properties properties = new Properties();
+        if (dataSourceProperties.determineUsername() != null) {
+            properties.setProperty("user", dataSourceProperties.determineUsername());
+        }
+        if (dataSourceProperties.determinePassword() != null) {
+            properties.setProperty("password", dataSourceProperties.determinePassword());
+        }
+        properties.setProperty("socketTimeout", String.valueOf(KEEPALIVE.multipliedBy(3).toSeconds()));
+        properties.setProperty("ApplicationName", name);
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(), properties);
+    }
+}
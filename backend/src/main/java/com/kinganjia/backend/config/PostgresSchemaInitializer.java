@@ -0,0 +1,81 @@
+package com.kinganjia.backend.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * PostgreSQL-specific schema steps that {@code ddl-auto=update} cannot express.
+ * Every statement is idempotent and runs once per startup, after Hibernate has
+ * updated the schema and before the web server accepts requests. Other
+ * databases (the H2 test profile) are skipped.
+ */
+@Component
+@Slf4j
+public class PostgresSchemaInitializer {
+
+    private static final List<String> STATEMENTS = List.of(
+            // Claim and image ids moved from identity columns to pooled sequences:
+            // keep each sequence ahead of ids that were generated by the identity column
+            "SELECT setval('claims_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM claims),"
+                    + " (SELECT last_value FROM claims_seq)))",
+            "SELECT setval('images_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM images),"
+                    + " (SELECT last_value FROM images_seq)))",
+            // Claim search (ClaimSearchService): a weighted word vector kept current by the database,
+            // and trigram indexes for misspelt or abbreviated words. Adding the column rewrites the table once.
+            // The trigram indexes are GiST so they can return rows nearest first; they replace the GIN ones
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "ALTER TABLE claims ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS ("
+                    + "setweight(to_tsvector('simple', coalesce(location, '')), 'A')"
+                    + " || setweight(to_tsvector('simple', coalesce(description, '')), 'B')) STORED",
+            "CREATE INDEX IF NOT EXISTS idx_claims_search_vector ON claims USING gin (search_vector)",
+            "DROP INDEX IF EXISTS idx_claims_location_trgm",
+            "DROP INDEX IF EXISTS idx_claims_description_trgm",
+            "CREATE INDEX IF NOT EXISTS idx_claims_location_trgm_gist ON claims"
+                    + " USING gist (location gist_trgm_ops(siglen = 256))",
+            "CREATE INDEX IF NOT EXISTS idx_claims_description_trgm_gist ON claims"
+                    + " USING gist (description gist_trgm_ops(siglen = 256))",
+            // The planner estimates trigram matches from the column statistics; the default sample is too
+            // small to tell a common word from a rare one. Takes effect at the next (auto)analyze
+            "ALTER TABLE claims ALTER COLUMN location SET STATISTICS 1000",
+            "ALTER TABLE claims ALTER COLUMN description SET STATISTICS 1000",
+            // Every word in search_vector, for correcting misspelt search words; filled once, then kept
+            // current by a trigger. Words of deleted claims stay, they just no longer match anything
+            "CREATE TABLE IF NOT EXISTS search_words (word text PRIMARY KEY)",
+            "CREATE INDEX IF NOT EXISTS idx_search_words_trgm ON search_words USING gist (word gist_trgm_ops)",
+            "CREATE OR REPLACE FUNCTION add_search_words() RETURNS trigger LANGUAGE plpgsql AS $$ BEGIN"
+                    + " INSERT INTO search_words SELECT unnest(tsvector_to_array(NEW.search_vector))"
+                    + " ON CONFLICT DO NOTHING; RETURN NULL; END $$",
+            "CREATE OR REPLACE TRIGGER claims_search_words AFTER INSERT OR UPDATE OF location, description"
+                    + " ON claims FOR EACH ROW EXECUTE FUNCTION add_search_words()",
+            "INSERT INTO search_words SELECT word FROM ts_stat('SELECT search_vector FROM claims')"
+                    + " WHERE NOT EXISTS (SELECT 1 FROM search_words) ON CONFLICT DO NOTHING"
+    );
+
+    private final DataSource dataSource;
+    private final DatabasePlatform databasePlatform;
+
+    // Depending on the EntityManagerFactory guarantees the Hibernate schema update ran first
+    public PostgresSchemaInitializer(DataSource dataSource, DatabasePlatform databasePlatform,
+                                     EntityManagerFactory entityManagerFactory) {
+        this.dataSource = dataSource;
+        this.databasePlatform = databasePlatform;
+    }
+
+    @PostConstruct
+    void initialize() {
+        if (!databasePlatform.isPostgres()) {
+            return;
+        }
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String statement : STATEMENTS) {
+            jdbcTemplate.execute(statement);
+        }
+        log.info("Applied {} PostgreSQL schema statements", STATEMENTS.size());
+    }
+}
@@ -0,0 +1,89 @@
+package com.kinganjia.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends read-only transactions to read replicas and everything else to the
+ * primary, when {@code app.datasource.replicas.urls} lists any replicas.
+ * The application's {@link DataSource} is a {@link LazyConnectionDataSourceProxy}:
+ * it fetches the physical connection at the first statement, by which time a
+ * {@code @Transactional(readOnly = true)} method has marked the connection
+ * read-only, and then takes it from the {@link ReadReplicaDataSource}.
+ * Replaces the auto-configured pool; {@code spring.datasource.*} still
+ * configures the primary.
+ */
+@Configuration
+@ConditionalOnExpression("!'${app.datasource.replicas.urls:}'.isBlank()")
+@Slf4j
+public class ReadReplicaConfig {
+
+    // The concurrency gate, when enabled, wraps this pool like the auto-configured one (DatabaseConcurrencyConfig)
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName(StringUtils.hasText(properties.getName()) ? properties.getName() : "primary");
+        return pool;
+    }
+
+    @Bean
+    public ReadReplicaDataSource replicaDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                                   Environment environment, MeterRegistry meterRegistry) {
+        String[] urls = StringUtils.commaDelimitedListToStringArray(
+                environment.getRequiredProperty("app.datasource.replicas.urls"));
+        List<HikariDataSource> pools = new ArrayList<>(urls.length);
+        for (String url : urls) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + (pools.size() + 1));
+            pool.setJdbcUrl(url.trim());
+            pool.setUsername(environment.getProperty("app.datasource.replicas.username"));
+            pool.setPassword(environment.getProperty("app.datasource.replicas.password"));
+            pool.setMaximumPoolSize(environment.getProperty("app.datasource.replicas.pool-size", Integer.class, 10));
+            pool.setConnectionTimeout(environment.getProperty("app.datasource.replicas.connection-timeout",
+                                                              Duration.class, Duration.ofSeconds(2)).toMillis());
+            pool.setReadOnly(true);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.add(pool);
+        }
+
+        boolean gated = environment.getProperty("app.db.concurrency-limit.enabled", Boolean.class, false);
+        Duration acquireTimeout = environment.getProperty("app.db.concurrency-limit.acquire-timeout", Duration.class,
+                                                          Duration.ofSeconds(10));
+        Duration maxLag = environment.getProperty("app.datasource.replicas.max-lag", Duration.class,
+                                                  Duration.ofSeconds(5));
+        log.info("Routing read-only transactions to {} replicas (max lag {})", pools.size(), maxLag);
+        return new ReadReplicaDataSource(primary, pools,
+                                         pool -> gated
+                                                 ? new ConcurrencyLimitedDataSource(pool, pool.getMaximumPoolSize(),
+                                                                                    acquireTimeout)
+                                                 : pool,
+                                         maxLag, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 ReadReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
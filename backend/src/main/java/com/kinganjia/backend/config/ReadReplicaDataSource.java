@@ -0,0 +1,158 @@
+package com.kinganjia.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Hands out connections to read replicas in turn, skipping replicas whose
+ * replay lag exceeds {@code maxLag} or that could not be reached, and falls
+ * back to the primary when none is usable. Lag is measured periodically
+ * rather than per connection.
+ */
+@Slf4j
+public class ReadReplicaDataSource extends AbstractDataSource implements InitializingBean, DisposableBean {
+
+    // Zero on a primary (e.g. a second local instance) and on a replica that has replayed everything it received.
+    // Null when the replica is not streaming from the primary, or has heard nothing from it for longer than the
+    // receiver's own timeout: having replayed everything received then says nothing about the lag. Reading the
+    // receiver's status needs pg_read_all_stats, otherwise every replica reads as not streaming
+    private static final String LAG_QUERY = """
+            select case
+                when not pg_is_in_recovery() then 0
+                when not exists (select 1 from pg_stat_wal_receiver
+                                 where status = 'streaming'
+                                   and last_msg_receipt_time > now() - coalesce(
+                                       nullif(current_setting('wal_receiver_timeout'), '0'), '60s')::interval)
+                    then null
+                when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0)
+            end
+            """;
+
+    private static final class Replica {
+        private final String name;
+        private final HikariDataSource pool;
+        private final DataSource dataSource;
+        private volatile boolean available;
+        private volatile double lagSeconds = Double.NaN;
+
+        private Replica(HikariDataSource pool, DataSource dataSource) {
+            this.name = pool.getPoolName();
+            this.pool = pool;
+            this.dataSource = dataSource;
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final double maxLagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter fallbacks;
+
+    /**
+     * @param gate wraps each replica pool, e.g. in a {@link ConcurrencyLimitedDataSource}
+     */
+    public ReadReplicaDataSource(DataSource primary, List<HikariDataSource> pools,
+                                 Function<HikariDataSource, DataSource> gate, Duration maxLag,
+                                 MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = pools.stream().map(pool -> new Replica(pool, gate.apply(pool))).toList();
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.fallbacks = Counter.builder("db.replica.fallbacks")
+                                .description("Read-only connections served by the primary because no replica was usable")
+                                .register(meterRegistry);
+        for (Replica replica : replicas) {
+            Gauge.builder("db.replica.lag", replica, r -> r.lagSeconds)
+                 .description("Replay lag behind the primary at the last check")
+                 .baseUnit("seconds")
+                 .tag("replica", replica.name)
+                 .register(meterRegistry);
+            Gauge.builder("db.replica.available", replica, r -> r.available ? 1 : 0)
+                 .description("Whether the replica is taking reads")
+                 .tag("replica", replica.name)
+                 .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        checkLag();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (!replica.available) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                // Out of rotation until the next check reaches it again
+                replica.available = false;
+                log.warn("Read replica {} failed to provide a connection: {}", replica.name, e.getMessage());
+            }
+        }
+        fallbacks.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Read replicas use the configured credentials");
+    }
+
+    /**
+     * Measures each replica's lag and takes it out of rotation beyond
+     * {@code max-lag} or when it is not streaming from the primary, or puts
+     * it back once it has caught up.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.check-interval:PT2S}",
+               initialDelayString = "${app.datasource.replicas.check-interval:PT2S}")
+    public void checkLag() {
+        for (Replica replica : replicas) {
+            boolean available;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery(LAG_QUERY)) {
+                result.next();
+                double lag = result.getDouble(1);
+                replica.lagSeconds = result.wasNull() ? Double.NaN : lag;
+                available = replica.lagSeconds <= maxLagSeconds;
+            } catch (SQLException e) {
+                replica.lagSeconds = Double.NaN;
+                available = false;
+            }
+            if (available != replica.available) {
+                log.info("Read replica {} {} (lag {}s)", replica.name, available ? "is taking reads" : "taken out of rotation",
+                         replica.lagSeconds);
+            }
+            replica.available = available;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+}
@@ -0,0 +1,15 @@
+package com.kinganjia.backend.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Background pollers and reconcilers. Switched off where they would interfere,
+ * e.g. the test profile, whose statement-count assertions read global statistics.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "app.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -0,0 +1,31 @@
+package com.kinganjia.backend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Hands Hibernate the second-level cache region factory as a bean, so it is
+ * configured from application properties and shared with
+ * {@link CacheInvalidationListener}.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean
+    public ClusteredCacheRegionFactory cacheRegionFactory(@Value("${app.cache.max-size:10000}") long maxSize,
+                                                          @Value("${app.cache.ttl:PT10M}") Duration ttl,
+                                                          MeterRegistry meterRegistry) {
+        return new ClusteredCacheRegionFactory(maxSize, ttl, meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheRegionFactoryCustomizer(ClusteredCacheRegionFactory regionFactory) {
+        return properties -> properties.put(AvailableSettings.CACHE_REGION_FACTORY, regionFactory);
+    }
+}
@@ -1,9 +1,14 @@
 package com.kinganjia.backend.config;
 
+import com.kinganjia.backend.security.BoundedPasswordEncoder;
 import com.kinganjia.backend.security.JwtAuthenticationFilter;
+import com.kinganjia.backend.security.TimedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -25,9 +30,18 @@ import java.util.Arrays;
 public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    /**
+     * BCrypt at the configured cost, on its own bounded pool. Hashes stored at
+     * a lower cost report {@code upgradeEncoding} and are rehashed on login.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:10}") int strength,
+                                           @Value("${security.password.threads:0}") int threads,
+                                           @Value("${security.password.queue-capacity:64}") int queueCapacity,
+                                           MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(new TimedPasswordEncoder(new BCryptPasswordEncoder(strength), meterRegistry),
+                                          threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                                          queueCapacity, meterRegistry);
     }
 
     @Bean
@@ -56,7 +70,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           @Value("${management.server.port:-1}") int managementPort) throws Exception {
         http
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(csrf -> csrf.disable())
@@ -64,6 +79,14 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/v1/auth/register", "/api/v1/auth/login").permitAll()
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                // Container health checks call this without a token
+                .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+                // So does the Prometheus scraper, but only on the management port, which is not published
+                .requestMatchers(request -> request.getLocalPort() == managementPort
+                        && HttpMethod.GET.matches(request.getMethod())
+                        && "/actuator/prometheus".equals(request.getRequestURI())).permitAll()
+                // Blob URLs are unguessable content digests and are loaded by <img> tags without a token
+                .requestMatchers(HttpMethod.GET, "/api/v1/blobs/**").permitAll()
                 .anyRequest().authenticated()
             )
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
@@ -0,0 +1,37 @@
+package com.kinganjia.backend.controller;
+
+import com.kinganjia.backend.service.ImageService;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+/**
+ * Serves uploaded image bytes by SHA-256. Content never changes for a given
+ * address, so responses are cacheable forever; the digest doubles as a strong
+ * ETag and {@code Range} requests are answered from the file.
+ */
+@RestController
+@RequestMapping("/api/v1/blobs")
+public class BlobController {
+    private final ImageService imageService;
+
+    public BlobController(ImageService imageService) {
+        this.imageService = imageService;
+    }
+
+    @GetMapping("/{sha256}")
+    public ResponseEntity<Resource> getBlob(@PathVariable String sha256) {
+        ImageService.ImageContent content = imageService.getImageContent(sha256);
+        return ResponseEntity.ok()
+                             .contentType(content.contentType())
+                             .eTag(content.sha256())
+                             .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                             .body(content.resource());
+    }
+}
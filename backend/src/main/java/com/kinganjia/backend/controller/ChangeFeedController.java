@@ -0,0 +1,29 @@
+package com.kinganjia.backend.controller;
+
+import com.kinganjia.backend.dto.ChangeDTO;
+import com.kinganjia.backend.dto.CursorPageDTO;
+import com.kinganjia.backend.dto.response.ApiResponse;
+import com.kinganjia.backend.service.ChangeFeedService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/changes")
+public class ChangeFeedController {
+    private final ChangeFeedService changeFeedService;
+
+    public ChangeFeedController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<CursorPageDTO<ChangeDTO>>> getChanges(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(ApiResponse.ok("Changes retrieved successfully",
+                                                changeFeedService.getChanges(cursor, limit)));
+    }
+}
@@ -1,17 +1,42 @@
 package com.kinganjia.backend.controller;
 
+import com.kinganjia.backend.dto.BulkItemResultDTO;
+import com.kinganjia.backend.dto.BulkResultDTO;
+import com.kinganjia.backend.dto.BulkStatusRequestDTO;
+import com.kinganjia.backend.dto.ClaimFilterDTO;
+import com.kinganjia.backend.dto.ClaimLocationDTO;
+import com.kinganjia.backend.dto.ClaimLocationsDTO;
 import com.kinganjia.backend.dto.ClaimRequestDTO;
 import com.kinganjia.backend.dto.ClaimResponseDTO;
+import com.kinganjia.backend.dto.ClaimSearchResultDTO;
+import com.kinganjia.backend.dto.ClaimStatusResultDTO;
+import com.kinganjia.backend.dto.CursorPageDTO;
 import com.kinganjia.backend.dto.ImageResponseDTO;
 import com.kinganjia.backend.dto.response.ApiResponse;
+import com.kinganjia.backend.service.ClaimExportService;
+import com.kinganjia.backend.service.ClaimIngestionService;
+import com.kinganjia.backend.service.ClaimModerationService;
+import com.kinganjia.backend.service.ClaimSearchService;
 import com.kinganjia.backend.service.ClaimService;
+import com.kinganjia.backend.service.ClaimSpatialService;
+import com.kinganjia.backend.service.ClaimStreamService;
 import com.kinganjia.backend.service.ImageService;
+import com.kinganjia.backend.util.ResourceVersion;
+import com.kinganjia.backend.util.Versioned;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -20,25 +45,119 @@ import java.util.List;
 public class ClaimController {
     private final ClaimService claimService;
     private final ImageService imageService;
+    private final ClaimExportService claimExportService;
+    private final ClaimSpatialService claimSpatialService;
+    private final ClaimIngestionService claimIngestionService;
+    private final ClaimStreamService claimStreamService;
+    private final ClaimModerationService claimModerationService;
+    private final ClaimSearchService claimSearchService;
 
-    public ClaimController(ClaimService claimService, ImageService imageService) {
+    public ClaimController(ClaimService claimService, ImageService imageService,
+                           ClaimExportService claimExportService, ClaimSpatialService claimSpatialService,
+                           ClaimIngestionService claimIngestionService, ClaimStreamService claimStreamService,
+                           ClaimModerationService claimModerationService, ClaimSearchService claimSearchService) {
         this.claimService = claimService;
         this.imageService = imageService;
+        this.claimExportService = claimExportService;
+        this.claimSpatialService = claimSpatialService;
+        this.claimIngestionService = claimIngestionService;
+        this.claimStreamService = claimStreamService;
+        this.claimModerationService = claimModerationService;
+        this.claimSearchService = claimSearchService;
     }
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<ClaimResponseDTO>>> getClaims() {
-        return ResponseEntity.ok(ApiResponse.ok("Claims retrieved successfully", claimService.getAllClaims()));
+    public ResponseEntity<ApiResponse<List<ClaimResponseDTO>>> getClaims(WebRequest request) {
+        // Revalidation costs a few aggregate queries instead of loading and serializing every claim
+        if (ResourceVersion.isConditional(request) && claimService.getAllClaimsVersion().isNotModified(request)) {
+            return null;
+        }
+        Versioned<List<ClaimResponseDTO>> claims = claimService.getAllClaims();
+        return claims.version().ok().body(ApiResponse.ok("Claims retrieved successfully", claims.body()));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<ApiResponse<CursorPageDTO<ClaimResponseDTO>>> getClaimsPage(
+            @ModelAttribute ClaimFilterDTO filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(ApiResponse.ok("Claims retrieved successfully",
+                                                claimService.getClaimsPage(filter, cursor, size)));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamClaims(
+            @ModelAttribute ClaimFilterDTO filter,
+            @RequestParam(required = false) Double minLat,
+            @RequestParam(required = false) Double minLon,
+            @RequestParam(required = false) Double maxLat,
+            @RequestParam(required = false) Double maxLon) {
+        return claimStreamService.subscribe(filter, minLat, minLon, maxLat, maxLon);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<ClaimSearchResultDTO>>> searchClaims(
+            @RequestParam(required = false) String q,
+            @ModelAttribute ClaimFilterDTO filter,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(ApiResponse.ok("Claims retrieved successfully",
+                                                claimSearchService.search(q, filter, limit)));
+    }
+
+    @GetMapping("/nearby")
+    public ResponseEntity<ApiResponse<List<ClaimLocationDTO>>> getClaimsNearby(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam double radius,
+            @ModelAttribute ClaimFilterDTO filter,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(ApiResponse.ok("Claims retrieved successfully",
+                                                claimSpatialService.findWithinRadius(lat, lon, radius, filter, limit)));
+    }
+
+    @GetMapping("/within")
+    public ResponseEntity<ApiResponse<ClaimLocationsDTO>> getClaimsWithin(
+            @RequestParam double minLat,
+            @RequestParam double minLon,
+            @RequestParam double maxLat,
+            @RequestParam double maxLon,
+            @ModelAttribute ClaimFilterDTO filter,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(ApiResponse.ok("Claims retrieved successfully",
+                                                claimSpatialService.findWithinBox(minLat, minLon, maxLat, maxLon,
+                                                                                  filter, limit)));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportClaims(@ModelAttribute ClaimFilterDTO filter,
+                                                              @RequestParam(required = false) String format) {
+        ClaimExportService.Format exportFormat = ClaimExportService.Format.from(format);
+        ContentDisposition disposition = ContentDisposition.attachment()
+                                                           .filename("claims." + exportFormat.getExtension())
+                                                           .build();
+        return ResponseEntity.ok()
+                             .contentType(exportFormat.getMediaType())
+                             .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                             .body(claimExportService.export(filter, exportFormat));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<ClaimResponseDTO>> getClaimById(@PathVariable Long id) {
-        return ResponseEntity.ok(ApiResponse.ok("Claims retrieved successfully", claimService.getClaimById(id)));
+    public ResponseEntity<ApiResponse<ClaimResponseDTO>> getClaimById(@PathVariable Long id, WebRequest request) {
+        if (ResourceVersion.isConditional(request) && claimService.getClaimVersion(id).isNotModified(request)) {
+            return null;
+        }
+        Versioned<ClaimResponseDTO> claim = claimService.getClaimById(id);
+        return claim.version().ok().body(ApiResponse.ok("Claims retrieved successfully", claim.body()));
     }
 
     @GetMapping("/{id}/images")
-    public ResponseEntity<ApiResponse<List<ImageResponseDTO>>> getClaimImages(@PathVariable Long id) {
-        return ResponseEntity.ok(ApiResponse.ok("Claim images retrieved successfully", imageService.getClaimByClaimId(id)));
+    public ResponseEntity<ApiResponse<List<ImageResponseDTO>>> getClaimImages(@PathVariable Long id,
+                                                                              WebRequest request) {
+        if (ResourceVersion.isConditional(request) && imageService.getClaimImagesVersion(id).isNotModified(request)) {
+            return null;
+        }
+        Versioned<List<ImageResponseDTO>> images = imageService.getClaimByClaimId(id);
+        return images.version().ok().body(ApiResponse.ok("Claim images retrieved successfully", images.body()));
     }
 
     @PostMapping
@@ -47,6 +166,18 @@ public class ClaimController {
                              .body(ApiResponse.created("Claim created successfully", claimService.createClaim(claim)));
     }
 
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ApiResponse<BulkResultDTO<BulkItemResultDTO>>> createClaimsInBulk(InputStream body)
+            throws IOException {
+        return ResponseEntity.ok(ApiResponse.ok("Bulk claims processed", claimIngestionService.ingest(body)));
+    }
+
+    @PostMapping("/status")
+    public ResponseEntity<ApiResponse<BulkResultDTO<ClaimStatusResultDTO>>> updateClaimStatuses(
+            @Valid @RequestBody BulkStatusRequestDTO request) {
+        return ResponseEntity.ok(ApiResponse.ok("Claim statuses updated", claimModerationService.updateStatus(request)));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<ClaimResponseDTO>> updateClaim(@PathVariable Long id,
                                                                    @Valid @RequestBody ClaimRequestDTO claim) {
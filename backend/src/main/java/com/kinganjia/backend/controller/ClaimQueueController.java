@@ -0,0 +1,46 @@
+package com.kinganjia.backend.controller;
+
+import com.kinganjia.backend.dto.ClaimDecisionDTO;
+import com.kinganjia.backend.dto.ClaimLeaseDTO;
+import com.kinganjia.backend.dto.ClaimResponseDTO;
+import com.kinganjia.backend.dto.response.ApiResponse;
+import com.kinganjia.backend.service.ClaimQueueService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/claims/queue")
+@RequiredArgsConstructor
+@Slf4j
+public class ClaimQueueController {
+    private final ClaimQueueService claimQueueService;
+
+    @PostMapping("/lease")
+    public ResponseEntity<ApiResponse<ClaimLeaseDTO>> lease(Authentication authentication,
+                                                            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(ApiResponse.ok("Claims leased", claimQueueService.lease(authentication.getName(), size)));
+    }
+
+    @PostMapping("/heartbeat")
+    public ResponseEntity<ApiResponse<ClaimLeaseDTO>> heartbeat(Authentication authentication) {
+        return ResponseEntity.ok(ApiResponse.ok("Leases renewed", claimQueueService.heartbeat(authentication.getName())));
+    }
+
+    @DeleteMapping("/{id}/lease")
+    public ResponseEntity<ApiResponse<Void>> release(Authentication authentication, @PathVariable Long id) {
+        claimQueueService.release(authentication.getName(), id);
+        return ResponseEntity.ok(ApiResponse.ok("Lease released", null));
+    }
+
+    @PostMapping("/{id}/decision")
+    public ResponseEntity<ApiResponse<ClaimResponseDTO>> decide(Authentication authentication,
+                                                                @PathVariable Long id,
+                                                                @Valid @RequestBody ClaimDecisionDTO decision) {
+        return ResponseEntity.ok(ApiResponse.ok("Claim updated successfully",
+                                                claimQueueService.decide(authentication.getName(), id, decision)));
+    }
+}
@@ -0,0 +1,53 @@
+package com.kinganjia.backend.controller;
+
+import com.kinganjia.backend.dto.ClaimSummaryDTO;
+import com.kinganjia.backend.dto.ClusterStatusRequestDTO;
+import com.kinganjia.backend.dto.HazardClusterDTO;
+import com.kinganjia.backend.dto.response.ApiResponse;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.service.HazardClusterService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/clusters")
+@RequiredArgsConstructor
+@Slf4j
+public class HazardClusterController {
+    private final HazardClusterService hazardClusterService;
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<HazardClusterDTO>>> getClusters(
+            @RequestParam(required = false) ClaimStatus status,
+            @RequestParam(required = false) Integer minMembers,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(ApiResponse.ok("Clusters retrieved successfully",
+                                                hazardClusterService.getClusters(status, minMembers, page, size)));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<HazardClusterDTO>> getClusterById(@PathVariable Long id) {
+        return ResponseEntity.ok(ApiResponse.ok("Cluster retrieved successfully",
+                                                hazardClusterService.getClusterById(id)));
+    }
+
+    @GetMapping("/{id}/claims")
+    public ResponseEntity<ApiResponse<List<ClaimSummaryDTO>>> getClusterClaims(@PathVariable Long id) {
+        return ResponseEntity.ok(ApiResponse.ok("Cluster claims retrieved successfully",
+                                                hazardClusterService.getClusterClaims(id)));
+    }
+
+    @PatchMapping("/{id}/status")
+    public ResponseEntity<ApiResponse<HazardClusterDTO>> updateClusterStatus(
+            @PathVariable Long id,
+            @Valid @RequestBody ClusterStatusRequestDTO request) {
+        return ResponseEntity.ok(ApiResponse.ok("Cluster updated successfully",
+                                                hazardClusterService.updateClusterStatus(id, request.getStatus())));
+    }
+}
@@ -0,0 +1,43 @@
+package com.kinganjia.backend.controller;
+
+import com.kinganjia.backend.dto.HeatmapTileDTO;
+import com.kinganjia.backend.dto.response.ApiResponse;
+import com.kinganjia.backend.service.HeatmapService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+/**
+ * Claim density tiles. The ETag is derived from the tile's content, so a
+ * client revalidating an unchanged tile gets an empty 304.
+ */
+@RestController
+@RequestMapping("/api/v1/heatmap")
+public class HeatmapController {
+    private final HeatmapService heatmapService;
+    private final Duration maxAge;
+
+    public HeatmapController(HeatmapService heatmapService,
+                             @Value("${app.heatmap.max-age:PT30S}") Duration maxAge) {
+        this.heatmapService = heatmapService;
+        this.maxAge = maxAge;
+    }
+
+    @GetMapping("/{z}/{x}/{y}")
+    public ResponseEntity<ApiResponse<HeatmapTileDTO>> getTile(@PathVariable int z,
+                                                               @PathVariable int x,
+                                                               @PathVariable int y) {
+        HeatmapTileDTO tile = heatmapService.getTile(z, x, y);
+        return ResponseEntity.ok()
+                             .eTag("W/\"" + Long.toHexString(tile.getTotal()) + "-"
+                                           + Integer.toHexString(tile.getCells().hashCode()) + "\"")
+                             .cacheControl(CacheControl.maxAge(maxAge).cachePrivate())
+                             .body(ApiResponse.ok("Heatmap tile retrieved successfully", tile));
+    }
+}
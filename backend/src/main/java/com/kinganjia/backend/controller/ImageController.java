@@ -1,15 +1,26 @@
 package com.kinganjia.backend.controller;
 
+import com.kinganjia.backend.dto.ImageDerivativeDTO;
 import com.kinganjia.backend.dto.ImageRequestDTO;
 import com.kinganjia.backend.dto.ImageResponseDTO;
+import com.kinganjia.backend.dto.SimilarImageDTO;
 import com.kinganjia.backend.dto.response.ApiResponse;
+import com.kinganjia.backend.service.ImageDerivativeService;
 import com.kinganjia.backend.service.ImageService;
+import com.kinganjia.backend.util.ResourceVersion;
+import com.kinganjia.backend.util.Versioned;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -17,9 +28,11 @@ import java.util.List;
 @Slf4j
 public class ImageController {
     private final ImageService imageService;
+    private final ImageDerivativeService imageDerivativeService;
 
-    public ImageController(ImageService imageService) {
+    public ImageController(ImageService imageService, ImageDerivativeService imageDerivativeService) {
         this.imageService = imageService;
+        this.imageDerivativeService = imageDerivativeService;
     }
 
     @GetMapping
@@ -28,8 +41,42 @@ public class ImageController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<ImageResponseDTO>> getImageById(@PathVariable Long id) {
-        return ResponseEntity.ok(ApiResponse.ok("Images retrieved successfully", imageService.getImageById(id)));
+    public ResponseEntity<ApiResponse<ImageResponseDTO>> getImageById(@PathVariable Long id, WebRequest request) {
+        if (ResourceVersion.isConditional(request) && imageService.getImageVersion(id).isNotModified(request)) {
+            return null;
+        }
+        Versioned<ImageResponseDTO> image = imageService.getImageById(id);
+        return image.version().ok().body(ApiResponse.ok("Images retrieved successfully", image.body()));
+    }
+
+    @GetMapping("/similar")
+    public ResponseEntity<ApiResponse<List<SimilarImageDTO>>> getSimilarImages(
+            @RequestParam String hash,
+            @RequestParam(required = false) Integer maxDistance) {
+        return ResponseEntity.ok(ApiResponse.ok("Similar images retrieved successfully",
+                                                imageService.getSimilarImages(hash, maxDistance)));
+    }
+
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<ApiResponse<List<SimilarImageDTO>>> getSimilarImagesTo(
+            @PathVariable Long id,
+            @RequestParam(required = false) Integer maxDistance) {
+        return ResponseEntity.ok(ApiResponse.ok("Similar images retrieved successfully",
+                                                imageService.getSimilarImagesTo(id, maxDistance)));
+    }
+
+    @GetMapping("/{id}/derivatives")
+    public ResponseEntity<ApiResponse<List<ImageDerivativeDTO>>> getDerivatives(@PathVariable Long id) {
+        return ResponseEntity.ok(ApiResponse.ok("Image derivatives retrieved successfully",
+                                                imageDerivativeService.getDerivatives(id)));
+    }
+
+    @PostMapping("/{id}/derivatives")
+    public ResponseEntity<ApiResponse<ImageDerivativeDTO>> requestDerivative(@PathVariable Long id,
+                                                                             @RequestParam Integer width) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                             .body(ApiResponse.success(HttpStatus.ACCEPTED.value(), "Image derivative requested",
+                                                       imageDerivativeService.requestDerivative(id, width)));
     }
 
     @PostMapping
@@ -38,6 +85,18 @@ public class ImageController {
                              .body(ApiResponse.created("Image created successfully", imageService.createImage(image)));
     }
 
+    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<ImageResponseDTO>> uploadImage(
+            @RequestParam Long claimId,
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(required = false) String hash,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime timestamp)
+            throws IOException {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                             .body(ApiResponse.created("Image uploaded successfully",
+                                                       imageService.uploadImage(claimId, file, hash, timestamp)));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<ImageResponseDTO>> updateImage(@PathVariable Long id,
                                                                      @Valid @RequestBody ImageRequestDTO image) {
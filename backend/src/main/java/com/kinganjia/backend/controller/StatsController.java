@@ -0,0 +1,26 @@
+package com.kinganjia.backend.controller;
+
+import com.kinganjia.backend.dto.ClaimStatsDTO;
+import com.kinganjia.backend.dto.response.ApiResponse;
+import com.kinganjia.backend.service.ClaimStatsService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/stats")
+public class StatsController {
+    private final ClaimStatsService claimStatsService;
+
+    public StatsController(ClaimStatsService claimStatsService) {
+        this.claimStatsService = claimStatsService;
+    }
+
+    @GetMapping("/claims")
+    public ResponseEntity<ApiResponse<ClaimStatsDTO>> getClaimStats(@RequestParam(required = false) Integer days) {
+        return ResponseEntity.ok(ApiResponse.ok("Claim statistics retrieved successfully",
+                                                claimStatsService.getStats(days)));
+    }
+}
@@ -6,11 +6,14 @@ import com.kinganjia.backend.dto.UserResponseDTO;
 import com.kinganjia.backend.dto.response.ApiResponse;
 import com.kinganjia.backend.service.ClaimService;
 import com.kinganjia.backend.service.UserService;
+import com.kinganjia.backend.util.ResourceVersion;
+import com.kinganjia.backend.util.Versioned;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -32,8 +35,12 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<UserResponseDTO>> getUserById(@PathVariable Long id) {
-        return ResponseEntity.ok(ApiResponse.ok("Users retrieved successfully", userService.getUserById(id)));
+    public ResponseEntity<ApiResponse<UserResponseDTO>> getUserById(@PathVariable Long id, WebRequest request) {
+        if (ResourceVersion.isConditional(request) && userService.getUserVersion(id).isNotModified(request)) {
+            return null;
+        }
+        Versioned<UserResponseDTO> user = userService.getUserById(id);
+        return user.version().ok().body(ApiResponse.ok("Users retrieved successfully", user.body()));
     }
 
     @GetMapping("/{id}/claims")
@@ -0,0 +1,18 @@
+package com.kinganjia.backend.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * One item of a bulk claim upload: a claim together with its images.
+ * The images' {@code claimId} is ignored.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class BulkClaimRequestDTO extends ClaimRequestDTO {
+    private List<ImageRequestDTO> images;
+}
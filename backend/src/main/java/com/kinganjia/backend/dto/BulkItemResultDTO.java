@@ -0,0 +1,32 @@
+package com.kinganjia.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResultDTO {
+    public enum Status {
+        CREATED, FAILED
+    }
+
+    private int index;
+    private Status status;
+    private Long id;
+    private List<Long> imageIds;
+    private String error;
+
+    public static BulkItemResultDTO created(int index, Long id, List<Long> imageIds) {
+        return new BulkItemResultDTO(index, Status.CREATED, id, imageIds, null);
+    }
+
+    public static BulkItemResultDTO failed(int index, String error) {
+        return new BulkItemResultDTO(index, Status.FAILED, null, null, error);
+    }
+}
@@ -0,0 +1,19 @@
+package com.kinganjia.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk operation; {@code items} are in request order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkResultDTO<T> {
+    private int succeeded;
+    private int failed;
+    private List<T> items;
+}
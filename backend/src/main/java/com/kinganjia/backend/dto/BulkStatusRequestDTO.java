@@ -0,0 +1,25 @@
+package com.kinganjia.backend.dto;
+
+import com.kinganjia.backend.model.ClaimStatus;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Target status for a set of claims, chosen either by {@code ids} or by
+ * {@code filter} (exactly one of the two).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusRequestDTO {
+    @NotNull(message = "Status is required")
+    private ClaimStatus status;
+
+    private List<Long> ids;
+
+    private ClaimFilterDTO filter;
+}
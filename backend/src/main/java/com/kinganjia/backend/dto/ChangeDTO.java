@@ -0,0 +1,27 @@
+package com.kinganjia.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.kinganjia.backend.model.ChangeEntityType;
+import com.kinganjia.backend.model.ChangeOperation;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The latest change to one claim or image. Upserts carry the entity's
+ * current state; deletes carry only the id.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeDTO {
+    private ChangeEntityType type;
+    private Long id;
+    private ChangeOperation operation;
+    private LocalDateTime changedAt;
+    private ClaimResponseDTO claim;
+    private ImageResponseDTO image;
+}
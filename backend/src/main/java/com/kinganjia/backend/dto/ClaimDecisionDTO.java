@@ -0,0 +1,22 @@
+package com.kinganjia.backend.dto;
+
+import com.kinganjia.backend.model.ClaimStatus;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A moderator's decision on a leased claim; {@code version} is the claim
+ * version they reviewed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClaimDecisionDTO {
+    @NotNull(message = "Status is required")
+    private ClaimStatus status;
+
+    @NotNull(message = "Version is required")
+    private Long version;
+}
@@ -0,0 +1,30 @@
+package com.kinganjia.backend.dto;
+
+import com.kinganjia.backend.event.ClaimChangeEvent;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.DetectionType;
+import com.kinganjia.backend.model.SeverityLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A committed claim change as pushed to stream subscribers: the attributes
+ * they filter on, after the change (before it, for deletions). The full claim
+ * is one conditional GET away.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClaimEventDTO {
+    private ClaimChangeEvent.Type type;
+    private Long id;
+    private ClaimStatus status;
+    private SeverityLevel severity;
+    private DetectionType detectionType;
+    private Double latitude;
+    private Double longitude;
+    private LocalDateTime createdAt;
+}
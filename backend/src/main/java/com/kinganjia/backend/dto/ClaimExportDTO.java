@@ -0,0 +1,36 @@
+package com.kinganjia.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.DetectionType;
+import com.kinganjia.backend.model.SeverityLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat claim row for bulk exports; references the user by id only so that
+ * no association is loaded while streaming.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({"id", "userId", "location", "latitude", "longitude", "status", "severity", "detectionType",
+        "hash", "description", "confirmationTime", "createdAt", "updatedAt"})
+public class ClaimExportDTO {
+    private Long id;
+    private Long userId;
+    private String location;
+    private Double latitude;
+    private Double longitude;
+    private ClaimStatus status;
+    private SeverityLevel severity;
+    private DetectionType detectionType;
+    private String hash;
+    private String description;
+    private LocalDateTime confirmationTime;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,26 @@
+package com.kinganjia.backend.dto;
+
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.DetectionType;
+import com.kinganjia.backend.model.SeverityLevel;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Server-side filters for claim listings. All fields are optional.
+ * {@code from} is inclusive and {@code to} is exclusive on {@code createdAt}.
+ */
+@Data
+public class ClaimFilterDTO {
+    private ClaimStatus status;
+    private SeverityLevel severity;
+    private DetectionType detectionType;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+}
@@ -0,0 +1,23 @@
+package com.kinganjia.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Claims leased to the calling moderator and when those leases run out
+ * unless renewed by a heartbeat.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ClaimLeaseDTO {
+    private int count;
+    private LocalDateTime leaseExpiresAt;
+    private List<ClaimResponseDTO> claims;
+}
@@ -0,0 +1,30 @@
+package com.kinganjia.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.SeverityLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lightweight claim marker for map views.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ClaimLocationDTO {
+    private Long id;
+    private String location;
+    private Double latitude;
+    private Double longitude;
+    private ClaimStatus status;
+    private SeverityLevel severity;
+    private Double distanceMeters;
+
+    public ClaimLocationDTO(Long id, String location, Double latitude, Double longitude, ClaimStatus status,
+                            SeverityLevel severity) {
+        this(id, location, latitude, longitude, status, severity, null);
+    }
+}
@@ -0,0 +1,20 @@
+package com.kinganjia.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Claims inside a bounding box. {@code truncated} means more claims matched
+ * than the limit allowed and {@code items} is an arbitrary subset of them:
+ * zoom in or narrow the filter to see them all.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClaimLocationsDTO {
+    private List<ClaimLocationDTO> items;
+    private boolean truncated;
+}
@@ -28,9 +28,13 @@ public class ClaimResponseDTO {
     private LocalDateTime confirmationTime;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
+    private String leasedBy;
+    private LocalDateTime leaseExpiresAt;
 //    private List<Image> images;
 
     private UserSummaryDTO user;
     private List<ImageSummaryDTO> images;
     private Integer imageCount;
+    private Long clusterId;
 }
@@ -0,0 +1,37 @@
+package com.kinganjia.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.DetectionType;
+import com.kinganjia.backend.model.SeverityLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A claim matching a text search; higher {@code score} is more relevant.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ClaimSearchResultDTO {
+    private Long id;
+    private String location;
+    private String description;
+    private Double latitude;
+    private Double longitude;
+    private ClaimStatus status;
+    private SeverityLevel severity;
+    private DetectionType detectionType;
+    private LocalDateTime createdAt;
+    private Double score;
+
+    public ClaimSearchResultDTO(Long id, String location, String description, Double latitude, Double longitude,
+                                ClaimStatus status, SeverityLevel severity, DetectionType detectionType,
+                                LocalDateTime createdAt) {
+        this(id, location, description, latitude, longitude, status, severity, detectionType, createdAt, null);
+    }
+}
@@ -0,0 +1,25 @@
+package com.kinganjia.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Dashboard counters. Null severity or detection type is reported as
+ * {@code UNSPECIFIED}; {@code byDay} is keyed by ISO date and only covers the
+ * requested window.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClaimStatsDTO {
+    private long total;
+    private Map<String, Long> byStatus;
+    private Map<String, Long> bySeverity;
+    private Map<String, Long> byDetectionType;
+    private Map<String, Long> byDay;
+    private LocalDateTime reconciledAt;
+}
@@ -0,0 +1,34 @@
+package com.kinganjia.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.kinganjia.backend.model.ClaimStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-claim outcome of a bulk status change. {@code previousStatus} is the
+ * status the claim had before the request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ClaimStatusResultDTO {
+    public enum Outcome {
+        UPDATED, UNCHANGED, NOT_FOUND, FAILED
+    }
+
+    private Long id;
+    private Outcome outcome;
+    private ClaimStatus previousStatus;
+    private String error;
+
+    public static ClaimStatusResultDTO of(Long id, Outcome outcome, ClaimStatus previousStatus) {
+        return new ClaimStatusResultDTO(id, outcome, previousStatus, null);
+    }
+
+    public static ClaimStatusResultDTO failed(Long id, String error) {
+        return new ClaimStatusResultDTO(id, Outcome.FAILED, null, error);
+    }
+}
@@ -0,0 +1,15 @@
+package com.kinganjia.backend.dto;
+
+import com.kinganjia.backend.model.ClaimStatus;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterStatusRequestDTO {
+    @NotNull(message = "Status is required")
+    private ClaimStatus status;
+}
@@ -0,0 +1,27 @@
+package com.kinganjia.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.SeverityLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HazardClusterDTO {
+    private Long id;
+    private Double centroidLatitude;
+    private Double centroidLongitude;
+    private Integer memberCount;
+    private SeverityLevel maxSeverity;
+    private ClaimStatus status;
+    private LocalDateTime firstReportedAt;
+    private LocalDateTime lastReportedAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
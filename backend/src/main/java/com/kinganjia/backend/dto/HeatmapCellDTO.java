@@ -0,0 +1,21 @@
+package com.kinganjia.backend.dto;
+
+import com.kinganjia.backend.model.SeverityLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One bin of a heatmap tile; {@code x} and {@code y} are relative to the
+ * tile's top-left corner. {@code maxSeverity} is null when no claim in the
+ * bin has a severity.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeatmapCellDTO {
+    private int x;
+    private int y;
+    private long count;
+    private SeverityLevel maxSeverity;
+}
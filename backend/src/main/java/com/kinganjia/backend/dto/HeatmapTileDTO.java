@@ -0,0 +1,23 @@
+package com.kinganjia.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Claim density for map tile {@code z/x/y}, split into a
+ * {@code resolution x resolution} grid. Only non-empty bins are listed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeatmapTileDTO {
+    private int z;
+    private int x;
+    private int y;
+    private int resolution;
+    private long total;
+    private List<HeatmapCellDTO> cells;
+}
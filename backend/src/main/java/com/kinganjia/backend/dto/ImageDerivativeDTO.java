@@ -0,0 +1,24 @@
+package com.kinganjia.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.kinganjia.backend.model.DerivativeStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImageDerivativeDTO {
+    private Integer width;
+    private DerivativeStatus status;
+    private String url;
+    private String contentType;
+    private Long sizeBytes;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
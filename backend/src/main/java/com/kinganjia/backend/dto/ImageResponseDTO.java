@@ -8,6 +8,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -18,9 +19,17 @@ public class ImageResponseDTO {
     private String url;
     private String hash;
     private LocalDateTime timestamp;
+    private String contentHash;
+    private String contentType;
+    private Long sizeBytes;
+    // Set once the derivative worker has rendered them; list views should never need the original
+    private String thumbnailUrl;
+    private String previewUrl;
 //    private Claim claim;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private ClaimSummaryDTO claim;
     private UserSummaryDTO user;
+    // Only set on create: already stored images whose perceptual hash is within the duplicate distance
+    private List<SimilarImageDTO> nearDuplicates;
 }
@@ -11,4 +11,6 @@ public class ImageSummaryDTO {
     private Long id;
     private String url;
     private String hash;
+    private String thumbnailUrl;
+    private String previewUrl;
 }
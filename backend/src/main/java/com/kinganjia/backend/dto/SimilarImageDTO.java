@@ -0,0 +1,16 @@
+package com.kinganjia.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimilarImageDTO {
+    private Long id;
+    private Long claimId;
+    private String url;
+    private String hash;
+    private Integer distance;
+}
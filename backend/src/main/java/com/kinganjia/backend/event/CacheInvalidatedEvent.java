@@ -0,0 +1,11 @@
+package com.kinganjia.backend.event;
+
+import java.util.Set;
+
+/**
+ * Published after a cache invalidation notification from any node, this one
+ * included, has been applied to the second-level cache, so caches kept
+ * outside Hibernate can drop what they derived from those regions.
+ */
+public record CacheInvalidatedEvent(Set<String> regions) {
+}
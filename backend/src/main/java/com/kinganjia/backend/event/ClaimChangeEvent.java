@@ -0,0 +1,29 @@
+package com.kinganjia.backend.event;
+
+/**
+ * Published inside the writing transaction whenever a claim is created,
+ * updated or deleted, by every write path (single, bulk and cluster-wide).
+ * {@code before} is null for creations and {@code after} is null for deletions.
+ */
+public record ClaimChangeEvent(Type type, ClaimSnapshot before, ClaimSnapshot after) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static ClaimChangeEvent created(ClaimSnapshot after) {
+        return new ClaimChangeEvent(Type.CREATED, null, after);
+    }
+
+    public static ClaimChangeEvent updated(ClaimSnapshot before, ClaimSnapshot after) {
+        return new ClaimChangeEvent(Type.UPDATED, before, after);
+    }
+
+    public static ClaimChangeEvent deleted(ClaimSnapshot before) {
+        return new ClaimChangeEvent(Type.DELETED, before, null);
+    }
+
+    public Long claimId() {
+        return after != null ? after.id() : before.id();
+    }
+}
@@ -0,0 +1,25 @@
+package com.kinganjia.backend.event;
+
+import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.DetectionType;
+import com.kinganjia.backend.model.SeverityLevel;
+
+import java.time.LocalDateTime;
+
+/**
+ * The attributes of a claim that listeners aggregate on, copied at the moment
+ * of the change so they stay valid after the entity is modified or deleted.
+ */
+public record ClaimSnapshot(Long id, ClaimStatus status, SeverityLevel severity, DetectionType detectionType,
+                            LocalDateTime createdAt, Double latitude, Double longitude) {
+
+    public static ClaimSnapshot of(Claim claim) {
+        return new ClaimSnapshot(claim.getId(), claim.getStatus(), claim.getSeverity(), claim.getDetectionType(),
+                                 claim.getCreatedAt(), claim.getLatitude(), claim.getLongitude());
+    }
+
+    public ClaimSnapshot withStatus(ClaimStatus newStatus) {
+        return new ClaimSnapshot(id, newStatus, severity, detectionType, createdAt, latitude, longitude);
+    }
+}
@@ -0,0 +1,74 @@
+package com.kinganjia.backend.event;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Collects what a transaction records into one container per transaction,
+ * e.g. a map of deltas merged per key or a list of events in the order they
+ * happened, and hands it over once: to {@code beforeCommit} just before the
+ * transaction commits, on the transaction's own connection, so what it
+ * writes commits or rolls back together with the changes that produced it,
+ * and to {@code afterCommit} once the transaction has committed. Nothing is
+ * handed over on rollback. Outside a transaction every {@link #record} is
+ * handed to both straight away, in a container of its own.
+ */
+public final class CommitBuffer<C> {
+
+    private static final Consumer<Object> NOTHING = container -> {
+    };
+
+    private final Supplier<C> containers;
+    private final Consumer<? super C> beforeCommit;
+    private final Consumer<? super C> afterCommit;
+
+    public CommitBuffer(Supplier<C> containers, Consumer<? super C> beforeCommit) {
+        this(containers, beforeCommit, NOTHING);
+    }
+
+    public CommitBuffer(Supplier<C> containers, Consumer<? super C> beforeCommit, Consumer<? super C> afterCommit) {
+        this.containers = containers;
+        this.beforeCommit = beforeCommit;
+        this.afterCommit = afterCommit;
+    }
+
+    /**
+     * Runs {@code changes} against the container of the current transaction.
+     */
+    public void record(Consumer<C> changes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            C container = containers.get();
+            changes.accept(container);
+            beforeCommit.accept(container);
+            afterCommit.accept(container);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        C container = (C) TransactionSynchronizationManager.getResource(this);
+        if (container == null) {
+            C pending = containers.get();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    CommitBuffer.this.beforeCommit.accept(pending);
+                }
+
+                @Override
+                public void afterCommit() {
+                    CommitBuffer.this.afterCommit.accept(pending);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CommitBuffer.this);
+                }
+            });
+            container = pending;
+        }
+        changes.accept(container);
+    }
+}
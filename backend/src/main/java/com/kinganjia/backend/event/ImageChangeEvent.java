@@ -0,0 +1,25 @@
+package com.kinganjia.backend.event;
+
+/**
+ * Published inside the writing transaction whenever an image is created,
+ * updated or deleted, including the derivative worker filling in thumbnail
+ * and preview digests. {@code claimId} is the claim the image belongs to.
+ */
+public record ImageChangeEvent(Type type, Long imageId, Long claimId) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static ImageChangeEvent created(Long imageId, Long claimId) {
+        return new ImageChangeEvent(Type.CREATED, imageId, claimId);
+    }
+
+    public static ImageChangeEvent updated(Long imageId, Long claimId) {
+        return new ImageChangeEvent(Type.UPDATED, imageId, claimId);
+    }
+
+    public static ImageChangeEvent deleted(Long imageId, Long claimId) {
+        return new ImageChangeEvent(Type.DELETED, imageId, claimId);
+    }
+}
@@ -0,0 +1,11 @@
+package com.kinganjia.backend.exception;
+
+/**
+ * Thrown when a change-feed cursor reaches back past the retained log, so
+ * the client must reload in full (410)
+ */
+public class CursorExpiredException extends RuntimeException {
+    public CursorExpiredException(String message) {
+        super(message);
+    }
+}
@@ -3,8 +3,13 @@ package com.kinganjia.backend.exception;
 import com.kinganjia.backend.dto.response.ErrorResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -32,6 +37,13 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(LeaseConflictException.class)
+    public ResponseEntity<ErrorResponse> handleLeaseConflict(LeaseConflictException ex) {
+        log.warn("Lease conflict: {}", ex.getMessage());
+        ErrorResponse error = ErrorResponse.of(HttpStatus.CONFLICT.value(), ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(BusinessValidationException.class)
     public ResponseEntity<ErrorResponse> handleBusinessValidation(BusinessValidationException ex) {
         log.error("Business validation failed: {}", ex.getMessage());
@@ -39,6 +51,13 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(CursorExpiredException.class)
+    public ResponseEntity<ErrorResponse> handleCursorExpired(CursorExpiredException ex) {
+        log.warn("Cursor expired: {}", ex.getMessage());
+        ErrorResponse error = ErrorResponse.of(HttpStatus.GONE.value(), ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.GONE);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationErrors(MethodArgumentNotValidException ex) {
         Map<String, String> fieldErrors = new HashMap<>();
@@ -53,6 +72,51 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleConcurrentModification(ObjectOptimisticLockingFailureException ex) {
+        log.warn("Concurrent modification: {}", ex.getMessage());
+        ErrorResponse error = ErrorResponse.of(
+                HttpStatus.CONFLICT.value(),
+                "The resource was modified by another request. Reload it and try again."
+        );
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<ErrorResponse> handleDatabaseUnavailable(RuntimeException ex) {
+        log.warn("No database connection available: {}", ex.getMessage());
+        ErrorResponse error = ErrorResponse.of(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "The service is busy. Please try again shortly."
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                             .header(HttpHeaders.RETRY_AFTER, "1")
+                             .body(error);
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ErrorResponse> handleServiceBusy(ServiceBusyException ex) {
+        log.warn("Service busy: {}", ex.getMessage());
+        ErrorResponse error = ErrorResponse.of(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                             .header(HttpHeaders.RETRY_AFTER, "1")
+                             .body(error);
+    }
+
+    /**
+     * Event-stream clients cannot accept a JSON body, so a rejected stream
+     * request gets the status alone.
+     */
+    @ExceptionHandler(value = {BusinessValidationException.class, ServiceBusyException.class},
+                      produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Void> handleRejectedStream(RuntimeException ex) {
+        log.warn("Stream rejected: {}", ex.getMessage());
+        if (ex instanceof ServiceBusyException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        return ResponseEntity.badRequest().build();
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
         log.error("Unexpected error occurred", ex);
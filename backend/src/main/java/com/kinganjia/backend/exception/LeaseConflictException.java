@@ -0,0 +1,11 @@
+package com.kinganjia.backend.exception;
+
+/**
+ * Thrown when a moderator acts on a claim whose queue lease they no longer
+ * hold, because it expired or was never theirs (409)
+ */
+public class LeaseConflictException extends RuntimeException {
+    public LeaseConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.kinganjia.backend.exception;
+
+/**
+ * Thrown when a bounded resource is saturated and the request should be
+ * retried shortly (503)
+ */
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
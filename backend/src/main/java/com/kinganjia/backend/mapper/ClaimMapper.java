@@ -1,5 +1,6 @@
 package com.kinganjia.backend.mapper;
 
+import com.kinganjia.backend.dto.ClaimExportDTO;
 import com.kinganjia.backend.dto.ClaimRequestDTO;
 import com.kinganjia.backend.dto.ClaimResponseDTO;
 import com.kinganjia.backend.dto.UserRequestDTO;
@@ -8,12 +9,18 @@ import com.kinganjia.backend.model.User;
 import org.mapstruct.*;
 import org.mapstruct.factory.Mappers;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = ImageMapper.class)
 public interface ClaimMapper {
     ClaimMapper INSTANCE = Mappers.getMapper(ClaimMapper.class);
 
+    // Reading the id of a lazy cluster proxy does not initialize it
+    @Mapping(target = "clusterId", source = "cluster.id")
     ClaimResponseDTO toResponse(Claim claim);
 
+    // Reading the id of a lazy user proxy does not initialize it
+    @Mapping(target = "userId", source = "user.id")
+    ClaimExportDTO toExport(Claim claim);
+
     @Mapping(target = "user", source = "userId", qualifiedByName = "mapUserIdToUser")
     Claim  toEntity(ClaimRequestDTO claimRequestDTO);
 
@@ -0,0 +1,14 @@
+package com.kinganjia.backend.mapper;
+
+import com.kinganjia.backend.dto.ClaimSummaryDTO;
+import com.kinganjia.backend.dto.HazardClusterDTO;
+import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.model.HazardCluster;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface HazardClusterMapper {
+    HazardClusterDTO toResponse(HazardCluster cluster);
+
+    ClaimSummaryDTO toClaimSummary(Claim claim);
+}
@@ -1,17 +1,33 @@
 package com.kinganjia.backend.mapper;
 
+import com.kinganjia.backend.dto.ImageDerivativeDTO;
 import com.kinganjia.backend.dto.ImageRequestDTO;
 import com.kinganjia.backend.dto.ImageResponseDTO;
+import com.kinganjia.backend.dto.ImageSummaryDTO;
 import com.kinganjia.backend.model.Image;
+import com.kinganjia.backend.model.ImageDerivative;
+import com.kinganjia.backend.service.BlobStore;
 import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
+import org.mapstruct.Named;
 import org.mapstruct.NullValuePropertyMappingStrategy;
 import org.mapstruct.factory.Mappers;
 
 @Mapper(componentModel = "spring")
 public interface ImageMapper {
+    @Mapping(target = "thumbnailUrl", source = "thumbnailHash", qualifiedByName = "blobUrl")
+    @Mapping(target = "previewUrl", source = "previewHash", qualifiedByName = "blobUrl")
     ImageResponseDTO toResponse(Image image);
+
+    @Mapping(target = "thumbnailUrl", source = "thumbnailHash", qualifiedByName = "blobUrl")
+    @Mapping(target = "previewUrl", source = "previewHash", qualifiedByName = "blobUrl")
+    ImageSummaryDTO toSummary(Image image);
+
+    @Mapping(target = "url", source = "contentHash", qualifiedByName = "blobUrl")
+    ImageDerivativeDTO toDerivative(ImageDerivative derivative);
+
     Image toEntity(ImageRequestDTO dto);
 
     // For partial updates - ignore null values
@@ -21,4 +37,9 @@ public interface ImageMapper {
     // For full updates - update all values including nulls
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.SET_TO_NULL)
     void fullUpdateImageFromDto(ImageRequestDTO dto, @MappingTarget Image image);
-}
\ No newline at end of file
+
+    @Named("blobUrl")
+    default String blobUrl(String sha256) {
+        return BlobStore.urlOf(sha256);
+    }
+}
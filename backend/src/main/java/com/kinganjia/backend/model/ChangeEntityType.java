@@ -0,0 +1,5 @@
+package com.kinganjia.backend.model;
+
+public enum ChangeEntityType {
+    CLAIM, IMAGE
+}
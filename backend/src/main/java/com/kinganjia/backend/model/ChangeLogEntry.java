@@ -0,0 +1,50 @@
+package com.kinganjia.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One committed change to a claim or image. Entries are written just before
+ * the changing transaction commits, stamped with the database clock and the
+ * writing transaction's id, and pruned once older than the retention period.
+ */
+@Entity
+@Table(name = "change_log", indexes = {
+        @Index(name = "idx_change_log_changed_at", columnList = "changed_at"),
+        @Index(name = "idx_change_log_entity", columnList = "entity_type, entity_id"),
+        @Index(name = "idx_change_log_txid", columnList = "txid, seq")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+@EqualsAndHashCode
+public class ChangeLogEntry {
+
+    // Identity rather than a pooled sequence: ids handed out in blocks would not follow commit order
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 16)
+    private ChangeEntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ChangeOperation operation;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    // pg_current_xact_id() of the writing transaction; 0 on databases without one
+    @Column(name = "txid")
+    private Long txid;
+}
@@ -0,0 +1,9 @@
+package com.kinganjia.backend.model;
+
+/**
+ * What a change-feed client should do with an entity: replace its copy, or
+ * drop it ({@code DELETE} entries are the tombstones of hard deletes).
+ */
+public enum ChangeOperation {
+    UPSERT, DELETE
+}
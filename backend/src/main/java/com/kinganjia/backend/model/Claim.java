@@ -1,41 +1,59 @@
 package com.kinganjia.backend.model;
 
+import com.kinganjia.backend.util.GeoUtils;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Table(name = "claims",indexes = {
     @Index(name = "idx_user_id", columnList = "user_id"),
     @Index(name = "idx_status", columnList = "status"),
     @Index(name = "idx_created_at", columnList = "created_at"),
-    @Index(name = "idx_hash", columnList = "hash")
+    @Index(name = "idx_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_status_created_at", columnList = "status, created_at"),
+    @Index(name = "idx_hash", columnList = "hash"),
+    @Index(name = "idx_grid_cell", columnList = "grid_cell"),
+    @Index(name = "idx_latitude_longitude", columnList = "latitude, longitude"),
+    @Index(name = "idx_cluster_id", columnList = "cluster_id"),
+    @Index(name = "idx_leased_by", columnList = "leased_by")
 })
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@ToString(exclude = {"user","images"})
-@EqualsAndHashCode(exclude = {"user","images"})
-public class Claim {
+@ToString(exclude = {"user","images","cluster"})
+@EqualsAndHashCode(exclude = {"user","images","cluster"})
+public class Claim implements VersionedEntity {
     @OneToMany(mappedBy = "claim", cascade = {
             CascadeType.PERSIST,
             CascadeType.MERGE
     },
             orphanRemoval = false)
+    @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
     List<Image> images;
 
+    // Pooled sequence so Hibernate can assign ids up front and batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "claims_seq")
+    @SequenceGenerator(name = "claims_seq", sequenceName = "claims_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cluster_id")
+    private HazardCluster cluster;
+
     @Column(nullable = false)
     private String location;
 
@@ -45,6 +63,10 @@ public class Claim {
     @Column(nullable = false)
     private Double longitude;
 
+    // Derived from latitude/longitude, see GeoUtils
+    @Column(name = "grid_cell")
+    private Long gridCell;
+
     @Enumerated(EnumType.STRING)
     private ClaimStatus status;
 
@@ -69,14 +91,28 @@ public class Claim {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Moderation queue lease; set by bulk updates that leave the version alone, since a lease is not an edit
+    @Column(name = "leased_by")
+    private String leasedBy;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    // Bumped on every update, including the bulk JPQL updates; feeds the ETags of every view of this row
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        gridCell = GeoUtils.cellOf(latitude, longitude);
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        gridCell = GeoUtils.cellOf(latitude, longitude);
     }
 }
 
@@ -0,0 +1,44 @@
+package com.kinganjia.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * One dashboard counter: the number of claims in {@code bucket} of
+ * {@code dimension}, e.g. STATUS/PENDING or DAY/2025-01-31.
+ */
+@Entity
+@Table(name = "claim_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+@EqualsAndHashCode
+public class ClaimStat {
+
+    @Embeddable
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    @ToString
+    public static class Key implements Serializable {
+        @Enumerated(EnumType.STRING)
+        @Column(length = 32)
+        private StatDimension dimension;
+
+        @Column(length = 32)
+        private String bucket;
+    }
+
+    @EmbeddedId
+    private Key key;
+
+    @Column(name = "claim_count", nullable = false)
+    private Long claimCount;
+}
@@ -0,0 +1,76 @@
+package com.kinganjia.backend.model;
+
+import com.kinganjia.backend.util.GeoUtils;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One physical road hazard, grouping every claim reported within a few metres
+ * of it inside the clustering time window.
+ */
+@Entity
+@Table(name = "hazard_clusters", indexes = {
+        @Index(name = "idx_cluster_grid_cell_last_reported", columnList = "grid_cell, last_reported_at"),
+        @Index(name = "idx_cluster_status_last_reported", columnList = "status, last_reported_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString(exclude = {"claims"})
+@EqualsAndHashCode(exclude = {"claims"})
+public class HazardCluster {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "centroid_latitude", nullable = false)
+    private Double centroidLatitude;
+
+    @Column(name = "centroid_longitude", nullable = false)
+    private Double centroidLongitude;
+
+    @Column(name = "grid_cell")
+    private Long gridCell;
+
+    @Column(name = "member_count", nullable = false)
+    private Integer memberCount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "max_severity")
+    private SeverityLevel maxSeverity;
+
+    @Enumerated(EnumType.STRING)
+    private ClaimStatus status;
+
+    @Column(name = "first_reported_at")
+    private LocalDateTime firstReportedAt;
+
+    @Column(name = "last_reported_at")
+    private LocalDateTime lastReportedAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @OneToMany(mappedBy = "cluster")
+    private List<Claim> claims;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        gridCell = GeoUtils.cellOf(centroidLatitude, centroidLongitude);
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+        gridCell = GeoUtils.cellOf(centroidLatitude, centroidLongitude);
+    }
+}
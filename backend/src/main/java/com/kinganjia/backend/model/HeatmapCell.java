@@ -0,0 +1,66 @@
+package com.kinganjia.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Claim counts for one Web Mercator grid cell at one level, see
+ * {@code TileMath}. Per-severity counts are kept (rather than just the
+ * maximum) so the highest severity stays correct when claims are removed.
+ */
+@Entity
+@Table(name = "heatmap_cells")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+@EqualsAndHashCode
+public class HeatmapCell {
+
+    @Embeddable
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    @ToString
+    public static class Key implements Serializable {
+        @Column(name = "cell_level")
+        private Integer level;
+
+        @Column(name = "cell_x")
+        private Integer x;
+
+        @Column(name = "cell_y")
+        private Integer y;
+    }
+
+    @EmbeddedId
+    private Key key;
+
+    @Column(name = "claim_count", nullable = false)
+    private Long claimCount;
+
+    @Column(name = "low_count", nullable = false)
+    private Long lowCount;
+
+    @Column(name = "medium_count", nullable = false)
+    private Long mediumCount;
+
+    @Column(name = "high_count", nullable = false)
+    private Long highCount;
+
+    public SeverityLevel getMaxSeverity() {
+        if (highCount > 0) {
+            return SeverityLevel.HIGH;
+        }
+        if (mediumCount > 0) {
+            return SeverityLevel.MEDIUM;
+        }
+        return lowCount > 0 ? SeverityLevel.LOW : null;
+    }
+}
@@ -2,14 +2,19 @@ package com.kinganjia.backend.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Table(name = "images" ,indexes = {
         @Index(name = "idx_claim_id",columnList = "claim_id"),
         @Index(name="idx_hash",columnList = "hash"),
-        @Index(name="idx_created_at",columnList = "created_at")
+        @Index(name="idx_created_at",columnList = "created_at"),
+        @Index(name="idx_content_hash",columnList = "content_hash")
 })
 @Getter
 @Setter
@@ -18,9 +23,11 @@ import java.time.LocalDateTime;
 @Builder
 @ToString(exclude = {"claim"})
 @EqualsAndHashCode(exclude = {"claim"})
-public class Image {
+public class Image implements VersionedEntity {
+    // Pooled sequence so Hibernate can assign ids up front and batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "images_seq")
+    @SequenceGenerator(name = "images_seq", sequenceName = "images_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -31,6 +38,23 @@ public class Image {
 
     private LocalDateTime timestamp;
 
+    // SHA-256 of the uploaded bytes in the blob store; null for images only referenced by url
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
+    // Blob digests of the standard derivatives, filled in by the derivative worker
+    @Column(name = "thumbnail_hash", length = 64)
+    private String thumbnailHash;
+
+    @Column(name = "preview_hash", length = 64)
+    private String previewHash;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "claim_id",nullable = false)
     private Claim claim;
@@ -41,6 +65,11 @@ public class Image {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Bumped on every update, including the bulk JPQL updates; feeds the ETags of every view of this row
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
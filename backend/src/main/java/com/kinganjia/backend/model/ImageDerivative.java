@@ -0,0 +1,80 @@
+package com.kinganjia.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * A resized rendition of an uploaded image. Rows double as the persistent job
+ * queue: {@code PENDING} rows are picked up by the derivative worker, and
+ * {@code RUNNING} rows whose worker stopped refreshing {@code updatedAt} are
+ * put back to {@code PENDING}.
+ */
+@Entity
+@Table(name = "image_derivatives",
+       uniqueConstraints = @UniqueConstraint(name = "uk_derivative_image_width", columnNames = {"image_id", "width"}),
+       indexes = {
+               @Index(name = "idx_derivative_status_id", columnList = "status, id"),
+               @Index(name = "idx_derivative_content_hash", columnList = "content_hash")
+       })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString(exclude = {"image"})
+@EqualsAndHashCode(exclude = {"image"})
+public class ImageDerivative {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Rows go with their image; the database cascades so image deletes need not load them
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "image_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Image image;
+
+    @Column(nullable = false)
+    private Integer width;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DerivativeStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
+    private String error;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (attempts == null) {
+            attempts = 0;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,5 @@
+package com.kinganjia.backend.model;
+
+public enum StatDimension {
+    TOTAL, STATUS, SEVERITY, DETECTION_TYPE, DAY
+}
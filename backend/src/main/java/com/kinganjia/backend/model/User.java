@@ -2,11 +2,15 @@ package com.kinganjia.backend.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Table(name = "users")
 @NoArgsConstructor
 @AllArgsConstructor
@@ -15,7 +19,7 @@ import java.util.List;
 @Setter
 @ToString(exclude = {"claims"}) // Exclude relationships
 @EqualsAndHashCode(exclude = {"claims"}) // Exclude relationships
-public class User {
+public class User implements VersionedEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -38,6 +42,11 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Bumped on every update, including the bulk JPQL updates; feeds the ETags of every view of this row
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
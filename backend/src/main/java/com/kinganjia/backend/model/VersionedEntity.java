@@ -0,0 +1,17 @@
+package com.kinganjia.backend.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * An entity with an optimistic-lock version and audit timestamps, enough to
+ * derive HTTP validators for any representation built from it.
+ */
+public interface VersionedEntity {
+    Long getId();
+
+    long getVersion();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,40 @@
+package com.kinganjia.backend.repository;
+
+import com.kinganjia.backend.exception.BusinessValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the change log: every entry up to {@code (txid, seq)}, in
+ * transaction id then sequence order, has been delivered, and no undelivered
+ * entry is older than {@code horizon}, which tells whether pruning may
+ * already have removed some of them. Clients only ever see the encoded,
+ * opaque form.
+ */
+public record ChangeCursor(LocalDateTime horizon, long txid, long seq) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = horizon.toString() + SEPARATOR + txid + SEPARATOR + seq;
+        return Base64.getUrlEncoder()
+                     .withoutPadding()
+                     .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ChangeCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 3) {
+                throw new BusinessValidationException("Invalid cursor");
+            }
+            return new ChangeCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessValidationException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.kinganjia.backend.repository;
+
+import com.kinganjia.backend.model.ChangeEntityType;
+import com.kinganjia.backend.model.ChangeLogEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+    @Query("""
+            select e from ChangeLogEntry e where e.txid > :txid or (e.txid = :txid and e.seq > :seq)
+            order by e.txid, e.seq
+            """)
+    List<ChangeLogEntry> findAfter(@Param("txid") long txid, @Param("seq") long seq, Limit limit);
+
+    /**
+     * Entries after the position whose writing transactions have all ended,
+     * i.e. are older than every transaction still running. PostgreSQL only.
+     */
+    @Query(value = """
+            select * from change_log
+            where (txid, seq) > (:txid, :seq) and txid < pg_snapshot_xmin(pg_current_snapshot())::text::bigint
+            order by txid, seq
+            limit :limit
+            """, nativeQuery = true)
+    List<ChangeLogEntry> findEndedAfter(@Param("txid") long txid, @Param("seq") long seq, @Param("limit") int limit);
+
+    @Query("select coalesce(max(e.seq), 0) from ChangeLogEntry e where e.changedAt <= :settledAt")
+    long findHead(@Param("settledAt") LocalDateTime settledAt);
+
+    /** The latest sequence number logged for anything; grows with every claim and image change. */
+    @Query("select coalesce(max(e.seq), 0) from ChangeLogEntry e")
+    long findLatestSeq();
+
+    /** The latest sequence number logged for one entity; a claim's also grows with changes to its images. */
+    @Query("select coalesce(max(e.seq), 0) from ChangeLogEntry e where e.entityType = :type and e.entityId = :id")
+    long findLatestSeq(@Param("type") ChangeEntityType type, @Param("id") Long id);
+
+    @Modifying
+    @Query("delete from ChangeLogEntry e where e.changedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
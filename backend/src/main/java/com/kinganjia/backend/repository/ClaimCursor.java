@@ -0,0 +1,38 @@
+package com.kinganjia.backend.repository;
+
+import com.kinganjia.backend.exception.BusinessValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in the {@code (created_at DESC, id DESC)} claim ordering.
+ * Clients only ever see the encoded, opaque form.
+ */
+public record ClaimCursor(LocalDateTime createdAt, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder()
+                     .withoutPadding()
+                     .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ClaimCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new BusinessValidationException("Invalid cursor");
+            }
+            return new ClaimCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                                   Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessValidationException("Invalid cursor");
+        }
+    }
+}
@@ -1,11 +1,242 @@
 package com.kinganjia.backend.repository;
 
+import com.kinganjia.backend.event.ClaimSnapshot;
 import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.SeverityLevel;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface ClaimRepository extends JpaRepository<Claim, Long> {
+public interface ClaimRepository extends JpaRepository<Claim, Long>, JpaSpecificationExecutor<Claim> {
+
+    interface BucketCount {
+        Object getBucket();
+
+        long getTotal();
+    }
+
+    interface LocationView {
+        Long getId();
+
+        Double getLatitude();
+
+        Double getLongitude();
+
+        SeverityLevel getSeverity();
+    }
+
+    // List fetch plans join the to-one user; the images collection is batch-loaded
+    // (hibernate.default_batch_fetch_size) so joins never multiply rows or break limits.
+    @Override
+    @EntityGraph(attributePaths = "user")
+    List<Claim> findAll();
+
+    @EntityGraph(attributePaths = "user")
     Optional<List<Claim>> findByUserId(Long userId);
+
+    // Claim detail and its validators are what clients poll, so they are served from the query cache
+    @EntityGraph(attributePaths = {"user", "images"})
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    Optional<Claim> findDetailedById(Long id);
+
+    @EntityGraph(attributePaths = "user")
+    List<Claim> findByIdIn(Collection<Long> ids);
+
+    List<Claim> findTop500ByGridCellIsNull();
+
+    @EntityGraph(attributePaths = "user")
+    List<Claim> findByClusterIdOrderByCreatedAtDesc(Long clusterId);
+
+    List<Claim> findTop500ByClusterIsNullOrderByCreatedAtAscIdAsc();
+
+    @Query("select distinct c.severity from Claim c where c.cluster.id = :clusterId and c.severity is not null")
+    List<SeverityLevel> findSeveritiesByClusterId(@Param("clusterId") Long clusterId);
+
+    @Modifying
+    @Query("""
+            update Claim c set c.status = :status, c.confirmationTime = :confirmationTime, c.updatedAt = :now,
+                c.version = c.version + 1
+            where c.cluster.id = :clusterId
+            """)
+    int updateStatusByClusterId(@Param("clusterId") Long clusterId,
+                                @Param("status") ClaimStatus status,
+                                @Param("confirmationTime") LocalDateTime confirmationTime,
+                                @Param("now") LocalDateTime now);
+
+    /**
+     * Snapshots of a cluster's claims, locked until the transaction ends so
+     * they stay the state a following bulk update replaces. Locked in id
+     * order, so bulk updates over overlapping claims queue up rather than
+     * deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.kinganjia.backend.event.ClaimSnapshot(c.id, c.status, c.severity, c.detectionType,"
+            + " c.createdAt, c.latitude, c.longitude) from Claim c where c.cluster.id = :clusterId order by c.id")
+    List<ClaimSnapshot> findSnapshotsByClusterId(@Param("clusterId") Long clusterId);
+
+    /** As {@link #findSnapshotsByClusterId}, for the given claims. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new com.kinganjia.backend.event.ClaimSnapshot(c.id, c.status, c.severity, c.detectionType,"
+            + " c.createdAt, c.latitude, c.longitude) from Claim c where c.id in :ids order by c.id")
+    List<ClaimSnapshot> findSnapshotsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("""
+            update Claim c set c.status = :status, c.confirmationTime = :confirmationTime, c.updatedAt = :now,
+                c.version = c.version + 1
+            where c.id in :ids and c.status <> :status
+            """)
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids,
+                           @Param("status") ClaimStatus status,
+                           @Param("confirmationTime") LocalDateTime confirmationTime,
+                           @Param("now") LocalDateTime now);
+
+    /**
+     * Pending claims without a live lease, most severe and oldest first. Rows
+     * another moderator is leasing right now are skipped rather than waited on
+     * (lock timeout -2 is SKIP LOCKED).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            select c from Claim c
+            where c.status = com.kinganjia.backend.model.ClaimStatus.PENDING
+                and (c.leaseExpiresAt is null or c.leaseExpiresAt <= :now)
+            order by case c.severity
+                    when com.kinganjia.backend.model.SeverityLevel.HIGH then 0
+                    when com.kinganjia.backend.model.SeverityLevel.MEDIUM then 1
+                    when com.kinganjia.backend.model.SeverityLevel.LOW then 2
+                    else 3 end,
+                c.createdAt, c.id
+            """)
+    List<Claim> findLeasable(@Param("now") LocalDateTime now, Limit limit);
+
+    /**
+     * Takes the lease on those of {@code ids} that are still pending and not
+     * leased, in case a database without SKIP LOCKED handed them out twice.
+     * Clears the persistence context so the claims are reloaded with their lease.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update Claim c set c.leasedBy = :moderator, c.leaseExpiresAt = :until
+            where c.id in :ids and c.status = com.kinganjia.backend.model.ClaimStatus.PENDING
+                and (c.leaseExpiresAt is null or c.leaseExpiresAt <= :now)
+            """)
+    int lease(@Param("ids") Collection<Long> ids,
+              @Param("moderator") String moderator,
+              @Param("now") LocalDateTime now,
+              @Param("until") LocalDateTime until);
+
+    @Query("""
+            select c.id from Claim c
+            where c.leasedBy = :moderator and c.leaseExpiresAt > :now
+                and c.status = com.kinganjia.backend.model.ClaimStatus.PENDING
+            """)
+    List<Long> findLeasedIds(@Param("moderator") String moderator, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("""
+            update Claim c set c.leaseExpiresAt = :until
+            where c.id in :ids and c.leasedBy = :moderator and c.leaseExpiresAt > :now
+                and c.status = com.kinganjia.backend.model.ClaimStatus.PENDING
+            """)
+    int extendLeases(@Param("ids") Collection<Long> ids,
+                     @Param("moderator") String moderator,
+                     @Param("now") LocalDateTime now,
+                     @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("""
+            update Claim c set c.leasedBy = null, c.leaseExpiresAt = null
+            where c.id = :id and c.leasedBy = :moderator and c.leaseExpiresAt > :now
+            """)
+    int releaseLease(@Param("id") Long id,
+                     @Param("moderator") String moderator,
+                     @Param("now") LocalDateTime now);
+
+    /**
+     * Applies a moderator's decision only if they still hold a live lease and
+     * the claim is still at the version they reviewed.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update Claim c set c.status = :status, c.confirmationTime = :confirmationTime, c.updatedAt = :now,
+                c.version = c.version + 1, c.leasedBy = null, c.leaseExpiresAt = null
+            where c.id = :id and c.version = :version and c.leasedBy = :moderator and c.leaseExpiresAt > :now
+            """)
+    int decideLeased(@Param("id") Long id,
+                     @Param("version") long version,
+                     @Param("moderator") String moderator,
+                     @Param("status") ClaimStatus status,
+                     @Param("confirmationTime") LocalDateTime confirmationTime,
+                     @Param("now") LocalDateTime now);
+
+    @Query("select c.status as bucket, count(c) as total from Claim c group by c.status")
+    List<BucketCount> countByStatus();
+
+    @Query("select c.severity as bucket, count(c) as total from Claim c group by c.severity")
+    List<BucketCount> countBySeverity();
+
+    @Query("select c.detectionType as bucket, count(c) as total from Claim c group by c.detectionType")
+    List<BucketCount> countByDetectionType();
+
+    @Query("select cast(c.createdAt as LocalDate) as bucket, count(c) as total from Claim c"
+            + " group by cast(c.createdAt as LocalDate)")
+    List<BucketCount> countByDay();
+
+    @Query("select c.id as id, c.latitude as latitude, c.longitude as longitude, c.severity as severity"
+            + " from Claim c where c.id > :afterId order by c.id")
+    List<LocationView> findLocationsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("""
+            select count(c) as total, coalesce(sum(c.version), 0) as versionSum, coalesce(sum(c.id), 0) as idSum,
+                   max(c.createdAt) as lastCreated, max(c.updatedAt) as lastUpdated
+            from Claim c
+            """)
+    VersionSummary summarizeAll();
+
+    @Query("""
+            select count(c) as total, coalesce(sum(c.version), 0) as versionSum, coalesce(sum(c.id), 0) as idSum,
+                   max(c.createdAt) as lastCreated, max(c.updatedAt) as lastUpdated
+            from Claim c where c.id = :id
+            """)
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    VersionSummary summarizeById(@Param("id") Long id);
+
+    @Query("""
+            select count(c) as total, coalesce(sum(c.version), 0) as versionSum, coalesce(sum(c.id), 0) as idSum,
+                   max(c.createdAt) as lastCreated, max(c.updatedAt) as lastUpdated
+            from Claim c where c.user.id = :userId
+            """)
+    VersionSummary summarizeByUserId(@Param("userId") Long userId);
+
+    /** The claim behind an image, as embedded in the image's representation. */
+    @Query("""
+            select count(c) as total, coalesce(sum(c.version), 0) as versionSum, coalesce(sum(c.id), 0) as idSum,
+                   max(c.createdAt) as lastCreated, max(c.updatedAt) as lastUpdated
+            from Image i join i.claim c where i.id = :imageId
+            """)
+    VersionSummary summarizeByImageId(@Param("imageId") Long imageId);
+
+    /** The claim embedded in its image list, which is absent while the claim has no images. */
+    @Query("""
+            select count(c) as total, coalesce(sum(c.version), 0) as versionSum, coalesce(sum(c.id), 0) as idSum,
+                   max(c.createdAt) as lastCreated, max(c.updatedAt) as lastUpdated
+            from Claim c where c.id = :id and exists (select i.id from Image i where i.claim = c)
+            """)
+    VersionSummary summarizeByIdWithImages(@Param("id") Long id);
 }
@@ -0,0 +1,82 @@
+package com.kinganjia.backend.repository;
+
+import com.kinganjia.backend.dto.ClaimFilterDTO;
+import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.util.GeoUtils;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ClaimSpecifications {
+
+    /**
+     * Newest first; {@code id} breaks ties so the ordering is total and the keyset is stable.
+     */
+    public static final Sort KEYSET_SORT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    private ClaimSpecifications() {
+    }
+
+    public static Specification<Claim> matching(ClaimFilterDTO filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter == null) {
+                return cb.and();
+            }
+            if (filter.getStatus() != null) {
+                predicates.add(cb.equal(root.get("status"), filter.getStatus()));
+            }
+            if (filter.getSeverity() != null) {
+                predicates.add(cb.equal(root.get("severity"), filter.getSeverity()));
+            }
+            if (filter.getDetectionType() != null) {
+                predicates.add(cb.equal(root.get("detectionType"), filter.getDetectionType()));
+            }
+            if (filter.getFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), filter.getFrom()));
+            }
+            if (filter.getTo() != null) {
+                predicates.add(cb.lessThan(root.get("createdAt"), filter.getTo()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Rows strictly after {@code cursor} in {@link #KEYSET_SORT} order.
+     */
+    public static Specification<Claim> after(ClaimCursor cursor) {
+        return (root, query, cb) -> {
+            if (cursor == null) {
+                return cb.and();
+            }
+            return cb.or(
+                    cb.lessThan(root.get("createdAt"), cursor.createdAt()),
+                    cb.and(cb.equal(root.get("createdAt"), cursor.createdAt()),
+                           cb.lessThan(root.get("id"), cursor.id())));
+        };
+    }
+
+    /**
+     * Claims inside {@code box}. The grid-cell ranges let the planner use the
+     * {@code grid_cell} index; the coordinate bounds trim the partial edge cells.
+     */
+    public static Specification<Claim> withinBox(GeoUtils.BoundingBox box) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            List<GeoUtils.CellRange> ranges = GeoUtils.cellRanges(box);
+            if (!ranges.isEmpty()) {
+                predicates.add(cb.or(ranges.stream()
+                                           .map(range -> cb.between(root.<Long>get("gridCell"), range.from(),
+                                                                    range.to()))
+                                           .toArray(Predicate[]::new)));
+            }
+            predicates.add(cb.between(root.get("latitude"), box.minLatitude(), box.maxLatitude()));
+            predicates.add(cb.between(root.get("longitude"), box.minLongitude(), box.maxLongitude()));
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
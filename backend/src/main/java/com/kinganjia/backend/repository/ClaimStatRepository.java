@@ -0,0 +1,18 @@
+package com.kinganjia.backend.repository;
+
+import com.kinganjia.backend.model.ClaimStat;
+import com.kinganjia.backend.model.StatDimension;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ClaimStatRepository extends JpaRepository<ClaimStat, ClaimStat.Key> {
+
+    /**
+     * Every counter except day buckets before {@code fromDay} (ISO dates sort as strings).
+     */
+    @Query("select s from ClaimStat s where s.key.dimension <> :day or s.key.bucket >= :fromDay")
+    List<ClaimStat> findForDashboard(@Param("day") StatDimension day, @Param("fromDay") String fromDay);
+}
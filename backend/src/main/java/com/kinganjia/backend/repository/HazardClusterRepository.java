@@ -0,0 +1,41 @@
+package com.kinganjia.backend.repository;
+
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.HazardCluster;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface HazardClusterRepository extends JpaRepository<HazardCluster, Long> {
+
+    /**
+     * Open clusters near a new report, locked so that concurrent reports of the
+     * same hazard update the centroid one after another.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select h from HazardCluster h where h.gridCell in :cells and h.lastReportedAt >= :since")
+    List<HazardCluster> findOpenForUpdate(@Param("cells") Collection<Long> cells,
+                                          @Param("since") LocalDateTime since);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select h from HazardCluster h where h.id = :id")
+    Optional<HazardCluster> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("""
+            select h from HazardCluster h
+            where (:status is null or h.status = :status)
+              and h.memberCount >= :minMembers
+            order by h.lastReportedAt desc, h.id desc
+            """)
+    List<HazardCluster> search(@Param("status") ClaimStatus status,
+                               @Param("minMembers") int minMembers,
+                               Pageable pageable);
+}
@@ -0,0 +1,39 @@
+package com.kinganjia.backend.repository;
+
+import com.kinganjia.backend.model.HeatmapCell;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface HeatmapCellRepository extends JpaRepository<HeatmapCell, HeatmapCell.Key> {
+
+    interface LevelTotals {
+        long getClaims();
+
+        long getLow();
+
+        long getMedium();
+
+        long getHigh();
+    }
+
+    @Query("""
+            select c from HeatmapCell c
+            where c.key.level = :level
+              and c.key.x between :minX and :maxX and c.key.y between :minY and :maxY
+              and c.claimCount > 0
+            order by c.key.y, c.key.x
+            """)
+    List<HeatmapCell> findInRange(@Param("level") int level,
+                                  @Param("minX") int minX, @Param("maxX") int maxX,
+                                  @Param("minY") int minY, @Param("maxY") int maxY);
+
+    @Query("""
+            select coalesce(sum(c.claimCount), 0) as claims, coalesce(sum(c.lowCount), 0) as low,
+                   coalesce(sum(c.mediumCount), 0) as medium, coalesce(sum(c.highCount), 0) as high
+            from HeatmapCell c where c.key.level = :level
+            """)
+    LevelTotals sumCounts(@Param("level") int level);
+}
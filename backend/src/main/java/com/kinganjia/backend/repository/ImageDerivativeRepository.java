@@ -0,0 +1,54 @@
+package com.kinganjia.backend.repository;
+
+import com.kinganjia.backend.model.DerivativeStatus;
+import com.kinganjia.backend.model.ImageDerivative;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ImageDerivativeRepository extends JpaRepository<ImageDerivative, Long> {
+
+    interface DerivativeContentView {
+        String getContentType();
+    }
+
+    List<ImageDerivative> findByImageIdOrderByWidthAsc(Long imageId);
+
+    Optional<ImageDerivative> findByImageIdAndWidth(Long imageId, Integer width);
+
+    Optional<DerivativeContentView> findFirstByContentHash(String contentHash);
+
+    /**
+     * Oldest pending jobs with their source image. Rows another worker has
+     * locked are skipped rather than waited on (lock timeout -2 is SKIP LOCKED).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select d from ImageDerivative d join fetch d.image where d.status = :status order by d.id")
+    List<ImageDerivative> findForProcessing(@Param("status") DerivativeStatus status, Limit limit);
+
+    /** Moves jobs that have been in {@code from} since before {@code staleBefore} to {@code to}. */
+    @Modifying
+    @Query("""
+            update ImageDerivative d set d.status = :to, d.updatedAt = :now
+            where d.status = :from and d.updatedAt < :staleBefore
+            """)
+    int updateStaleStatus(@Param("from") DerivativeStatus from, @Param("to") DerivativeStatus to,
+                          @Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update ImageDerivative d set d.updatedAt = :now where d.id in :ids and d.status = :status")
+    int touch(@Param("ids") Collection<Long> ids, @Param("status") DerivativeStatus status,
+              @Param("now") LocalDateTime now);
+}
@@ -1,11 +1,98 @@
 package com.kinganjia.backend.repository;
 
 import com.kinganjia.backend.model.Image;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ImageRepository extends JpaRepository<Image, Long> {
+
+    interface ImageHashView {
+        Long getId();
+
+        String getHash();
+    }
+
+    interface ImageContentView {
+        String getContentType();
+    }
+
+    @Override
+    @EntityGraph(attributePaths = "claim")
+    List<Image> findAll();
+
+    @EntityGraph(attributePaths = "claim")
     Optional<List<Image>> findByClaimId(Long claimId);
+
+    @EntityGraph(attributePaths = "claim")
+    Optional<Image> findDetailedById(Long id);
+
+    @EntityGraph(attributePaths = "claim")
+    List<Image> findByIdIn(Collection<Long> ids);
+
+    @Query("select i.claim.id from Image i where i.id = :id")
+    Optional<Long> findClaimIdById(@Param("id") Long id);
+
+    List<ImageHashView> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<ImageHashView> findHashesByIdIn(Collection<Long> ids);
+
+    Optional<ImageContentView> findFirstByContentHash(String contentHash);
+
+    /**
+     * Uploaded images that have never been queued for derivatives, e.g. those
+     * stored before the derivative worker existed.
+     */
+    @Query("""
+            select i from Image i
+            where i.contentHash is not null and i.id > :afterId
+              and not exists (select d.id from ImageDerivative d where d.image = i)
+            order by i.id
+            """)
+    List<Image> findWithoutDerivatives(@Param("afterId") Long afterId, Limit limit);
+
+    @Modifying
+    @Query("""
+            update Image i set i.thumbnailHash = :hash, i.updatedAt = local datetime, i.version = i.version + 1
+            where i.id = :id
+            """)
+    int updateThumbnailHash(@Param("id") Long id, @Param("hash") String hash);
+
+    @Modifying
+    @Query("""
+            update Image i set i.previewHash = :hash, i.updatedAt = local datetime, i.version = i.version + 1
+            where i.id = :id
+            """)
+    int updatePreviewHash(@Param("id") Long id, @Param("hash") String hash);
+
+    @Query("""
+            select count(i) as total, coalesce(sum(i.version), 0) as versionSum, coalesce(sum(i.id), 0) as idSum,
+                   max(i.createdAt) as lastCreated, max(i.updatedAt) as lastUpdated
+            from Image i
+            """)
+    VersionSummary summarizeAll();
+
+    @Query("""
+            select count(i) as total, coalesce(sum(i.version), 0) as versionSum, coalesce(sum(i.id), 0) as idSum,
+                   max(i.createdAt) as lastCreated, max(i.updatedAt) as lastUpdated
+            from Image i where i.id = :id
+            """)
+    VersionSummary summarizeById(@Param("id") Long id);
+
+    @Query("""
+            select count(i) as total, coalesce(sum(i.version), 0) as versionSum, coalesce(sum(i.id), 0) as idSum,
+                   max(i.createdAt) as lastCreated, max(i.updatedAt) as lastUpdated
+            from Image i where i.claim.id = :claimId
+            """)
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    VersionSummary summarizeByClaimId(@Param("claimId") Long claimId);
 }
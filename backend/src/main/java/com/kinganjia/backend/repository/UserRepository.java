@@ -1,12 +1,53 @@
 package com.kinganjia.backend.repository;
 
 import com.kinganjia.backend.model.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    @Override
+    @EntityGraph(attributePaths = "claims")
+    List<User> findAll();
+
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<User> findByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    @Query("select u.id from User u where u.id in :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+            select count(u) as total, coalesce(sum(u.version), 0) as versionSum, coalesce(sum(u.id), 0) as idSum,
+                   max(u.createdAt) as lastCreated, max(u.updatedAt) as lastUpdated
+            from User u where u.id = :id
+            """)
+    VersionSummary summarizeById(@Param("id") Long id);
+
+    /** The owner of a claim, as embedded in the claim's representation. */
+    @Query("""
+            select count(u) as total, coalesce(sum(u.version), 0) as versionSum, coalesce(sum(u.id), 0) as idSum,
+                   max(u.createdAt) as lastCreated, max(u.updatedAt) as lastUpdated
+            from Claim c join c.user u where c.id = :claimId
+            """)
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    VersionSummary summarizeByClaimId(@Param("claimId") Long claimId);
+
+    /** Every user that owns at least one claim, i.e. those embedded in the claim list. */
+    @Query("""
+            select count(u) as total, coalesce(sum(u.version), 0) as versionSum, coalesce(sum(u.id), 0) as idSum,
+                   max(u.createdAt) as lastCreated, max(u.updatedAt) as lastUpdated
+            from User u where exists (select c.id from Claim c where c.user = u)
+            """)
+    VersionSummary summarizeClaimants();
 }
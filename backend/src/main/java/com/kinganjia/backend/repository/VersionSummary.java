@@ -0,0 +1,21 @@
+package com.kinganjia.backend.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Aggregate over a set of versioned rows: how many there are, the sums of
+ * their versions and ids, and their latest timestamps. Any insert, delete or
+ * versioned update changes at least one of the figures, so they identify the
+ * state of the set without loading it.
+ */
+public interface VersionSummary {
+    long getTotal();
+
+    long getVersionSum();
+
+    long getIdSum();
+
+    LocalDateTime getLastCreated();
+
+    LocalDateTime getLastUpdated();
+}
@@ -0,0 +1,103 @@
+package com.kinganjia.backend.security;
+
+import com.kinganjia.backend.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashing and verification on a fixed pool of threads with a
+ * bounded queue, so a burst of logins uses at most that many CPUs and the
+ * rest of the API keeps its request threads. Callers wait for their turn;
+ * once the queue is full they are turned away with a 503 straight away.
+ * Queue depth is exported as {@code security.password.queue}, time spent
+ * waiting as {@code security.password.wait} and turned-away calls as
+ * {@code security.password.rejected}.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                               new ArrayBlockingQueue<>(queueCapacity),
+                                               runnable -> {
+                                                   Thread thread = new Thread(runnable, "password-hash-"
+                                                           + threadNumber.incrementAndGet());
+                                                   thread.setDaemon(true);
+                                                   return thread;
+                                               });
+        this.waitTimer = Timer.builder("security.password.wait")
+                              .description("Time password operations wait for a hashing thread")
+                              .register(meterRegistry);
+        this.rejected = Counter.builder("security.password.rejected")
+                               .description("Password operations turned away because the hashing queue was full")
+                               .register(meterRegistry);
+        Gauge.builder("security.password.queue", executor, pool -> pool.getQueue().size())
+             .description("Password operations waiting for a hashing thread")
+             .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> operation) {
+        long queuedAt = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return operation.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceBusyException("Too many sign-in requests, please retry shortly");
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
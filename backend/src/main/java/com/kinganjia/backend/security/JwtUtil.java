@@ -1,12 +1,17 @@
 package com.kinganjia.backend.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.time.Duration;
 import java.util.Date;
 
 @Component
@@ -19,12 +24,60 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long jwtExpiration;
 
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${jwt.cache.ttl:PT5M}")
+    private Duration cacheTtl;
+
+    private SecretKey key;
+    private JwtParser parser;
+
+    /**
+     * Tokens whose signature and expiry were already checked, mapped to their
+     * subject. An entry never outlives the token itself.
+     */
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    private record VerifiedToken(String email, long expiresAtMillis) {
+    }
+
+    @PostConstruct
+    void init() {
+        key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parser()
+                     .verifyWith(key)
+                     .build();
+        verifiedTokens = Caffeine.newBuilder()
+                                 .maximumSize(cacheMaxSize)
+                                 .expireAfter(new Expiry<String, VerifiedToken>() {
+                                     @Override
+                                     public long expireAfterCreate(String token, VerifiedToken verified,
+                                                                   long currentTime) {
+                                         long untilExpiry = verified.expiresAtMillis() - System.currentTimeMillis();
+                                         return Math.max(0, Math.min(cacheTtl.toNanos(),
+                                                                     Duration.ofMillis(untilExpiry).toNanos()));
+                                     }
+
+                                     @Override
+                                     public long expireAfterUpdate(String token, VerifiedToken verified,
+                                                                   long currentTime, long currentDuration) {
+                                         return currentDuration;
+                                     }
+
+                                     @Override
+                                     public long expireAfterRead(String token, VerifiedToken verified,
+                                                                 long currentTime, long currentDuration) {
+                                         return currentDuration;
+                                     }
+                                 })
+                                 .build();
+    }
+
     public String generateToken(String email) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-
         String token = Jwts.builder()
                            .subject(email)
                            .issuedAt(now)
@@ -40,9 +93,25 @@ public class JwtUtil {
     }
 
     public boolean validateToken(String token) {
+        return getVerifiedEmail(token) != null;
+    }
+
+    /**
+     * Validates the token and returns its subject, parsing each distinct token
+     * only once while it stays in the cache.
+     *
+     * @return the email, or {@code null} if the token is invalid or expired
+     */
+    public String getVerifiedEmail(String token) {
+        VerifiedToken cached = verifiedTokens.getIfPresent(token);
+        if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis()) {
+            return cached.email();
+        }
         try {
-            extractClaims(token);
-            return true;
+            Claims claims = extractClaims(token);
+            long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+            verifiedTokens.put(token, new VerifiedToken(claims.getSubject(), expiresAt));
+            return claims.getSubject();
         } catch (MalformedJwtException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -51,21 +120,18 @@ public class JwtUtil {
             log.error("JWT token unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             log.error("JWT claims string is empty: {}", e.getMessage());
+        } catch (JwtException e) {
+            log.error("JWT token rejected: {}", e.getMessage());
         }
-        return false;
+        return null;
     }
 
     private Claims extractClaims(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-
-        return Jwts.parser()
-                   .verifyWith(key)
-                   .build()
-                   .parseSignedClaims(token)
-                   .getPayload();
+        return parser.parseSignedClaims(token)
+                     .getPayload();
     }
 
     public Long getExpirationTime() {
         return jwtExpiration;
     }
-}
\ No newline at end of file
+}
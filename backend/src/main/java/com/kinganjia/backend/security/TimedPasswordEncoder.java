@@ -0,0 +1,45 @@
+package com.kinganjia.backend.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Records the time spent hashing and verifying passwords as
+ * {@code security.password.hash}, tagged by operation. BCrypt is
+ * deliberately slow, so this is usually the dominant cost of a login.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.encodeTimer = timer(meterRegistry, "encode");
+        this.matchesTimer = timer(meterRegistry, "matches");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return encodeTimer.record(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return Boolean.TRUE.equals(matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("security.password.hash")
+                    .description("Password hashing and verification time")
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+    }
+}
@@ -0,0 +1,73 @@
+package com.kinganjia.backend.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kinganjia.backend.event.CacheInvalidatedEvent;
+import com.kinganjia.backend.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded, time-limited cache of authenticated principals by email, so repeat
+ * callers are authenticated without a database round trip.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final Cache<String, UserDetails> cache;
+
+    public UserDetailsCache(@Value("${security.user-cache.max-size:10000}") long maxSize,
+                            @Value("${security.user-cache.ttl:PT5M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                             .maximumSize(maxSize)
+                             .expireAfterWrite(ttl)
+                             .build();
+    }
+
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        return cache.get(email, loader);
+    }
+
+    /**
+     * Evicts now and, inside a transaction, again after commit so a concurrent
+     * request cannot re-cache the pre-commit row.
+     */
+    public void evict(String email) {
+        if (email == null) {
+            return;
+        }
+        cache.invalidate(email);
+        afterCommit(() -> cache.invalidate(email));
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+        afterCommit(cache::invalidateAll);
+    }
+
+    /** Users changed on any node; the notification names no emails, so every principal is dropped. */
+    @EventListener
+    public void onCacheInvalidated(CacheInvalidatedEvent event) {
+        if (event.regions().contains(User.class.getName())) {
+            cache.invalidateAll();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -11,14 +11,21 @@ import com.kinganjia.backend.mapper.UserMapper;
 import com.kinganjia.backend.model.User;
 import com.kinganjia.backend.repository.UserRepository;
 import com.kinganjia.backend.security.JwtUtil;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Registration and login. Password hashing deliberately takes a large part
+ * of a second, so it never runs inside a transaction: users are read, and
+ * new users or upgraded hashes written, in short transactions of their own,
+ * and no connection is held while a password is hashed or checked.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class AuthService {
 
@@ -26,48 +33,93 @@ public class AuthService {
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readTransaction;
+
+    public AuthService(UserRepository userRepository,
+                       UserMapper userMapper,
+                       PasswordEncoder passwordEncoder,
+                       JwtUtil jwtUtil,
+                       PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.passwordEncoder = passwordEncoder;
+        this.jwtUtil = jwtUtil;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+    }
 
-    @Transactional
     public AuthResponseDTO register(RegisterRequestDTO registerRequest) {
-        if (userRepository.findByEmail(registerRequest.getEmail())
-                          .isPresent()) {
-            throw new DuplicateResourceException("User with email " + registerRequest.getEmail() + " already exists");
+        String email = registerRequest.getEmail();
+        if (Boolean.TRUE.equals(readTransaction.execute(status -> userRepository.findByEmail(email).isPresent()))) {
+            throw duplicateEmail(email);
         }
 
         User user = new User();
         user.setFirstName(registerRequest.getFirstName());
         user.setLastName(registerRequest.getLastName());
-        user.setEmail(registerRequest.getEmail());
+        user.setEmail(email);
         user.setPassword(passwordEncoder.encode(registerRequest.getPassword()));
 
-        User savedUser = userRepository.save(user);
-
-        String token = jwtUtil.generateToken(savedUser.getEmail());
+        UserResponseDTO userResponse;
+        try {
+            userResponse = transactionTemplate.execute(status -> userMapper.toResponse(userRepository.save(user)));
+        } catch (DataIntegrityViolationException e) {
+            // Registered by a concurrent request while the password was being hashed
+            throw duplicateEmail(email);
+        }
 
-        UserResponseDTO userResponse = userMapper.toResponse(savedUser);
+        String token = jwtUtil.generateToken(userResponse.getEmail());
 
         return new AuthResponseDTO(token, jwtUtil.getExpirationTime(), userResponse);
     }
 
-    @Transactional(readOnly = true)
     public AuthResponseDTO login(LoginRequestDTO loginRequest) {
 
-        User user = userRepository.findByEmail(loginRequest.getEmail())
-                                  .orElseThrow(() -> {
-                                      return new ResourceNotFoundException("Invalid email or password");
-                                  });
+        User user = readTransaction.execute(status -> userRepository.findByEmail(loginRequest.getEmail())
+                                                                    .orElseThrow(() -> {
+                                                                        return new ResourceNotFoundException(
+                                                                                "Invalid email or password");
+                                                                    }));
 
         if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
             throw new BusinessValidationException("Invalid email or password");
         }
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            upgradePassword(user.getId(), user.getPassword(), loginRequest.getPassword());
+        }
 
         String token = jwtUtil.generateToken(user.getEmail());
 
-        UserResponseDTO userResponse = userMapper.toResponse(user);
+        // Mapped in a transaction of its own: the response lists the user's claims, loaded lazily
+        UserResponseDTO userResponse = readTransaction.execute(status -> userRepository.findById(user.getId())
+                                                                                       .map(userMapper::toResponse)
+                                                                                       .orElseThrow());
 
         return new AuthResponseDTO(token, jwtUtil.getExpirationTime(), userResponse);
     }
 
+    /**
+     * Rehashes a password stored at an older cost now that the raw password is
+     * known. Best effort: the login succeeds either way, and a hash changed
+     * meanwhile by a password update is left alone.
+     */
+    private void upgradePassword(Long userId, String currentHash, String rawPassword) {
+        try {
+            String upgradedHash = passwordEncoder.encode(rawPassword);
+            transactionTemplate.executeWithoutResult(status -> userRepository.findById(userId)
+                    .filter(user -> user.getPassword().equals(currentHash))
+                    .ifPresent(user -> user.setPassword(upgradedHash)));
+        } catch (RuntimeException e) {
+            log.warn("Could not upgrade the password hash of user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private static DuplicateResourceException duplicateEmail(String email) {
+        return new DuplicateResourceException("User with email " + email + " already exists");
+    }
+
     @Transactional(readOnly = true)
     public UserResponseDTO getCurrentUser(String email) {
         User user = userRepository.findByEmail(email)
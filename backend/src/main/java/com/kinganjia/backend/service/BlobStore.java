@@ -0,0 +1,104 @@
+package com.kinganjia.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed blob store on the local filesystem. A blob lives at
+ * {@code <root>/ab/cd/<sha256>}, so identical uploads share one file. Bytes
+ * are hashed while they are copied to a temporary file in the same
+ * directory tree and then renamed into place, so readers never see a partial
+ * blob and the upload is never held in heap.
+ */
+@Component
+@Slf4j
+public class BlobStore {
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+    private static final String URL_PREFIX = "/api/v1/blobs/";
+
+    public record StoredBlob(String sha256, long size, boolean created) {
+    }
+
+    private final Path root;
+    private final Path incoming;
+
+    public BlobStore(@Value("${app.blobs.root:data/blobs}") String root) throws IOException {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+        this.incoming = this.root.resolve("incoming");
+        Files.createDirectories(incoming);
+    }
+
+    public StoredBlob store(InputStream content) throws IOException {
+        Path temp = Files.createTempFile(incoming, "upload-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream digesting = new DigestInputStream(content, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                size = digesting.transferTo(out);
+            }
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            Path target = pathOf(sha256);
+            if (Files.exists(target)) {
+                return new StoredBlob(sha256, size, false);
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // A concurrent upload of the same content won the rename
+                return new StoredBlob(sha256, size, false);
+            }
+            log.info("Stored blob {} ({} bytes)", sha256, size);
+            return new StoredBlob(sha256, size, true);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * The blob's file, if {@code sha256} is a well-formed digest that has been stored.
+     */
+    public Optional<Path> find(String sha256) {
+        if (sha256 == null || !SHA256_HEX.matcher(sha256).matches()) {
+            return Optional.empty();
+        }
+        Path path = pathOf(sha256);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Public URL of a blob, or null for a missing digest.
+     */
+    public static String urlOf(String sha256) {
+        return sha256 == null ? null : URL_PREFIX + sha256;
+    }
+
+    private Path pathOf(String sha256) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
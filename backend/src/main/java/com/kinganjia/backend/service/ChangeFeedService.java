@@ -0,0 +1,260 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.config.DatabasePlatform;
+import com.kinganjia.backend.dto.ChangeDTO;
+import com.kinganjia.backend.dto.ClaimResponseDTO;
+import com.kinganjia.backend.dto.CursorPageDTO;
+import com.kinganjia.backend.dto.ImageResponseDTO;
+import com.kinganjia.backend.event.ClaimChangeEvent;
+import com.kinganjia.backend.event.CommitBuffer;
+import com.kinganjia.backend.event.ImageChangeEvent;
+import com.kinganjia.backend.exception.BusinessValidationException;
+import com.kinganjia.backend.exception.CursorExpiredException;
+import com.kinganjia.backend.mapper.ClaimMapper;
+import com.kinganjia.backend.mapper.ImageMapper;
+import com.kinganjia.backend.model.ChangeEntityType;
+import com.kinganjia.backend.model.ChangeLogEntry;
+import com.kinganjia.backend.model.ChangeOperation;
+import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.model.Image;
+import com.kinganjia.backend.repository.ChangeCursor;
+import com.kinganjia.backend.repository.ChangeLogRepository;
+import com.kinganjia.backend.repository.ClaimRepository;
+import com.kinganjia.backend.repository.ImageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Change feed for claims and images, served from {@code change_log}. Every
+ * change is logged in the transaction that makes it, just before commit, so
+ * the log holds exactly the committed changes and hard deletes leave a
+ * tombstone. Timestamps come from the database clock, never a node's.
+ * <p>
+ * On PostgreSQL entries carry their transaction id and are read in
+ * transaction id order, and only those older than every transaction still
+ * running are served: no entry can later appear behind a cursor, however
+ * long a writer takes to commit. Elsewhere readers consume entries in
+ * sequence order once older than the settle window. Entries older than the
+ * retention period are pruned, and cursors that reach back past it are
+ * rejected so the client reloads.
+ */
+@Service
+@Slf4j
+public class ChangeFeedService {
+    public static final int DEFAULT_LIMIT = 200;
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String POSTGRES_INSERT = """
+            insert into change_log (entity_type, entity_id, operation, changed_at, txid)
+            values (?, ?, ?, clock_timestamp(), pg_current_xact_id()::text::bigint)
+            """;
+    private static final String INSERT = """
+            insert into change_log (entity_type, entity_id, operation, changed_at, txid)
+            values (?, ?, ?, localtimestamp, 0)
+            """;
+
+    private record Key(ChangeEntityType type, Long id) {
+    }
+
+    private final ChangeLogRepository changeLogRepository;
+    private final ClaimRepository claimRepository;
+    private final ImageRepository imageRepository;
+    private final ClaimMapper claimMapper;
+    private final ImageMapper imageMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final Duration settle;
+    private final Duration retention;
+    // Written as late as possible, so the sequence number is taken just before the commit
+    private final CommitBuffer<Map<Key, ChangeOperation>> entries = new CommitBuffer<>(LinkedHashMap::new, this::write);
+
+    public ChangeFeedService(ChangeLogRepository changeLogRepository,
+                             ClaimRepository claimRepository,
+                             ImageRepository imageRepository,
+                             ClaimMapper claimMapper,
+                             ImageMapper imageMapper,
+                             DataSource dataSource,
+                             TransactionTemplate transactionTemplate,
+                             DatabasePlatform databasePlatform,
+                             @Value("${app.changes.settle:PT2S}") Duration settle,
+                             @Value("${app.changes.retention:P7D}") Duration retention) {
+        this.changeLogRepository = changeLogRepository;
+        this.claimRepository = claimRepository;
+        this.imageRepository = imageRepository;
+        this.claimMapper = claimMapper;
+        this.imageMapper = imageMapper;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = transactionTemplate;
+        this.databasePlatform = databasePlatform;
+        this.settle = settle;
+        this.retention = retention;
+    }
+
+    @EventListener
+    public void onClaimChange(ClaimChangeEvent event) {
+        record(ChangeEntityType.CLAIM, event.claimId(),
+               event.type() == ClaimChangeEvent.Type.DELETED ? ChangeOperation.DELETE : ChangeOperation.UPSERT);
+    }
+
+    @EventListener
+    public void onImageChange(ImageChangeEvent event) {
+        record(ChangeEntityType.IMAGE, event.imageId(),
+               event.type() == ImageChangeEvent.Type.DELETED ? ChangeOperation.DELETE : ChangeOperation.UPSERT);
+        // Claims embed their images, so the owning claim changes with them
+        if (event.claimId() != null) {
+            record(ChangeEntityType.CLAIM, event.claimId(), ChangeOperation.UPSERT);
+        }
+    }
+
+    /**
+     * Changes after {@code cursor}, oldest first and at most one per entity.
+     * Without a cursor, returns no changes and a cursor at the current head:
+     * take it before loading the collections, then poll with it.
+     * Not read-only, so it always reads the primary: a lagging replica could
+     * show a later entry before an earlier one.
+     */
+    @Transactional
+    public CursorPageDTO<ChangeDTO> getChanges(String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_LIMIT : limit;
+        if (pageSize < 1 || pageSize > MAX_LIMIT) {
+            throw new BusinessValidationException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        LocalDateTime now = databaseTime();
+        LocalDateTime settledAt = now.minus(settle);
+        if (cursor == null || cursor.isBlank()) {
+            return new CursorPageDTO<>(List.of(), head(settledAt).encode(), false);
+        }
+        ChangeCursor after = ChangeCursor.decode(cursor);
+        // An entry may be logged up to the settle window before the transaction it belongs to ends
+        if (after.horizon().minus(settle).isBefore(now.minus(retention))) {
+            throw new CursorExpiredException("Cursor is older than the change log; reload and start without a cursor");
+        }
+
+        List<ChangeLogEntry> entries = databasePlatform.isPostgres()
+                ? changeLogRepository.findEndedAfter(after.txid(), after.seq(), pageSize + 1)
+                : settled(changeLogRepository.findAfter(after.txid(), after.seq(), Limit.of(pageSize + 1)),
+                          settledAt);
+        boolean hasMore = entries.size() > pageSize;
+        List<ChangeLogEntry> page = hasMore ? entries.subList(0, pageSize) : entries;
+        // Part way through a backlog, undelivered entries may be as old as those behind the previous cursor
+        LocalDateTime horizon = hasMore ? after.horizon() : settledAt;
+        if (page.isEmpty()) {
+            return new CursorPageDTO<>(List.of(), new ChangeCursor(horizon, after.txid(), after.seq()).encode(),
+                                       false);
+        }
+        ChangeLogEntry last = page.get(page.size() - 1);
+        return new CursorPageDTO<>(resolve(page), new ChangeCursor(horizon, last.getTxid(), last.getSeq()).encode(),
+                                   hasMore);
+    }
+
+    @Scheduled(fixedDelayString = "${app.changes.prune-interval:PT1H}",
+               initialDelayString = "${app.changes.prune-interval:PT1H}")
+    public void prune() {
+        Integer pruned = transactionTemplate.execute(
+                status -> changeLogRepository.deleteOlderThan(databaseTime().minus(retention)));
+        log.info("Pruned {} change log entries", pruned);
+    }
+
+    /**
+     * A cursor past everything already final. On PostgreSQL that is every
+     * transaction id below the oldest one still running, whatever its entries.
+     */
+    private ChangeCursor head(LocalDateTime settledAt) {
+        if (databasePlatform.isPostgres()) {
+            Long oldestRunning = jdbcTemplate.queryForObject(
+                    "select pg_snapshot_xmin(pg_current_snapshot())::text::bigint", Long.class);
+            return new ChangeCursor(settledAt, oldestRunning - 1, Long.MAX_VALUE);
+        }
+        return new ChangeCursor(settledAt, 0, changeLogRepository.findHead(settledAt));
+    }
+
+    /** The leading entries logged before {@code settledAt}; a younger one may have an uncommitted predecessor. */
+    private static List<ChangeLogEntry> settled(List<ChangeLogEntry> entries, LocalDateTime settledAt) {
+        for (int e = 0; e < entries.size(); e++) {
+            if (entries.get(e).getChangedAt().isAfter(settledAt)) {
+                return entries.subList(0, e);
+            }
+        }
+        return entries;
+    }
+
+    private LocalDateTime databaseTime() {
+        return jdbcTemplate.queryForObject("select localtimestamp", LocalDateTime.class);
+    }
+
+    private List<ChangeDTO> resolve(List<ChangeLogEntry> entries) {
+        // Only the latest entry per entity matters, in the order of those latest entries
+        Map<Key, ChangeLogEntry> latest = new LinkedHashMap<>();
+        for (ChangeLogEntry entry : entries) {
+            Key key = new Key(entry.getEntityType(), entry.getEntityId());
+            latest.remove(key);
+            latest.put(key, entry);
+        }
+        Map<Long, ClaimResponseDTO> claims = load(latest, ChangeEntityType.CLAIM,
+                                                  ids -> claimRepository.findByIdIn(ids)
+                                                                        .stream()
+                                                                        .collect(Collectors.toMap(
+                                                                                Claim::getId,
+                                                                                claimMapper::toResponse)));
+        Map<Long, ImageResponseDTO> images = load(latest, ChangeEntityType.IMAGE,
+                                                  ids -> imageRepository.findByIdIn(ids)
+                                                                        .stream()
+                                                                        .collect(Collectors.toMap(
+                                                                                Image::getId,
+                                                                                imageMapper::toResponse)));
+
+        List<ChangeDTO> changes = new ArrayList<>(latest.size());
+        for (ChangeLogEntry entry : latest.values()) {
+            Long id = entry.getEntityId();
+            ClaimResponseDTO claim = entry.getEntityType() == ChangeEntityType.CLAIM ? claims.get(id) : null;
+            ImageResponseDTO image = entry.getEntityType() == ChangeEntityType.IMAGE ? images.get(id) : null;
+            // An upserted entity that is gone by now was deleted; its tombstone is further along the log
+            ChangeOperation operation = claim == null && image == null ? ChangeOperation.DELETE
+                                                                       : ChangeOperation.UPSERT;
+            changes.add(new ChangeDTO(entry.getEntityType(), id, operation, entry.getChangedAt(), claim, image));
+        }
+        return changes;
+    }
+
+    private static <T> Map<Long, T> load(Map<Key, ChangeLogEntry> latest, ChangeEntityType type,
+                                         Function<List<Long>, Map<Long, T>> loader) {
+        List<Long> ids = latest.values()
+                               .stream()
+                               .filter(entry -> entry.getEntityType() == type
+                                       && entry.getOperation() == ChangeOperation.UPSERT)
+                               .map(ChangeLogEntry::getEntityId)
+                               .toList();
+        return ids.isEmpty() ? Map.of() : loader.apply(ids);
+    }
+
+    private void record(ChangeEntityType type, Long id, ChangeOperation operation) {
+        entries.record(pending -> pending.put(new Key(type, id), operation));
+    }
+
+    private void write(Map<Key, ChangeOperation> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(changes.size());
+        changes.forEach((key, operation) -> rows.add(new Object[]{key.type().name(), key.id(), operation.name()}));
+        jdbcTemplate.batchUpdate(databasePlatform.isPostgres() ? POSTGRES_INSERT : INSERT, rows);
+    }
+}
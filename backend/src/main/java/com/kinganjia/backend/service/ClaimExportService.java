@@ -0,0 +1,203 @@
+package com.kinganjia.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kinganjia.backend.dto.ClaimExportDTO;
+import com.kinganjia.backend.dto.ClaimFilterDTO;
+import com.kinganjia.backend.exception.BusinessValidationException;
+import com.kinganjia.backend.mapper.ClaimMapper;
+import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.repository.ClaimSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Streams claims from a server-side cursor straight into the response, one
+ * row at a time, so heap use does not depend on the size of the table.
+ */
+@Service
+@Slf4j
+public class ClaimExportService {
+
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv"), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format from(String value) {
+            if (value == null || value.isBlank()) {
+                return NDJSON;
+            }
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BusinessValidationException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    private static final String CSV_HEADER = "id,userId,location,latitude,longitude,status,severity,detectionType,"
+            + "hash,description,confirmationTime,createdAt,updatedAt";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ClaimMapper claimMapper;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int fetchSize;
+    private final int flushEvery;
+
+    public ClaimExportService(ClaimMapper claimMapper,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.export.fetch-size:1000}") int fetchSize,
+                              @Value("${app.export.flush-every:500}") int flushEvery) {
+        this.claimMapper = claimMapper;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+        this.flushEvery = flushEvery;
+    }
+
+    /**
+     * The returned body runs on an async request thread, so the read-only
+     * transaction (required for the PostgreSQL driver to use a cursor) is
+     * opened inside it rather than around this call.
+     */
+    public StreamingResponseBody export(ClaimFilterDTO filter, Format format) {
+        return outputStream -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Claim> claims = streamClaims(filter)) {
+                if (format == Format.CSV) {
+                    writeCsv(claims, outputStream);
+                } else {
+                    writeNdjson(claims, outputStream);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private Stream<Claim> streamClaims(ClaimFilterDTO filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Claim> query = cb.createQuery(Claim.class);
+        Root<Claim> root = query.from(Claim.class);
+        query.where(ClaimSpecifications.matching(filter).toPredicate(root, query, cb));
+        query.orderBy(cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                            .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                            .setHint(HibernateHints.HINT_READ_ONLY, true)
+                            // A full export would otherwise push every claim through the second-level cache
+                            .setHint(HibernateHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+                            .getResultStream();
+    }
+
+    private void writeNdjson(Stream<Claim> claims, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.setRootValueSeparator(null);
+            long[] rows = {0};
+            claims.forEach(claim -> {
+                try {
+                    objectMapper.writeValue(generator, detachAndMap(claim));
+                    generator.writeRaw('\n');
+                    if (++rows[0] % flushEvery == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            log.info("Exported {} claims as NDJSON", rows[0]);
+        }
+    }
+
+    private void writeCsv(Stream<Claim> claims, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long[] rows = {0};
+        claims.forEach(claim -> {
+            try {
+                writeCsvRow(writer, detachAndMap(claim));
+                if (++rows[0] % flushEvery == 0) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+        log.info("Exported {} claims as CSV", rows[0]);
+    }
+
+    private ClaimExportDTO detachAndMap(Claim claim) {
+        ClaimExportDTO row = claimMapper.toExport(claim);
+        // Keep the persistence context empty so memory stays flat across the whole cursor
+        entityManager.detach(claim);
+        return row;
+    }
+
+    private static void writeCsvRow(Writer writer, ClaimExportDTO row) throws IOException {
+        Object[] values = {row.getId(), row.getUserId(), row.getLocation(), row.getLatitude(), row.getLongitude(),
+                row.getStatus(), row.getSeverity(), row.getDetectionType(), row.getHash(), row.getDescription(),
+                row.getConfirmationTime(), row.getCreatedAt(), row.getUpdatedAt()};
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvField(values[i]));
+        }
+        writer.write('\n');
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
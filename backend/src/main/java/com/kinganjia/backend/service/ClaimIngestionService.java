@@ -0,0 +1,245 @@
+package com.kinganjia.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.kinganjia.backend.dto.BulkClaimRequestDTO;
+import com.kinganjia.backend.dto.BulkItemResultDTO;
+import com.kinganjia.backend.dto.BulkResultDTO;
+import com.kinganjia.backend.dto.ImageRequestDTO;
+import com.kinganjia.backend.event.ClaimChangeEvent;
+import com.kinganjia.backend.event.ClaimSnapshot;
+import com.kinganjia.backend.event.ImageChangeEvent;
+import com.kinganjia.backend.mapper.ClaimMapper;
+import com.kinganjia.backend.mapper.ImageMapper;
+import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.model.Image;
+import com.kinganjia.backend.model.User;
+import com.kinganjia.backend.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk claim ingestion. Items are read incrementally from a JSON array or
+ * NDJSON body and written in chunks: one set-based user check and one
+ * transaction per chunk, with inserts sent as JDBC batches
+ * ({@code hibernate.jdbc.batch_size}) using pre-allocated sequence ids.
+ */
+@Service
+@Slf4j
+public class ClaimIngestionService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectReader itemReader;
+    private final ClaimMapper claimMapper;
+    private final ImageMapper imageMapper;
+    private final UserRepository userRepository;
+    private final HazardClusterService hazardClusterService;
+    private final ImageSimilarityIndex imageSimilarityIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final int maxItems;
+
+    public ClaimIngestionService(ObjectMapper objectMapper,
+                                 ClaimMapper claimMapper,
+                                 ImageMapper imageMapper,
+                                 UserRepository userRepository,
+                                 HazardClusterService hazardClusterService,
+                                 ImageSimilarityIndex imageSimilarityIndex,
+                                 TransactionTemplate transactionTemplate,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${app.ingest.chunk-size:500}") int chunkSize,
+                                 @Value("${app.ingest.max-items:50000}") int maxItems) {
+        this.itemReader = objectMapper.readerFor(BulkClaimRequestDTO.class);
+        this.claimMapper = claimMapper;
+        this.imageMapper = imageMapper;
+        this.userRepository = userRepository;
+        this.hazardClusterService = hazardClusterService;
+        this.imageSimilarityIndex = imageSimilarityIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+    }
+
+    private record Item(int index, BulkClaimRequestDTO request) {
+    }
+
+    /**
+     * Ingests a JSON array or NDJSON stream of claims. Chunks commit
+     * independently; a malformed item, or the first item past
+     * {@code app.ingest.max-items}, stops reading and is reported as the last
+     * result.
+     */
+    public BulkResultDTO<BulkItemResultDTO> ingest(InputStream body) throws IOException {
+        List<BulkItemResultDTO> results = new ArrayList<>();
+        List<Item> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+        try (MappingIterator<BulkClaimRequestDTO> items = itemReader.readValues(body)) {
+            while (true) {
+                BulkClaimRequestDTO request;
+                try {
+                    if (!items.hasNextValue()) {
+                        break;
+                    }
+                    request = items.nextValue();
+                } catch (JsonProcessingException e) {
+                    writeChunk(chunk, results);
+                    results.add(BulkItemResultDTO.failed(index, "Malformed item: " + e.getOriginalMessage()));
+                    return summarize(results);
+                }
+                if (index >= maxItems) {
+                    writeChunk(chunk, results);
+                    results.add(BulkItemResultDTO.failed(index, "A bulk request may contain at most " + maxItems
+                            + " items; this and later items were not read"));
+                    return summarize(results);
+                }
+                chunk.add(new Item(index++, request));
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, results);
+                }
+            }
+        }
+        writeChunk(chunk, results);
+        return summarize(results);
+    }
+
+    private void writeChunk(List<Item> chunk, List<BulkItemResultDTO> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<BulkItemResultDTO> chunkResults = new ArrayList<>(chunk.size());
+        Map<Long, String> imageHashes = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> chunkResults.addAll(insertChunk(chunk, imageHashes)));
+            // Only committed images go into the similarity index
+            imageHashes.forEach(imageSimilarityIndex::put);
+        } catch (RuntimeException e) {
+            log.error("Bulk claim chunk starting at item {} failed", chunk.get(0).index(), e);
+            chunkResults.clear();
+            chunk.forEach(item -> chunkResults.add(BulkItemResultDTO.failed(item.index(),
+                                                                           "Chunk rejected by the database")));
+        }
+        results.addAll(chunkResults);
+        chunk.clear();
+    }
+
+    private List<BulkItemResultDTO> insertChunk(List<Item> chunk, Map<Long, String> imageHashes) {
+        Set<Long> userIds = chunk.stream()
+                                 .map(item -> item.request().getUserId())
+                                 .filter(id -> id != null)
+                                 .collect(Collectors.toSet());
+        Set<Long> existingUserIds = userIds.isEmpty() ? Set.of() : userRepository.findExistingIds(userIds);
+
+        List<BulkItemResultDTO> results = new ArrayList<>(chunk.size());
+        List<Claim> claims = new ArrayList<>(chunk.size());
+        List<Item> accepted = new ArrayList<>(chunk.size());
+        for (Item item : chunk) {
+            String error = validate(item.request(), existingUserIds);
+            if (error != null) {
+                results.add(BulkItemResultDTO.failed(item.index(), error));
+                continue;
+            }
+            Claim claim = claimMapper.toEntity(item.request());
+            claim.setUser(entityManager.getReference(User.class, item.request().getUserId()));
+            // Cluster lookups run before any claim is persisted so they do not split the insert batches
+            hazardClusterService.assign(claim);
+            claims.add(claim);
+            accepted.add(item);
+            results.add(null);
+        }
+
+        List<List<Image>> imagesPerClaim = new ArrayList<>(claims.size());
+        for (int i = 0; i < claims.size(); i++) {
+            Claim claim = claims.get(i);
+            entityManager.persist(claim);
+            List<Image> images = new ArrayList<>();
+            List<ImageRequestDTO> imageRequests = accepted.get(i).request().getImages();
+            if (imageRequests != null) {
+                for (ImageRequestDTO imageRequest : imageRequests) {
+                    Image image = imageMapper.toEntity(imageRequest);
+                    image.setClaim(claim);
+                    entityManager.persist(image);
+                    images.add(image);
+                }
+            }
+            imagesPerClaim.add(images);
+        }
+        entityManager.flush();
+
+        int next = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                Claim claim = claims.get(next);
+                eventPublisher.publishEvent(ClaimChangeEvent.created(ClaimSnapshot.of(claim)));
+                List<Long> imageIds = new ArrayList<>();
+                for (Image image : imagesPerClaim.get(next)) {
+                    eventPublisher.publishEvent(ImageChangeEvent.created(image.getId(), claim.getId()));
+                    imageIds.add(image.getId());
+                    imageHashes.put(image.getId(), image.getHash());
+                }
+                results.set(i, BulkItemResultDTO.created(chunk.get(i).index(), claim.getId(), imageIds));
+                next++;
+            }
+        }
+        entityManager.clear();
+        return results;
+    }
+
+    private static String validate(BulkClaimRequestDTO request, Set<Long> existingUserIds) {
+        if (request == null) {
+            return "Item is empty";
+        }
+        if (request.getUserId() == null) {
+            return "userId is required";
+        }
+        if (!existingUserIds.contains(request.getUserId())) {
+            return "User not found";
+        }
+        if (request.getLocation() == null || request.getLocation().isBlank()) {
+            return "location is required";
+        }
+        if (request.getLatitude() == null || request.getLatitude() < -90 || request.getLatitude() > 90) {
+            return "latitude must be between -90 and 90";
+        }
+        if (request.getLongitude() == null || request.getLongitude() < -180 || request.getLongitude() > 180) {
+            return "longitude must be between -180 and 180";
+        }
+        if (request.getHash() == null || request.getHash().isBlank()) {
+            return "hash is required";
+        }
+        if (request.getImages() != null) {
+            for (ImageRequestDTO image : request.getImages()) {
+                if (image == null || image.getUrl() == null || image.getHash() == null) {
+                    return "Every image needs a url and a hash";
+                }
+            }
+        }
+        return null;
+    }
+
+    private static BulkResultDTO<BulkItemResultDTO> summarize(List<BulkItemResultDTO> results) {
+        int created = (int) results.stream()
+                                   .filter(result -> result.getStatus() == BulkItemResultDTO.Status.CREATED)
+                                   .count();
+        return new BulkResultDTO<>(created, results.size() - created, results);
+    }
+}
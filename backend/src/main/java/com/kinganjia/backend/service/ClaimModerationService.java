@@ -0,0 +1,140 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.config.ClusteredCacheRegionFactory;
+import com.kinganjia.backend.dto.BulkResultDTO;
+import com.kinganjia.backend.dto.BulkStatusRequestDTO;
+import com.kinganjia.backend.dto.ClaimFilterDTO;
+import com.kinganjia.backend.dto.ClaimStatusResultDTO;
+import com.kinganjia.backend.event.ClaimChangeEvent;
+import com.kinganjia.backend.event.ClaimSnapshot;
+import com.kinganjia.backend.exception.BusinessValidationException;
+import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.repository.ClaimRepository;
+import com.kinganjia.backend.repository.ClaimSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk status transitions. Each chunk runs in its own transaction: one
+ * snapshot query, one set-based update and one change event per claim whose
+ * status actually changed, exactly as a single update would publish.
+ */
+@Service
+@Slf4j
+public class ClaimModerationService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ClaimRepository claimRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final int maxItems;
+
+    public ClaimModerationService(ClaimRepository claimRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${app.moderation.chunk-size:500}") int chunkSize,
+                                  @Value("${app.moderation.max-items:20000}") int maxItems) {
+        this.claimRepository = claimRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Moves the selected claims to the requested status. Results are in
+     * request order for {@code ids} and in id order for a {@code filter};
+     * chunks commit independently.
+     */
+    public BulkResultDTO<ClaimStatusResultDTO> updateStatus(BulkStatusRequestDTO request) {
+        List<Long> ids = resolveIds(request);
+        ClaimStatus status = request.getStatus();
+        List<ClaimStatusResultDTO> results = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            try {
+                results.addAll(transactionTemplate.execute(tx -> updateChunk(chunk, status)));
+            } catch (RuntimeException e) {
+                log.error("Bulk status chunk starting at claim {} failed", chunk.get(0), e);
+                chunk.forEach(id -> results.add(ClaimStatusResultDTO.failed(id, "Chunk rejected by the database")));
+            }
+        }
+        int succeeded = (int) results.stream()
+                                     .filter(result -> result.getOutcome() == ClaimStatusResultDTO.Outcome.UPDATED
+                                             || result.getOutcome() == ClaimStatusResultDTO.Outcome.UNCHANGED)
+                                     .count();
+        log.info("Bulk status {} applied to {} claims ({} failed)", status, succeeded, results.size() - succeeded);
+        return new BulkResultDTO<>(succeeded, results.size() - succeeded, results);
+    }
+
+    private List<ClaimStatusResultDTO> updateChunk(List<Long> ids, ClaimStatus status) {
+        Map<Long, ClaimSnapshot> current = claimRepository.findSnapshotsByIdIn(ids)
+                                                          .stream()
+                                                          .collect(Collectors.toMap(ClaimSnapshot::id,
+                                                                                    Function.identity()));
+        LocalDateTime now = LocalDateTime.now();
+        ClusteredCacheRegionFactory.evictingOnly(ids, () -> claimRepository.updateStatusByIdIn(
+                ids, status, status == ClaimStatus.PENDING ? null : now, now));
+
+        List<ClaimStatusResultDTO> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ClaimSnapshot before = current.get(id);
+            if (before == null) {
+                results.add(ClaimStatusResultDTO.of(id, ClaimStatusResultDTO.Outcome.NOT_FOUND, null));
+            } else if (before.status() == status) {
+                results.add(ClaimStatusResultDTO.of(id, ClaimStatusResultDTO.Outcome.UNCHANGED, before.status()));
+            } else {
+                eventPublisher.publishEvent(ClaimChangeEvent.updated(before, before.withStatus(status)));
+                results.add(ClaimStatusResultDTO.of(id, ClaimStatusResultDTO.Outcome.UPDATED, before.status()));
+            }
+        }
+        return results;
+    }
+
+    private List<Long> resolveIds(BulkStatusRequestDTO request) {
+        boolean byIds = request.getIds() != null;
+        if (byIds == (request.getFilter() != null)) {
+            throw new BusinessValidationException("Provide either ids or a filter");
+        }
+        if (byIds && request.getIds().contains(null)) {
+            throw new BusinessValidationException("Claim ids must not be null");
+        }
+        List<Long> ids = byIds ? List.copyOf(new LinkedHashSet<>(request.getIds()))
+                : findIds(request.getFilter());
+        if (ids.size() > maxItems) {
+            throw new BusinessValidationException("A bulk status change may cover at most " + maxItems + " claims");
+        }
+        return ids;
+    }
+
+    /** Matching ids only, never whole entities; one row past the limit detects an oversized filter. */
+    private List<Long> findIds(ClaimFilterDTO filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Claim> root = query.from(Claim.class);
+        query.select(root.get("id"))
+             .where(ClaimSpecifications.matching(filter).toPredicate(root, query, cb))
+             .orderBy(cb.asc(root.get("id")));
+        return entityManager.createQuery(query).setMaxResults(maxItems + 1).getResultList();
+    }
+}
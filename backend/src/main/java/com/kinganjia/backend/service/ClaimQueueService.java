@@ -0,0 +1,134 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.config.ClusteredCacheRegionFactory;
+import com.kinganjia.backend.dto.ClaimDecisionDTO;
+import com.kinganjia.backend.dto.ClaimLeaseDTO;
+import com.kinganjia.backend.dto.ClaimResponseDTO;
+import com.kinganjia.backend.event.ClaimChangeEvent;
+import com.kinganjia.backend.event.ClaimSnapshot;
+import com.kinganjia.backend.exception.BusinessValidationException;
+import com.kinganjia.backend.exception.LeaseConflictException;
+import com.kinganjia.backend.exception.ResourceNotFoundException;
+import com.kinganjia.backend.mapper.ClaimMapper;
+import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.repository.ClaimRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Moderation work queue over the pending claims. Moderators lease the next
+ * claims with {@code SKIP LOCKED}, so concurrent leases on any node never
+ * wait on each other or hand out the same claim; leases lapse unless renewed
+ * by a heartbeat. Decisions apply only under a live lease and at the version
+ * the moderator reviewed. Lease updates evict only the claims they touch from
+ * the second-level cache, on every node, so heartbeats leave other cached
+ * claims alone.
+ */
+@Service
+@Slf4j
+public class ClaimQueueService {
+
+    private final ClaimRepository claimRepository;
+    private final ClaimMapper claimMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration leaseDuration;
+    private final int maxLease;
+
+    public ClaimQueueService(ClaimRepository claimRepository,
+                             ClaimMapper claimMapper,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${app.queue.lease-duration:PT5M}") Duration leaseDuration,
+                             @Value("${app.queue.max-lease:50}") int maxLease) {
+        this.claimRepository = claimRepository;
+        this.claimMapper = claimMapper;
+        this.eventPublisher = eventPublisher;
+        this.leaseDuration = leaseDuration;
+        this.maxLease = maxLease;
+    }
+
+    @Transactional
+    public ClaimLeaseDTO lease(String moderator, Integer size) {
+        int count = size == null ? 10 : size;
+        if (count < 1 || count > maxLease) {
+            throw new BusinessValidationException("Lease size must be between 1 and " + maxLease);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(leaseDuration);
+        List<Long> ids = claimRepository.findLeasable(now, Limit.of(count)).stream().map(Claim::getId).toList();
+        if (ids.isEmpty()) {
+            return new ClaimLeaseDTO(0, null, List.of());
+        }
+        ClusteredCacheRegionFactory.evictingOnly(ids, () -> claimRepository.lease(ids, moderator, now, until));
+        List<ClaimResponseDTO> claims = claimRepository.findByIdIn(ids)
+                                                       .stream()
+                                                       .filter(claim -> moderator.equals(claim.getLeasedBy()))
+                                                       .sorted(Comparator.comparing(claim -> ids.indexOf(claim.getId())))
+                                                       .map(claimMapper::toResponse)
+                                                       .toList();
+        log.info("Leased {} claims to {} until {}", claims.size(), moderator, until);
+        return new ClaimLeaseDTO(claims.size(), until, claims);
+    }
+
+    /** Extends every live lease the moderator holds; expired leases are not revived. */
+    @Transactional
+    public ClaimLeaseDTO heartbeat(String moderator) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(leaseDuration);
+        List<Long> ids = claimRepository.findLeasedIds(moderator, now);
+        if (ids.isEmpty()) {
+            return new ClaimLeaseDTO(0, null, null);
+        }
+        int renewed = ClusteredCacheRegionFactory.evictingOnly(
+                ids, () -> claimRepository.extendLeases(ids, moderator, now, until));
+        return new ClaimLeaseDTO(renewed, renewed == 0 ? null : until, null);
+    }
+
+    @Transactional
+    public void release(String moderator, Long id) {
+        LocalDateTime now = LocalDateTime.now();
+        if (ClusteredCacheRegionFactory.evictingOnly(List.of(id),
+                                                     () -> claimRepository.releaseLease(id, moderator, now)) == 0) {
+            throw leaseConflict(id);
+        }
+    }
+
+    @Transactional
+    public ClaimResponseDTO decide(String moderator, Long id, ClaimDecisionDTO decision) {
+        ClaimStatus status = decision.getStatus();
+        if (status == ClaimStatus.PENDING) {
+            throw new BusinessValidationException("A decision must verify or reject the claim; release the lease instead");
+        }
+        Claim claim = claimRepository.findById(id)
+                                     .orElseThrow(() -> new ResourceNotFoundException("Claim not found with id: " + id));
+        ClaimSnapshot before = ClaimSnapshot.of(claim);
+        LocalDateTime now = LocalDateTime.now();
+        if (!moderator.equals(claim.getLeasedBy()) || !claim.getLeaseExpiresAt().isAfter(now)) {
+            throw leaseConflict(id);
+        }
+        if (claim.getVersion() != decision.getVersion()
+                || ClusteredCacheRegionFactory.evictingOnly(List.of(id), () -> claimRepository.decideLeased(
+                        id, decision.getVersion(), moderator, status, now, now)) == 0) {
+            throw new ObjectOptimisticLockingFailureException(Claim.class, id);
+        }
+        eventPublisher.publishEvent(ClaimChangeEvent.updated(before, before.withStatus(status)));
+        log.info("Claim {} set to {} by {}", id, status, moderator);
+        return claimRepository.findDetailedById(id)
+                              .map(claimMapper::toResponse)
+                              .orElseThrow(() -> new ResourceNotFoundException("Claim not found with id: " + id));
+    }
+
+    private static LeaseConflictException leaseConflict(Long id) {
+        return new LeaseConflictException("You do not hold a live lease on claim " + id);
+    }
+}
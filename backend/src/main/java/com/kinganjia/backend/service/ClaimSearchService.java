@@ -0,0 +1,297 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.config.DatabasePlatform;
+import com.kinganjia.backend.dto.ClaimFilterDTO;
+import com.kinganjia.backend.dto.ClaimSearchResultDTO;
+import com.kinganjia.backend.exception.BusinessValidationException;
+import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.DetectionType;
+import com.kinganjia.backend.model.SeverityLevel;
+import com.kinganjia.backend.repository.ClaimSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Ranked text search over claim {@code location} and {@code description}.
+ * On PostgreSQL every word is matched as a prefix against the weighted
+ * {@code search_vector} column (location above description), misspelt words
+ * are corrected against the {@code search_words} vocabulary, and abbreviated
+ * words are caught by trigram word similarity. Candidates are
+ * read in rank order, mostly nearest first from GiST trigram indexes on both
+ * columns, so the top matches are found without scoring every row that
+ * contains a common word (see {@code PostgresSchemaInitializer}). Other
+ * databases fall back to substring matching, scored in memory.
+ */
+@Service
+public class ClaimSearchService {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+    public static final int MAX_QUERY_LENGTH = 200;
+    public static final int MAX_TERMS = 8;
+    /**
+     * Safety cap on rows scored for one search on the fallback path.
+     */
+    public static final int MAX_FALLBACK_CANDIDATES = 5_000;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Rows read for one search step on PostgreSQL, in rank order: nearest
+     * first from each trigram index, or by text rank for the rest of the word
+     * matches. Only these are scored, however common the words are.
+     */
+    public static final int MAX_CANDIDATES = 2 * MAX_LIMIT;
+
+    private static final String POSTGRES_SEARCH = """
+            with candidates as (%s)
+            select c.id, c.location, c.description, c.latitude, c.longitude, c.status, c.severity,
+                c.detection_type, c.created_at,
+                ts_rank_cd(c.search_vector, to_tsquery('simple', :query)) + word_similarity(:text, c.location)
+                    + 0.5 * word_similarity(:text, coalesce(c.description, '')) as score
+            from claims c join candidates using (id)
+            order by score desc, c.id desc
+            limit :limit
+            """;
+    private static final String NEAREST = """
+            (select c.id from claims c
+             where :text <%% c.%1$s and %2$s%3$s
+             order by :text <<-> c.%1$s
+             limit :candidates)
+            """;
+    private static final String BEST_RANKED = """
+            select c.id from claims c
+            where %s and not :text <%% c.location and not :text <%% coalesce(c.description, '')%s
+            order by ts_rank_cd(c.search_vector, to_tsquery('simple', :query)) desc, c.id desc
+            limit :candidates
+            """;
+    private static final String WORD_MATCH = "c.search_vector @@ to_tsquery('simple', :query)";
+    /**
+     * Each word as typed when it begins a known word, else the most similar
+     * known word, else null.
+     */
+    private static final String KNOWN_WORDS = """
+            select coalesce(prefix.word, nearest.word)
+            from unnest(string_to_array(:text, ' ')) with ordinality t(term, position)
+            left join lateral (select t.term as word from search_words w
+                               where w.word like t.term || '%' limit 1) prefix on true
+            left join lateral (select w.word from search_words w
+                               where prefix.word is null and w.word % t.term
+                               order by w.word <-> t.term limit 1) nearest on true
+            order by t.position
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+
+    public ClaimSearchService(DataSource dataSource, DatabasePlatform databasePlatform) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.databasePlatform = databasePlatform;
+    }
+
+    @Transactional(readOnly = true)
+    public List<ClaimSearchResultDTO> search(String text, ClaimFilterDTO filter, Integer limit) {
+        List<String> terms = tokenize(text);
+        int maxResults = limit == null ? DEFAULT_LIMIT : limit;
+        if (maxResults < 1 || maxResults > MAX_LIMIT) {
+            throw new BusinessValidationException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return databasePlatform.isPostgres()
+                ? searchPostgres(terms, filter, maxResults)
+                : searchFallback(terms, filter, maxResults);
+    }
+
+    /**
+     * Misspelt words are first swapped for the nearest word in the index.
+     * Rows similar to the search text in either column come first, read
+     * nearest first from the trigram indexes. Word-prefix matches that are
+     * not similar to either column as a whole (words split between location
+     * and description) follow by text rank, and rows that are only similar,
+     * not matching every word, top up what is left of the page. Each step
+     * only runs when the earlier ones did not fill it, and they never
+     * return the same row.
+     */
+    private List<ClaimSearchResultDTO> searchPostgres(List<String> terms, ClaimFilterDTO filter, int maxResults) {
+        // Which index pays off depends on the words, so never reuse a plan made without them
+        jdbcTemplate.getJdbcTemplate().execute("set local plan_cache_mode = force_custom_plan");
+        List<String> known = jdbcTemplate.queryForList(KNOWN_WORDS, Map.of("text", String.join(" ", terms)),
+                                                       String.class);
+        List<String> words = new ArrayList<>();
+        for (int t = 0; t < terms.size(); t++) {
+            words.add(known.get(t) == null ? terms.get(t) : known.get(t));
+        }
+        words = words.stream().distinct().toList();
+        // Terms are letters and digits only, so they are safe inside a tsquery
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("text", String.join(" ", words))
+                .addValue("query", words.stream().map(word -> word + ":*").collect(Collectors.joining(" & ")))
+                .addValue("candidates", MAX_CANDIDATES);
+        String filters = filterSql(filter, params);
+        List<String> steps = List.of(nearest(WORD_MATCH, filters),
+                                     BEST_RANKED.formatted(WORD_MATCH, filters),
+                                     nearest("not " + WORD_MATCH, filters));
+        // A word that begins no known word matches no row, so only similarity can find anything
+        if (known.contains(null)) {
+            steps = steps.subList(2, 3);
+        }
+        List<ClaimSearchResultDTO> results = new ArrayList<>();
+        for (String candidates : steps) {
+            if (results.size() == maxResults) {
+                break;
+            }
+            params.addValue("limit", maxResults - results.size());
+            results.addAll(jdbcTemplate.query(POSTGRES_SEARCH.formatted(candidates), params,
+                                              ClaimSearchService::mapRow));
+        }
+        return results;
+    }
+
+    private static String nearest(String match, String filters) {
+        return NEAREST.formatted("location", match, filters) + "union\n"
+                + NEAREST.formatted("description", match, filters);
+    }
+
+    private static String filterSql(ClaimFilterDTO filter, MapSqlParameterSource params) {
+        if (filter == null) {
+            return "";
+        }
+        StringBuilder sql = new StringBuilder();
+        if (filter.getStatus() != null) {
+            sql.append(" and c.status = :status");
+            params.addValue("status", filter.getStatus().name());
+        }
+        if (filter.getSeverity() != null) {
+            sql.append(" and c.severity = :severity");
+            params.addValue("severity", filter.getSeverity().name());
+        }
+        if (filter.getDetectionType() != null) {
+            sql.append(" and c.detection_type = :detectionType");
+            params.addValue("detectionType", filter.getDetectionType().name());
+        }
+        if (filter.getFrom() != null) {
+            sql.append(" and c.created_at >= :from");
+            params.addValue("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            sql.append(" and c.created_at < :to");
+            params.addValue("to", filter.getTo());
+        }
+        return sql.toString();
+    }
+
+    private List<ClaimSearchResultDTO> searchFallback(List<String> terms, ClaimFilterDTO filter, int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ClaimSearchResultDTO> query = cb.createQuery(ClaimSearchResultDTO.class);
+        Root<Claim> root = query.from(Claim.class);
+        Expression<String> location = cb.lower(root.get("location"));
+        Expression<String> description = cb.lower(cb.coalesce(root.get("description"), ""));
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(ClaimSpecifications.matching(filter).toPredicate(root, query, cb));
+        for (String term : terms) {
+            predicates.add(cb.or(cb.like(location, "%" + term + "%"), cb.like(description, "%" + term + "%")));
+        }
+        query.select(cb.construct(ClaimSearchResultDTO.class, root.get("id"), root.get("location"),
+                                  root.get("description"), root.get("latitude"), root.get("longitude"),
+                                  root.get("status"), root.get("severity"), root.get("detectionType"),
+                                  root.get("createdAt")))
+             .where(predicates.toArray(new Predicate[0]));
+
+        return entityManager.createQuery(query)
+                            .setMaxResults(MAX_FALLBACK_CANDIDATES)
+                            .getResultList()
+                            .stream()
+                            .peek(result -> result.setScore(score(terms, result)))
+                            .sorted(Comparator.comparingDouble(ClaimSearchResultDTO::getScore).reversed()
+                                              .thenComparing(ClaimSearchResultDTO::getId, Comparator.reverseOrder()))
+                            .limit(maxResults)
+                            .collect(Collectors.toList());
+    }
+
+    /** Location matches count double, and a match at the start of a word counts double again. */
+    private static double score(List<String> terms, ClaimSearchResultDTO result) {
+        List<String> locationWords = words(result.getLocation());
+        List<String> descriptionWords = words(result.getDescription());
+        double score = 0;
+        for (String term : terms) {
+            score += 2 * weight(term, locationWords) + weight(term, descriptionWords);
+        }
+        return score;
+    }
+
+    private static double weight(String term, List<String> words) {
+        if (words.stream().anyMatch(word -> word.startsWith(term))) {
+            return 1;
+        }
+        return words.stream().anyMatch(word -> word.contains(term)) ? 0.5 : 0;
+    }
+
+    private static List<String> words(String value) {
+        return value == null ? List.of() : tokenizeWords(value);
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            throw new BusinessValidationException("Search text is required");
+        }
+        if (text.length() > MAX_QUERY_LENGTH) {
+            throw new BusinessValidationException("Search text must be at most " + MAX_QUERY_LENGTH + " characters");
+        }
+        List<String> terms = tokenizeWords(text).stream().distinct().toList();
+        if (terms.isEmpty()) {
+            throw new BusinessValidationException("Search text must contain letters or digits");
+        }
+        if (terms.size() > MAX_TERMS) {
+            throw new BusinessValidationException("Search text may contain at most " + MAX_TERMS + " words");
+        }
+        return terms;
+    }
+
+    private static List<String> tokenizeWords(String value) {
+        return Arrays.stream(SEPARATORS.split(value.toLowerCase(Locale.ROOT)))
+                     .filter(word -> !word.isEmpty())
+                     .toList();
+    }
+
+    private static ClaimSearchResultDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new ClaimSearchResultDTO(rs.getLong("id"),
+                                        rs.getString("location"),
+                                        rs.getString("description"),
+                                        rs.getDouble("latitude"),
+                                        rs.getDouble("longitude"),
+                                        valueOf(ClaimStatus.class, rs.getString("status")),
+                                        valueOf(SeverityLevel.class, rs.getString("severity")),
+                                        valueOf(DetectionType.class, rs.getString("detection_type")),
+                                        createdAt == null ? null : createdAt.toLocalDateTime(),
+                                        rs.getDouble("score"));
+    }
+
+    private static <E extends Enum<E>> E valueOf(Class<E> type, String name) {
+        return name == null ? null : Enum.valueOf(type, name);
+    }
+}
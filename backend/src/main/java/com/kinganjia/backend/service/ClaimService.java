@@ -1,17 +1,33 @@
 package com.kinganjia.backend.service;
 
+import com.kinganjia.backend.dto.ClaimFilterDTO;
 import com.kinganjia.backend.dto.ClaimRequestDTO;
 import com.kinganjia.backend.dto.ClaimResponseDTO;
+import com.kinganjia.backend.dto.CursorPageDTO;
+import com.kinganjia.backend.event.ClaimChangeEvent;
+import com.kinganjia.backend.event.ClaimSnapshot;
+import com.kinganjia.backend.exception.BusinessValidationException;
 import com.kinganjia.backend.exception.ResourceNotFoundException;
 import com.kinganjia.backend.mapper.ClaimMapper;
 import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.model.SeverityLevel;
+import com.kinganjia.backend.repository.ChangeLogRepository;
+import com.kinganjia.backend.repository.ClaimCursor;
 import com.kinganjia.backend.repository.ClaimRepository;
+import com.kinganjia.backend.repository.ClaimSpecifications;
+import com.kinganjia.backend.repository.ImageRepository;
 import com.kinganjia.backend.repository.UserRepository;
+import com.kinganjia.backend.repository.VersionSummary;
+import com.kinganjia.backend.util.ResourceVersion;
+import com.kinganjia.backend.util.Versioned;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -19,58 +35,175 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 public class ClaimService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
     private final ClaimRepository claimRepository;
     private final ClaimMapper claimMapper;
     private final UserRepository userRepository;
+    private final ImageRepository imageRepository;
+    private final ChangeLogRepository changeLogRepository;
+    private final HazardClusterService hazardClusterService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public List<ClaimResponseDTO> getAllClaims() {
+    @Transactional(readOnly = true)
+    public Versioned<List<ClaimResponseDTO>> getAllClaims() {
+        long changeMarker = changeLogRepository.findLatestSeq();
         List<Claim> claims = claimRepository.findAll();
-        return claims.stream().map(claimMapper::toResponse).collect(Collectors.toList());
+        List<ClaimResponseDTO> body = claims.stream().map(claimMapper::toResponse).collect(Collectors.toList());
+        ResourceVersion version = ResourceVersion.ofCollection("claims", changeMarker)
+                                                 .add(claims)
+                                                 .add(claims.stream().map(Claim::getUser).toList())
+                                                 .add(claims.stream().flatMap(claim -> claim.getImages().stream())
+                                                            .toList())
+                                                 .build();
+        return new Versioned<>(body, version);
     }
 
-    public ClaimResponseDTO getClaimById(Long id) {
-        Claim claim = claimRepository.findById(id).orElseThrow(() -> new RuntimeException("Claim not found"));
-        return claimMapper.toResponse(claim);
+    /** The validators of {@link #getAllClaims()}, from the change log head and three aggregate queries. */
+    @Transactional(readOnly = true)
+    public ResourceVersion getAllClaimsVersion() {
+        return ResourceVersion.ofCollection("claims", changeLogRepository.findLatestSeq())
+                              .add(claimRepository.summarizeAll())
+                              .add(userRepository.summarizeClaimants())
+                              .add(imageRepository.summarizeAll())
+                              .build();
     }
 
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ClaimResponseDTO> getClaimsPage(ClaimFilterDTO filter, String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new BusinessValidationException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        ClaimCursor after = cursor == null || cursor.isBlank() ? null : ClaimCursor.decode(cursor);
+
+        // Fetch one extra row to learn whether another page exists without a count query
+        List<Claim> rows = claimRepository.findBy(
+                ClaimSpecifications.matching(filter).and(ClaimSpecifications.after(after)),
+                query -> query.sortBy(ClaimSpecifications.KEYSET_SORT)
+                              .project("user")
+                              .limit(pageSize + 1)
+                              .all());
+
+        boolean hasMore = rows.size() > pageSize;
+        List<Claim> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            Claim last = page.get(page.size() - 1);
+            nextCursor = new ClaimCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPageDTO<>(page.stream().map(claimMapper::toResponse).collect(Collectors.toList()),
+                                   nextCursor, hasMore);
+    }
+
+    @Transactional(readOnly = true)
+    public Versioned<ClaimResponseDTO> getClaimById(Long id) {
+        Claim claim = claimRepository.findDetailedById(id)
+                                     .orElseThrow(() -> new ResourceNotFoundException("Claim not found"));
+        ResourceVersion version = ResourceVersion.of("claim")
+                                                 .add(claim)
+                                                 .add(claim.getUser())
+                                                 .add(claim.getImages())
+                                                 .build();
+        return new Versioned<>(claimMapper.toResponse(claim), version);
+    }
+
+    /** The validators of {@link #getClaimById}, without loading the claim. */
+    @Transactional(readOnly = true)
+    public ResourceVersion getClaimVersion(Long id) {
+        VersionSummary claim = claimRepository.summarizeById(id);
+        if (claim.getTotal() == 0) {
+            throw new ResourceNotFoundException("Claim not found");
+        }
+        return ResourceVersion.of("claim")
+                              .add(claim)
+                              .add(userRepository.summarizeByClaimId(id))
+                              .add(imageRepository.summarizeByClaimId(id))
+                              .build();
+    }
+
+    @Transactional(readOnly = true)
     public List<ClaimResponseDTO> getClaimByUserIdl(Long id) {
         List<Claim> claims =claimRepository.findByUserId(id).orElseThrow(() -> new RuntimeException("Claim not found"));
         return claims.stream().map(claimMapper::toResponse).collect(Collectors.toList());
     }
 
+    @Transactional
     public ClaimResponseDTO createClaim(ClaimRequestDTO claimDTO) {
-        if (!userRepository.existsById(claimDTO.getUserId())) {
+        // A lookup by id, unlike an exists query, is served by the second-level cache
+        if (userRepository.findById(claimDTO.getUserId()).isEmpty()) {
             throw new ResourceNotFoundException("User not found");
         }
         log.info("Create claim DTO {}", claimDTO);
         Claim claim = claimMapper.toEntity(claimDTO);
+        hazardClusterService.assign(claim);
         log.info("Create claim {}", claim);
         Claim createdClaim = claimRepository.save(claim);
+        eventPublisher.publishEvent(ClaimChangeEvent.created(ClaimSnapshot.of(createdClaim)));
         return claimMapper.toResponse(createdClaim);
     }
 
+    @Transactional
     public ClaimResponseDTO updateClaim(Long id, ClaimRequestDTO claimDTO) {
         Claim existingClaim = findClaimById(id);
+        ClaimSnapshot before = ClaimSnapshot.of(existingClaim);
+        Double latitude = existingClaim.getLatitude();
+        Double longitude = existingClaim.getLongitude();
+        SeverityLevel severity = existingClaim.getSeverity();
         claimMapper.fullUpdateClaimFromDto(claimDTO, existingClaim);
+        reclusterIfChanged(existingClaim, latitude, longitude, severity);
         log.info("Claim update : {}",existingClaim);
         Claim updatedClaim = claimRepository.save(existingClaim);
+        eventPublisher.publishEvent(ClaimChangeEvent.updated(before, ClaimSnapshot.of(updatedClaim)));
         return claimMapper.toResponse(updatedClaim);
     }
 
+    @Transactional
     public ClaimResponseDTO partialUpdateClaim(Long id, ClaimRequestDTO claimUpdate) {
         Claim existingClaim = findClaimById(id);
+        ClaimSnapshot before = ClaimSnapshot.of(existingClaim);
+        Double latitude = existingClaim.getLatitude();
+        Double longitude = existingClaim.getLongitude();
+        SeverityLevel severity = existingClaim.getSeverity();
         claimMapper.updateClaimFromDto(claimUpdate,existingClaim);
+        reclusterIfChanged(existingClaim, latitude, longitude, severity);
         log.info("Claim partial update : {}",existingClaim);
         Claim updatedClaim = claimRepository.save(existingClaim);
+        eventPublisher.publishEvent(ClaimChangeEvent.updated(before, ClaimSnapshot.of(updatedClaim)));
         return claimMapper.toResponse(updatedClaim);
     }
 
+    @Transactional
     public void deleteClaim(Long id) {
-        claimRepository.deleteById(id);
+        claimRepository.findById(id).ifPresent(claim -> {
+            // Delete first so the claim row is gone before an emptied cluster is removed
+            claimRepository.delete(claim);
+            hazardClusterService.detach(claim, claim.getLatitude(), claim.getLongitude());
+            eventPublisher.publishEvent(ClaimChangeEvent.deleted(ClaimSnapshot.of(claim)));
+        });
     }
 
+    @Transactional
     public void deleteAllClaims() {
-        claimRepository.deleteAll();
+        List<Claim> claims = claimRepository.findAll();
+        claimRepository.deleteAll(claims);
+        // The bulk cluster delete only auto-flushes its own table, so the claim deletes must go first
+        claimRepository.flush();
+        hazardClusterService.deleteAllClusters();
+        claims.forEach(claim -> eventPublisher.publishEvent(ClaimChangeEvent.deleted(ClaimSnapshot.of(claim))));
+    }
+
+    private void reclusterIfChanged(Claim claim, Double previousLatitude, Double previousLongitude,
+                                    SeverityLevel previousSeverity) {
+        if (!Objects.equals(previousLatitude, claim.getLatitude())
+                || !Objects.equals(previousLongitude, claim.getLongitude())) {
+            // Re-assigning also brings both clusters' maximum severity up to date
+            hazardClusterService.detach(claim, previousLatitude, previousLongitude);
+            hazardClusterService.assign(claim);
+        } else if (previousSeverity != claim.getSeverity()) {
+            hazardClusterService.updateSeverity(claim, previousSeverity);
+        }
     }
 
     private Claim findClaimById(Long id){
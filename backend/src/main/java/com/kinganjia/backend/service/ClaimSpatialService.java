@@ -0,0 +1,168 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.dto.ClaimFilterDTO;
+import com.kinganjia.backend.dto.ClaimLocationDTO;
+import com.kinganjia.backend.dto.ClaimLocationsDTO;
+import com.kinganjia.backend.exception.BusinessValidationException;
+import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.repository.ClaimRepository;
+import com.kinganjia.backend.repository.ClaimSpecifications;
+import com.kinganjia.backend.util.GeoUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Radius and bounding-box lookups over claim coordinates, served from the
+ * {@code grid_cell} B-tree index (see {@link GeoUtils}).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClaimSpatialService {
+    public static final int DEFAULT_LIMIT = 1000;
+    public static final int MAX_LIMIT = 5000;
+    public static final double MAX_RADIUS_METERS = 50_000;
+    /**
+     * Cap on rows read by one box query of a radius search before distance sorting.
+     */
+    public static final int MAX_RADIUS_CANDIDATES = 20_000;
+    /**
+     * Box queries one radius search may issue while narrowing in on a dense area.
+     */
+    public static final int MAX_RADIUS_STEPS = 12;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ClaimRepository claimRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Claims within {@code radiusMeters}, nearest first. When the box around
+     * the full radius holds more than {@link #MAX_RADIUS_CANDIDATES} claims,
+     * the search narrows to the largest radius whose box can be read in full
+     * and still holds {@code limit} claims inside the circle; every claim
+     * outside that circle is farther than all those returned.
+     */
+    @Transactional(readOnly = true)
+    public List<ClaimLocationDTO> findWithinRadius(double latitude, double longitude, double radiusMeters,
+                                                   ClaimFilterDTO filter, Integer limit) {
+        validateCoordinates(latitude, longitude);
+        if (radiusMeters <= 0 || radiusMeters > MAX_RADIUS_METERS) {
+            throw new BusinessValidationException("Radius must be between 0 and " + (long) MAX_RADIUS_METERS + " metres");
+        }
+        int maxResults = resolveLimit(limit);
+
+        // Bisect between a radius whose circle holds too few claims and one whose box holds too many to read
+        double tooFew = 0;
+        double tooMany = Double.NaN;
+        double searchRadius = radiusMeters;
+        for (int step = 0; step < MAX_RADIUS_STEPS; step++) {
+            GeoUtils.BoundingBox box = GeoUtils.BoundingBox.around(latitude, longitude, searchRadius);
+            List<ClaimLocationDTO> candidates = query(box, filter, MAX_RADIUS_CANDIDATES + 1);
+            if (candidates.size() > MAX_RADIUS_CANDIDATES) {
+                tooMany = searchRadius;
+                searchRadius = (tooFew + tooMany) / 2;
+                continue;
+            }
+            // The box is a superset of the circle: trim the corners by exact distance, nearest first
+            double circle = searchRadius;
+            List<ClaimLocationDTO> within = candidates.stream()
+                                                      .peek(claim -> claim.setDistanceMeters(
+                                                              GeoUtils.distanceMeters(latitude, longitude,
+                                                                                      claim.getLatitude(),
+                                                                                      claim.getLongitude())))
+                                                      .filter(claim -> claim.getDistanceMeters() <= circle)
+                                                      .sorted(Comparator.comparingDouble(
+                                                              ClaimLocationDTO::getDistanceMeters))
+                                                      .collect(Collectors.toList());
+            if (within.size() >= maxResults || searchRadius >= radiusMeters) {
+                return within.size() > maxResults ? within.subList(0, maxResults) : within;
+            }
+            tooFew = searchRadius;
+            searchRadius = (tooFew + tooMany) / 2;
+        }
+        throw new BusinessValidationException("Too many claims around this point; lower the limit or narrow the filter");
+    }
+
+    /**
+     * Claims inside the box, flagged as truncated when more than {@code limit} match.
+     */
+    @Transactional(readOnly = true)
+    public ClaimLocationsDTO findWithinBox(double minLatitude, double minLongitude, double maxLatitude,
+                                           double maxLongitude, ClaimFilterDTO filter, Integer limit) {
+        validateCoordinates(minLatitude, minLongitude);
+        validateCoordinates(maxLatitude, maxLongitude);
+        if (minLatitude > maxLatitude || minLongitude > maxLongitude) {
+            throw new BusinessValidationException("Bounding box minimum must not exceed its maximum");
+        }
+        int maxResults = resolveLimit(limit);
+        GeoUtils.BoundingBox box = new GeoUtils.BoundingBox(minLatitude, minLongitude, maxLatitude, maxLongitude);
+        List<ClaimLocationDTO> claims = query(box, filter, maxResults + 1);
+        boolean truncated = claims.size() > maxResults;
+        return new ClaimLocationsDTO(truncated ? claims.subList(0, maxResults) : claims, truncated);
+    }
+
+    /**
+     * Fills {@code grid_cell} for rows written before the column existed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillGridCells() {
+        long updated = 0;
+        List<Claim> batch;
+        do {
+            batch = transactionTemplate.execute(status -> {
+                List<Claim> claims = claimRepository.findTop500ByGridCellIsNull();
+                claims.forEach(claim -> claim.setGridCell(GeoUtils.cellOf(claim.getLatitude(), claim.getLongitude())));
+                return claims;
+            });
+            updated += batch.size();
+        } while (batch.size() == 500);
+        if (updated > 0) {
+            log.info("Backfilled grid cells for {} claims", updated);
+        }
+    }
+
+    private List<ClaimLocationDTO> query(GeoUtils.BoundingBox box, ClaimFilterDTO filter, int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ClaimLocationDTO> query = cb.createQuery(ClaimLocationDTO.class);
+        Root<Claim> root = query.from(Claim.class);
+        Specification<Claim> spec = ClaimSpecifications.withinBox(box).and(ClaimSpecifications.matching(filter));
+        query.select(cb.construct(ClaimLocationDTO.class, root.get("id"), root.get("location"), root.get("latitude"),
+                                  root.get("longitude"), root.get("status"), root.get("severity")))
+             .where(spec.toPredicate(root, query, cb));
+
+        return entityManager.createQuery(query)
+                            .setMaxResults(maxResults)
+                            .getResultList();
+    }
+
+    private static int resolveLimit(Integer limit) {
+        int resolved = limit == null ? DEFAULT_LIMIT : limit;
+        if (resolved < 1 || resolved > MAX_LIMIT) {
+            throw new BusinessValidationException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return resolved;
+    }
+
+    private static void validateCoordinates(double latitude, double longitude) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new BusinessValidationException("Coordinates out of range");
+        }
+    }
+}
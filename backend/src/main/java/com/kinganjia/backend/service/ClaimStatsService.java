@@ -0,0 +1,238 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.config.AdvisoryLocks;
+import com.kinganjia.backend.config.DatabasePlatform;
+import com.kinganjia.backend.dto.ClaimStatsDTO;
+import com.kinganjia.backend.event.CommitBuffer;
+import com.kinganjia.backend.event.ClaimChangeEvent;
+import com.kinganjia.backend.event.ClaimSnapshot;
+import com.kinganjia.backend.exception.BusinessValidationException;
+import com.kinganjia.backend.model.ClaimStat;
+import com.kinganjia.backend.model.StatDimension;
+import com.kinganjia.backend.repository.ClaimRepository;
+import com.kinganjia.backend.repository.ClaimStatRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Dashboard counters kept in {@code claim_stats}. Claim changes are folded
+ * into per-transaction deltas and applied once, as the last writes of the
+ * claim transaction, so the counters commit atomically with the claims and
+ * hot counter rows are only locked while that transaction commits. A
+ * periodic reconciliation recounts the claims table and corrects any drift
+ * (e.g. from rows edited outside the API) with deltas of its own.
+ */
+@Service
+@Slf4j
+public class ClaimStatsService {
+
+    public static final int DEFAULT_DAYS = 30;
+    public static final int MAX_DAYS = 366;
+    private static final String UNSPECIFIED = "UNSPECIFIED";
+    private static final String TOTAL = "ALL";
+
+    private static final String POSTGRES_UPSERT = """
+            insert into claim_stats (dimension, bucket, claim_count) values (?, ?, ?)
+            on conflict (dimension, bucket) do update set claim_count = claim_stats.claim_count + excluded.claim_count
+            """;
+    private static final String UPDATE = "update claim_stats set claim_count = claim_count + ? where dimension = ? and bucket = ?";
+    private static final String INSERT = "insert into claim_stats (dimension, bucket, claim_count) values (?, ?, ?)";
+
+    private record Bucket(StatDimension dimension, String bucket) {
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ClaimStatRepository statRepository;
+    private final ClaimRepository claimRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final AdvisoryLocks advisoryLocks;
+    private final CommitBuffer<Map<Bucket, Long>> deltas = new CommitBuffer<>(HashMap::new, this::apply);
+    private volatile LocalDateTime reconciledAt;
+
+    public ClaimStatsService(ClaimStatRepository statRepository,
+                             ClaimRepository claimRepository,
+                             DataSource dataSource,
+                             DatabasePlatform databasePlatform,
+                             AdvisoryLocks advisoryLocks,
+                             PlatformTransactionManager transactionManager) {
+        this.statRepository = statRepository;
+        this.claimRepository = claimRepository;
+        this.databasePlatform = databasePlatform;
+        this.advisoryLocks = advisoryLocks;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        snapshotTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshotTemplate.setReadOnly(true);
+    }
+
+    @EventListener
+    public void onClaimChange(ClaimChangeEvent event) {
+        deltas.record(pending -> {
+            if (event.before() != null) {
+                buckets(event.before()).forEach(bucket -> pending.merge(bucket, -1L, Long::sum));
+            }
+            if (event.after() != null) {
+                buckets(event.after()).forEach(bucket -> pending.merge(bucket, 1L, Long::sum));
+            }
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public ClaimStatsDTO getStats(Integer days) {
+        int window = days == null ? DEFAULT_DAYS : days;
+        if (window < 1 || window > MAX_DAYS) {
+            throw new BusinessValidationException("Days must be between 1 and " + MAX_DAYS);
+        }
+        String fromDay = LocalDate.now().minusDays(window - 1L).toString();
+
+        long total = 0;
+        Map<String, Long> byStatus = new TreeMap<>();
+        Map<String, Long> bySeverity = new TreeMap<>();
+        Map<String, Long> byDetectionType = new TreeMap<>();
+        Map<String, Long> byDay = new TreeMap<>();
+        for (ClaimStat stat : statRepository.findForDashboard(StatDimension.DAY, fromDay)) {
+            long count = stat.getClaimCount();
+            if (count == 0) {
+                continue;
+            }
+            String bucket = stat.getKey().getBucket();
+            switch (stat.getKey().getDimension()) {
+                case TOTAL -> total = count;
+                case STATUS -> byStatus.put(bucket, count);
+                case SEVERITY -> bySeverity.put(bucket, count);
+                case DETECTION_TYPE -> byDetectionType.put(bucket, count);
+                case DAY -> byDay.put(bucket, count);
+            }
+        }
+        return new ClaimStatsDTO(total, byStatus, bySeverity, byDetectionType, byDay, reconciledAt);
+    }
+
+    /**
+     * Recounts every dimension from the claims table and adds the difference
+     * to the counters. Runs at startup and then periodically, on one node at a
+     * time: a node that finds another one reconciling skips the round. The
+     * recount and the counters are read in one snapshot, where they agree
+     * unless something drifted, and the drift is applied like any claim
+     * transaction's deltas, so claim writers are never blocked and deltas
+     * committed meanwhile are kept.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.stats.reconcile-interval:PT15M}",
+               initialDelayString = "${app.stats.reconcile-interval:PT15M}")
+    public void reconcile() {
+        Integer corrected = transactionTemplate.execute(status -> {
+            if (!advisoryLocks.tryLock(AdvisoryLocks.Space.CLAIM_STATS, 0)) {
+                return null;
+            }
+            Map<Bucket, Long> drift = snapshotTemplate.execute(snapshot -> drift());
+            drift.values().removeIf(delta -> delta == 0);
+            apply(drift);
+            return drift.size();
+        });
+        if (corrected == null) {
+            log.debug("Claim statistics are being reconciled by another node");
+            return;
+        }
+        reconciledAt = LocalDateTime.now();
+        log.info("Reconciled claim statistics, {} counters corrected", corrected);
+    }
+
+    private Map<Bucket, Long> drift() {
+        Map<Bucket, Long> drift = new HashMap<>();
+        drift.put(new Bucket(StatDimension.TOTAL, TOTAL), claimRepository.count());
+        claimRepository.countByStatus().forEach(row -> count(drift, StatDimension.STATUS, row));
+        claimRepository.countBySeverity().forEach(row -> count(drift, StatDimension.SEVERITY, row));
+        claimRepository.countByDetectionType().forEach(row -> count(drift, StatDimension.DETECTION_TYPE, row));
+        claimRepository.countByDay().forEach(row -> count(drift, StatDimension.DAY, row));
+        for (ClaimStat stat : statRepository.findAll()) {
+            ClaimStat.Key key = stat.getKey();
+            drift.merge(new Bucket(key.getDimension(), key.getBucket()), -stat.getClaimCount(), Long::sum);
+        }
+        return drift;
+    }
+
+    private void apply(Map<Bucket, Long> deltas) {
+        List<Map.Entry<Bucket, Long>> changes = deltas.entrySet()
+                                                      .stream()
+                                                      .filter(entry -> entry.getValue() != 0)
+                                                      // A fixed order keeps concurrent appliers from deadlocking
+                                                      .sorted(Comparator.comparing((Map.Entry<Bucket, Long> entry) ->
+                                                                                           entry.getKey().dimension())
+                                                                        .thenComparing(entry -> entry.getKey().bucket()))
+                                                      .toList();
+        if (changes.isEmpty()) {
+            return;
+        }
+        // Claim rows are locked in the flush before any counter row, so writers never wait on each other crosswise
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            entityManager.flush();
+        }
+        if (databasePlatform.isPostgres()) {
+            jdbcTemplate.batchUpdate(POSTGRES_UPSERT, changes.stream()
+                                                             .map(change -> new Object[]{
+                                                                     change.getKey().dimension().name(),
+                                                                     change.getKey().bucket(),
+                                                                     change.getValue()})
+                                                             .toList());
+            return;
+        }
+        changes.forEach(change -> increment(change.getKey(), change.getValue()));
+    }
+
+    private void increment(Bucket bucket, long delta) {
+        String dimension = bucket.dimension().name();
+        if (jdbcTemplate.update(UPDATE, delta, dimension, bucket.bucket()) == 0) {
+            jdbcTemplate.update(INSERT, dimension, bucket.bucket(), delta);
+        }
+    }
+
+    private static List<Bucket> buckets(ClaimSnapshot claim) {
+        List<Bucket> buckets = new ArrayList<>(5);
+        buckets.add(new Bucket(StatDimension.TOTAL, TOTAL));
+        buckets.add(new Bucket(StatDimension.STATUS, name(claim.status())));
+        buckets.add(new Bucket(StatDimension.SEVERITY, name(claim.severity())));
+        buckets.add(new Bucket(StatDimension.DETECTION_TYPE, name(claim.detectionType())));
+        if (claim.createdAt() != null) {
+            buckets.add(new Bucket(StatDimension.DAY, claim.createdAt().toLocalDate().toString()));
+        }
+        return buckets;
+    }
+
+    private static void count(Map<Bucket, Long> counts, StatDimension dimension, ClaimRepository.BucketCount row) {
+        Object bucket = row.getBucket();
+        String name = bucket instanceof Enum<?> value ? value.name() : name(bucket);
+        counts.merge(new Bucket(dimension, name), row.getTotal(), Long::sum);
+    }
+
+    private static String name(Object value) {
+        return value == null ? UNSPECIFIED : value.toString();
+    }
+}
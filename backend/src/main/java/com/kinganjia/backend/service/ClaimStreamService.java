@@ -0,0 +1,338 @@
+package com.kinganjia.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kinganjia.backend.config.DatabasePlatform;
+import com.kinganjia.backend.config.NotificationListener;
+import com.kinganjia.backend.dto.ClaimEventDTO;
+import com.kinganjia.backend.dto.ClaimFilterDTO;
+import com.kinganjia.backend.event.ClaimChangeEvent;
+import com.kinganjia.backend.event.ClaimSnapshot;
+import com.kinganjia.backend.event.CommitBuffer;
+import com.kinganjia.backend.exception.BusinessValidationException;
+import com.kinganjia.backend.exception.ServiceBusyException;
+import com.kinganjia.backend.util.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes committed claim changes to Server-Sent Events subscribers. On
+ * PostgreSQL every node sends its claim changes with {@code pg_notify} just
+ * before the writing transaction commits, so they are delivered exactly when
+ * they become visible and dropped on rollback, and every node LISTENs for
+ * them: a subscriber sees the changes made through any node. Elsewhere a
+ * node only sees its own changes, after commit.
+ * <p>
+ * Each change is offered to the bounded queue of every subscriber whose
+ * filter it matches, which never blocks the receiving thread; a virtual
+ * thread per subscriber drains its queue onto the connection. A subscriber
+ * that falls a full buffer behind, or that was connected while the node was
+ * not listening, loses its backlog and receives a {@code resync} event
+ * instead, on which it should catch up through the change feed.
+ */
+@Service
+@Slf4j
+public class ClaimStreamService {
+
+    public static final String CHANNEL = "claim_events";
+
+    // Queue marker for a dropped backlog; compared by identity
+    private static final ClaimEventDTO RESYNC = new ClaimEventDTO();
+    // NOTIFY payloads must stay below 8000 bytes
+    private static final int MAX_PAYLOAD_BYTES = 7_900;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger threadNumber = new AtomicInteger();
+    private final Counter resyncs;
+    private final DatabasePlatform databasePlatform;
+    private final DataSourceProperties dataSourceProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final Duration timeout;
+    private final Duration heartbeat;
+    private final CommitBuffer<List<ClaimChangeEvent>> changes;
+    private NotificationListener listener;
+
+    public ClaimStreamService(MeterRegistry meterRegistry,
+                              DatabasePlatform databasePlatform,
+                              DataSource dataSource,
+                              DataSourceProperties dataSourceProperties,
+                              ObjectMapper objectMapper,
+                              @Value("${app.stream.buffer-size:256}") int bufferSize,
+                              @Value("${app.stream.max-subscribers:1000}") int maxSubscribers,
+                              @Value("${app.stream.timeout:PT30M}") Duration timeout,
+                              @Value("${app.stream.heartbeat:PT20S}") Duration heartbeat) {
+        this.databasePlatform = databasePlatform;
+        this.dataSourceProperties = dataSourceProperties;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeout = timeout;
+        this.heartbeat = heartbeat;
+        // Sent to every node just before commit on PostgreSQL, delivered on this node after commit elsewhere
+        this.changes = new CommitBuffer<>(ArrayList::new, pending -> {
+            if (databasePlatform.isPostgres()) {
+                publish(pending);
+            }
+        }, pending -> {
+            if (!databasePlatform.isPostgres()) {
+                publish(pending);
+            }
+        });
+        Gauge.builder("claims.stream.subscribers", subscribers, Set::size)
+             .description("Open claim event streams")
+             .register(meterRegistry);
+        this.resyncs = Counter.builder("claims.stream.resyncs")
+                              .description("Backlogs dropped because a subscriber fell a full buffer behind")
+                              .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream of claim changes matching {@code filter} and, when all
+     * four bounds are given, lying inside the bounding box.
+     */
+    public SseEmitter subscribe(ClaimFilterDTO filter, Double minLatitude, Double minLongitude, Double maxLatitude,
+                                Double maxLongitude) {
+        GeoUtils.BoundingBox box = box(minLatitude, minLongitude, maxLatitude, maxLongitude);
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceBusyException("Too many open claim streams");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, filter == null ? new ClaimFilterDTO() : filter, box,
+                                               new ArrayBlockingQueue<>(bufferSize));
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> close(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(error -> close(subscriber));
+        subscriber.sender = Thread.ofVirtual()
+                                  .name("claim-stream-" + threadNumber.incrementAndGet())
+                                  .start(() -> send(subscriber));
+        return emitter;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (listener != null || !databasePlatform.isPostgres()) {
+            return;
+        }
+        listener = new NotificationListener(CHANNEL, dataSourceProperties, this::resyncAll, this::receive);
+        listener.start();
+    }
+
+    @EventListener
+    public void onClaimChange(ClaimChangeEvent event) {
+        changes.record(pending -> pending.add(event));
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (listener != null) {
+            listener.stop();
+        }
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Sends the changes to every node on PostgreSQL, on the current
+     * transaction's connection; elsewhere delivers them on this node.
+     */
+    private void publish(List<ClaimChangeEvent> changes) {
+        if (!databasePlatform.isPostgres()) {
+            changes.forEach(this::deliver);
+            return;
+        }
+        StringBuilder payload = new StringBuilder();
+        for (ClaimChangeEvent change : changes) {
+            String line;
+            try {
+                line = objectMapper.writeValueAsString(change) + '\n';
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Cannot serialize claim change " + change.claimId(), e);
+            }
+            if (payload.length() + line.length() > MAX_PAYLOAD_BYTES) {
+                notify(payload);
+            }
+            payload.append(line);
+        }
+        notify(payload);
+    }
+
+    private void notify(StringBuilder payload) {
+        if (payload.isEmpty()) {
+            return;
+        }
+        String message = payload.toString();
+        jdbcTemplate.execute("select pg_notify(?, ?)", (PreparedStatementCallback<Boolean>) statement -> {
+            statement.setString(1, CHANNEL);
+            statement.setString(2, message);
+            return statement.execute();
+        });
+        payload.setLength(0);
+    }
+
+    private void receive(String payload) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        for (String line : payload.split("\n")) {
+            try {
+                deliver(objectMapper.readValue(line, ClaimChangeEvent.class));
+            } catch (JsonProcessingException e) {
+                log.error("Cannot read claim change notification, resynchronizing subscribers", e);
+                resyncAll();
+                return;
+            }
+        }
+    }
+
+    private void deliver(ClaimChangeEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        ClaimSnapshot claim = event.after() != null ? event.after() : event.before();
+        ClaimEventDTO message = new ClaimEventDTO(event.type(), claim.id(), claim.status(), claim.severity(),
+                                                  claim.detectionType(), claim.latitude(), claim.longitude(),
+                                                  claim.createdAt());
+        for (Subscriber subscriber : subscribers) {
+            // Either side matching counts, so subscribers also see claims leaving their filter
+            if (subscriber.matches(event.before()) || subscriber.matches(event.after())) {
+                subscriber.offer(message, resyncs);
+            }
+        }
+    }
+
+    // Changes sent while this node was not listening are lost
+    private void resyncAll() {
+        subscribers.forEach(subscriber -> subscriber.resync(resyncs));
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            subscriber.emitter.send(SseEmitter.event().comment("connected"));
+            while (!subscriber.closed) {
+                ClaimEventDTO message = subscriber.queue.poll(heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+                if (message == null) {
+                    subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+                } else if (message == RESYNC) {
+                    subscriber.emitter.send(SseEmitter.event().name("resync").data("overflow"));
+                } else {
+                    subscriber.emitter.send(SseEmitter.event().name("claim").data(message, MediaType.APPLICATION_JSON));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Claim stream closed: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close(subscriber);
+            subscriber.emitter.complete();
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        subscriber.closed = true;
+        if (subscribers.remove(subscriber) && subscriber.sender != null
+                && subscriber.sender != Thread.currentThread()) {
+            subscriber.sender.interrupt();
+        }
+    }
+
+    private static GeoUtils.BoundingBox box(Double minLatitude, Double minLongitude, Double maxLatitude,
+                                            Double maxLongitude) {
+        int given = (minLatitude != null ? 1 : 0) + (minLongitude != null ? 1 : 0) + (maxLatitude != null ? 1 : 0)
+                + (maxLongitude != null ? 1 : 0);
+        if (given == 0) {
+            return null;
+        }
+        if (given < 4) {
+            throw new BusinessValidationException("A bounding box needs minLat, minLon, maxLat and maxLon");
+        }
+        if (Math.abs(minLatitude) > 90 || Math.abs(maxLatitude) > 90 || Math.abs(minLongitude) > 180
+                || Math.abs(maxLongitude) > 180) {
+            throw new BusinessValidationException("Coordinates out of range");
+        }
+        if (minLatitude > maxLatitude || minLongitude > maxLongitude) {
+            throw new BusinessValidationException("Bounding box minimum must not exceed its maximum");
+        }
+        return new GeoUtils.BoundingBox(minLatitude, minLongitude, maxLatitude, maxLongitude);
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final ClaimFilterDTO filter;
+        private final GeoUtils.BoundingBox box;
+        private final BlockingQueue<ClaimEventDTO> queue;
+        private volatile Thread sender;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, ClaimFilterDTO filter, GeoUtils.BoundingBox box,
+                           BlockingQueue<ClaimEventDTO> queue) {
+            this.emitter = emitter;
+            this.filter = filter;
+            this.box = box;
+            this.queue = queue;
+        }
+
+        private boolean matches(ClaimSnapshot claim) {
+            if (claim == null) {
+                return false;
+            }
+            if (filter.getStatus() != null && filter.getStatus() != claim.status()) {
+                return false;
+            }
+            if (filter.getSeverity() != null && filter.getSeverity() != claim.severity()) {
+                return false;
+            }
+            if (filter.getDetectionType() != null && filter.getDetectionType() != claim.detectionType()) {
+                return false;
+            }
+            if (filter.getFrom() != null && (claim.createdAt() == null || claim.createdAt().isBefore(filter.getFrom()))) {
+                return false;
+            }
+            if (filter.getTo() != null && (claim.createdAt() == null || !claim.createdAt().isBefore(filter.getTo()))) {
+                return false;
+            }
+            return box == null || (claim.latitude() != null && claim.longitude() != null
+                    && box.contains(claim.latitude(), claim.longitude()));
+        }
+
+        private void offer(ClaimEventDTO message, Counter resyncs) {
+            if (!queue.offer(message)) {
+                resync(resyncs);
+            }
+        }
+
+        private void resync(Counter resyncs) {
+            queue.clear();
+            queue.offer(RESYNC);
+            resyncs.increment();
+        }
+    }
+}
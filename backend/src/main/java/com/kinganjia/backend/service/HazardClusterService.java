@@ -0,0 +1,276 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.config.AdvisoryLocks;
+import com.kinganjia.backend.config.ClusteredCacheRegionFactory;
+import com.kinganjia.backend.dto.ClaimSummaryDTO;
+import com.kinganjia.backend.dto.HazardClusterDTO;
+import com.kinganjia.backend.event.ClaimChangeEvent;
+import com.kinganjia.backend.event.ClaimSnapshot;
+import com.kinganjia.backend.exception.BusinessValidationException;
+import com.kinganjia.backend.exception.ResourceNotFoundException;
+import com.kinganjia.backend.mapper.HazardClusterMapper;
+import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.HazardCluster;
+import com.kinganjia.backend.model.SeverityLevel;
+import com.kinganjia.backend.repository.ClaimRepository;
+import com.kinganjia.backend.repository.HazardClusterRepository;
+import com.kinganjia.backend.util.GeoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Incrementally groups claims into hazard clusters: a new claim joins the
+ * nearest cluster whose centroid is within {@code app.clusters.radius-meters}
+ * and that received a report within {@code app.clusters.window}, otherwise
+ * it starts a new one. Centroids and member counts are maintained as running
+ * means, so no claim history is re-read. Reports are assigned one at a
+ * time per neighbourhood of grid cells, on every node.
+ */
+@Service
+@Slf4j
+public class HazardClusterService {
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private final HazardClusterRepository clusterRepository;
+    private final ClaimRepository claimRepository;
+    private final HazardClusterMapper clusterMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AdvisoryLocks advisoryLocks;
+    private final double radiusMeters;
+    private final Duration window;
+
+    public HazardClusterService(HazardClusterRepository clusterRepository,
+                                ClaimRepository claimRepository,
+                                HazardClusterMapper clusterMapper,
+                                TransactionTemplate transactionTemplate,
+                                ApplicationEventPublisher eventPublisher,
+                                AdvisoryLocks advisoryLocks,
+                                @Value("${app.clusters.radius-meters:25}") double radiusMeters,
+                                @Value("${app.clusters.window:P7D}") Duration window) {
+        this.clusterRepository = clusterRepository;
+        this.claimRepository = claimRepository;
+        this.clusterMapper = clusterMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.advisoryLocks = advisoryLocks;
+        this.radiusMeters = radiusMeters;
+        this.window = window;
+    }
+
+    /**
+     * Attaches {@code claim} to its cluster. Runs inside the caller's transaction
+     * so the claim and the cluster counters commit together.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void assign(Claim claim) {
+        double latitude = claim.getLatitude();
+        double longitude = claim.getLongitude();
+        LocalDateTime reportedAt = claim.getCreatedAt() != null ? claim.getCreatedAt() : LocalDateTime.now();
+
+        // Row locks only cover clusters that exist: without the cell locks, concurrent first reports of the
+        // same hazard would each find nothing and start a cluster of their own
+        List<Long> cells = GeoUtils.neighbourCells(latitude, longitude);
+        advisoryLocks.lock(AdvisoryLocks.Space.CLUSTER_CELL, cells);
+        HazardCluster nearest = null;
+        double nearestDistance = radiusMeters;
+        for (HazardCluster candidate : clusterRepository.findOpenForUpdate(cells, reportedAt.minus(window))) {
+            double distance = GeoUtils.distanceMeters(latitude, longitude, candidate.getCentroidLatitude(),
+                                                      candidate.getCentroidLongitude());
+            if (distance <= nearestDistance) {
+                nearest = candidate;
+                nearestDistance = distance;
+            }
+        }
+
+        if (nearest == null) {
+            nearest = clusterRepository.save(HazardCluster.builder()
+                                                          .centroidLatitude(latitude)
+                                                          .centroidLongitude(longitude)
+                                                          .memberCount(1)
+                                                          .maxSeverity(claim.getSeverity())
+                                                          .status(ClaimStatus.PENDING)
+                                                          .firstReportedAt(reportedAt)
+                                                          .lastReportedAt(reportedAt)
+                                                          .build());
+        } else {
+            int members = nearest.getMemberCount() + 1;
+            nearest.setMemberCount(members);
+            nearest.setCentroidLatitude(nearest.getCentroidLatitude()
+                                                + (latitude - nearest.getCentroidLatitude()) / members);
+            nearest.setCentroidLongitude(nearest.getCentroidLongitude()
+                                                 + (longitude - nearest.getCentroidLongitude()) / members);
+            nearest.setMaxSeverity(max(nearest.getMaxSeverity(), claim.getSeverity()));
+            if (reportedAt.isAfter(nearest.getLastReportedAt())) {
+                nearest.setLastReportedAt(reportedAt);
+            }
+            if (reportedAt.isBefore(nearest.getFirstReportedAt())) {
+                nearest.setFirstReportedAt(reportedAt);
+            }
+        }
+        claim.setCluster(nearest);
+    }
+
+    /**
+     * Removes a claim reported at the given coordinates from its cluster,
+     * deleting the cluster when it becomes empty.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void detach(Claim claim, double latitude, double longitude) {
+        if (claim.getCluster() == null) {
+            return;
+        }
+        Long clusterId = claim.getCluster().getId();
+        claim.setCluster(null);
+        HazardCluster cluster = clusterRepository.findByIdForUpdate(clusterId).orElse(null);
+        if (cluster == null) {
+            return;
+        }
+        int members = cluster.getMemberCount() - 1;
+        if (members <= 0) {
+            clusterRepository.delete(cluster);
+            return;
+        }
+        cluster.setCentroidLatitude((cluster.getCentroidLatitude() * (members + 1) - latitude) / members);
+        cluster.setCentroidLongitude((cluster.getCentroidLongitude() * (members + 1) - longitude) / members);
+        cluster.setMemberCount(members);
+        cluster.setMaxSeverity(claimRepository.findSeveritiesByClusterId(clusterId)
+                                              .stream()
+                                              .max(Comparator.naturalOrder())
+                                              .orElse(null));
+    }
+
+    /**
+     * Keeps the cluster's maximum severity in step after a member claim's
+     * severity was edited: a raise is applied directly, lowering the claim
+     * that held the maximum recounts it from the members.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void updateSeverity(Claim claim, SeverityLevel previousSeverity) {
+        if (claim.getCluster() == null) {
+            return;
+        }
+        Long clusterId = claim.getCluster().getId();
+        HazardCluster cluster = clusterRepository.findByIdForUpdate(clusterId).orElse(null);
+        if (cluster == null) {
+            return;
+        }
+        SeverityLevel raised = max(cluster.getMaxSeverity(), claim.getSeverity());
+        if (raised != cluster.getMaxSeverity()) {
+            cluster.setMaxSeverity(raised);
+        } else if (previousSeverity == cluster.getMaxSeverity()) {
+            cluster.setMaxSeverity(claimRepository.findSeveritiesByClusterId(clusterId)
+                                                  .stream()
+                                                  .max(Comparator.naturalOrder())
+                                                  .orElse(null));
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteAllClusters() {
+        clusterRepository.deleteAllInBatch();
+    }
+
+    @Transactional(readOnly = true)
+    public List<HazardClusterDTO> getClusters(ClaimStatus status, Integer minMembers, Integer page, Integer size) {
+        int pageSize = size == null ? 50 : size;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new BusinessValidationException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return clusterRepository.search(status, minMembers == null ? 1 : minMembers,
+                                        PageRequest.of(page == null ? 0 : page, pageSize))
+                                .stream()
+                                .map(clusterMapper::toResponse)
+                                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public HazardClusterDTO getClusterById(Long id) {
+        return clusterMapper.toResponse(findClusterById(id));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ClaimSummaryDTO> getClusterClaims(Long id) {
+        findClusterById(id);
+        return claimRepository.findByClusterIdOrderByCreatedAtDesc(id)
+                              .stream()
+                              .map(clusterMapper::toClaimSummary)
+                              .collect(Collectors.toList());
+    }
+
+    /**
+     * Moderates a whole cluster at once: the status is applied to the cluster
+     * and to every member claim with a single update statement.
+     */
+    @Transactional
+    public HazardClusterDTO updateClusterStatus(Long id, ClaimStatus status) {
+        HazardCluster cluster = clusterRepository.findByIdForUpdate(id)
+                                                 .orElseThrow(() -> new ResourceNotFoundException(
+                                                         "Cluster not found with id: " + id));
+        LocalDateTime now = LocalDateTime.now();
+        cluster.setStatus(status);
+        List<ClaimSnapshot> members = claimRepository.findSnapshotsByClusterId(id);
+        // The cluster row lock keeps claims from joining, so the members are exactly the rows updated
+        int updated = ClusteredCacheRegionFactory.evictingOnly(
+                members.stream().map(ClaimSnapshot::id).toList(),
+                () -> claimRepository.updateStatusByClusterId(id, status, status == ClaimStatus.PENDING ? null : now,
+                                                              now));
+        members.stream()
+               .filter(member -> member.status() != status)
+               .forEach(member -> eventPublisher.publishEvent(ClaimChangeEvent.updated(member,
+                                                                                       member.withStatus(status))));
+        log.info("Cluster {} set to {} ({} claims updated)", id, status, updated);
+        return clusterMapper.toResponse(cluster);
+    }
+
+    /**
+     * Clusters claims that were stored before clustering existed, oldest first,
+     * so the time window is applied in report order.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void clusterUnassignedClaims() {
+        long assigned = 0;
+        List<Claim> batch;
+        do {
+            batch = transactionTemplate.execute(status -> {
+                List<Claim> claims = claimRepository.findTop500ByClusterIsNullOrderByCreatedAtAscIdAsc();
+                claims.forEach(this::assign);
+                return claims;
+            });
+            assigned += batch.size();
+        } while (batch.size() == 500);
+        if (assigned > 0) {
+            log.info("Assigned {} existing claims to hazard clusters", assigned);
+        }
+    }
+
+    private HazardCluster findClusterById(Long id) {
+        return clusterRepository.findById(id)
+                                .orElseThrow(() -> new ResourceNotFoundException("Cluster not found with id: " + id));
+    }
+
+    private static SeverityLevel max(SeverityLevel a, SeverityLevel b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+}
@@ -0,0 +1,291 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.config.AdvisoryLocks;
+import com.kinganjia.backend.config.DatabasePlatform;
+import com.kinganjia.backend.dto.HeatmapCellDTO;
+import com.kinganjia.backend.dto.HeatmapTileDTO;
+import com.kinganjia.backend.event.CommitBuffer;
+import com.kinganjia.backend.event.ClaimChangeEvent;
+import com.kinganjia.backend.event.ClaimSnapshot;
+import com.kinganjia.backend.exception.BusinessValidationException;
+import com.kinganjia.backend.model.HeatmapCell;
+import com.kinganjia.backend.model.SeverityLevel;
+import com.kinganjia.backend.repository.ClaimRepository;
+import com.kinganjia.backend.repository.HeatmapCellRepository;
+import com.kinganjia.backend.util.TileMath;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Claim density tiles for the admin map. Every claim is counted in one cell
+ * per zoom level of a Web Mercator grid ({@code heatmap_cells}), with
+ * {@value #RESOLUTION}x{@value #RESOLUTION} cells per tile, so a tile is a
+ * single primary-key range read however many claims it covers. Claim changes
+ * are applied to the cells as the last writes of the claim transaction, like
+ * the dashboard counters; a periodic check rebuilds the grid from the claims
+ * table if its totals drift.
+ */
+@Service
+@Slf4j
+public class HeatmapService {
+
+    public static final int MAX_ZOOM = 16;
+    private static final int BIN_BITS = 5;
+    public static final int RESOLUTION = 1 << BIN_BITS;
+    private static final int MIN_LEVEL = BIN_BITS;
+    private static final int MAX_LEVEL = MAX_ZOOM + BIN_BITS;
+    private static final int REBUILD_BATCH_SIZE = 5000;
+
+    private static final String POSTGRES_UPSERT = """
+            insert into heatmap_cells (cell_level, cell_x, cell_y, claim_count, low_count, medium_count, high_count)
+            values (?, ?, ?, ?, ?, ?, ?)
+            on conflict (cell_level, cell_x, cell_y) do update set
+                claim_count = heatmap_cells.claim_count + excluded.claim_count,
+                low_count = heatmap_cells.low_count + excluded.low_count,
+                medium_count = heatmap_cells.medium_count + excluded.medium_count,
+                high_count = heatmap_cells.high_count + excluded.high_count
+            """;
+    private static final String UPDATE = """
+            update heatmap_cells set claim_count = claim_count + ?, low_count = low_count + ?,
+                medium_count = medium_count + ?, high_count = high_count + ?
+            where cell_level = ? and cell_x = ? and cell_y = ?
+            """;
+    private static final String INSERT = """
+            insert into heatmap_cells (cell_level, cell_x, cell_y, claim_count, low_count, medium_count, high_count)
+            values (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private record Cell(int level, int x, int y) {
+
+        Cell parent() {
+            return new Cell(level - 1, x >> 1, y >> 1);
+        }
+    }
+
+    private record Counts(long claims, long low, long medium, long high) {
+
+        static Counts of(SeverityLevel severity, long sign) {
+            return new Counts(sign,
+                              severity == SeverityLevel.LOW ? sign : 0,
+                              severity == SeverityLevel.MEDIUM ? sign : 0,
+                              severity == SeverityLevel.HIGH ? sign : 0);
+        }
+
+        Counts plus(Counts other) {
+            return new Counts(claims + other.claims, low + other.low, medium + other.medium, high + other.high);
+        }
+
+        boolean isZero() {
+            return claims == 0 && low == 0 && medium == 0 && high == 0;
+        }
+    }
+
+    private static final Comparator<Cell> CELL_ORDER = Comparator.comparingInt(Cell::level)
+                                                                 .thenComparingInt(Cell::x)
+                                                                 .thenComparingInt(Cell::y);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final HeatmapCellRepository cellRepository;
+    private final ClaimRepository claimRepository;
+    private final DatabasePlatform databasePlatform;
+    private final AdvisoryLocks advisoryLocks;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final CommitBuffer<Map<Cell, Counts>> deltas = new CommitBuffer<>(HashMap::new, this::apply);
+
+    public HeatmapService(HeatmapCellRepository cellRepository,
+                          ClaimRepository claimRepository,
+                          DatabasePlatform databasePlatform,
+                          AdvisoryLocks advisoryLocks,
+                          DataSource dataSource,
+                          PlatformTransactionManager transactionManager) {
+        this.cellRepository = cellRepository;
+        this.claimRepository = claimRepository;
+        this.databasePlatform = databasePlatform;
+        this.advisoryLocks = advisoryLocks;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        snapshotTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshotTemplate.setReadOnly(true);
+    }
+
+    @EventListener
+    public void onClaimChange(ClaimChangeEvent event) {
+        deltas.record(pending -> {
+            add(pending, event.before(), -1);
+            add(pending, event.after(), 1);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public HeatmapTileDTO getTile(int z, int x, int y) {
+        if (!TileMath.isValidTile(z, x, y, MAX_ZOOM)) {
+            throw new BusinessValidationException("Tile " + z + "/" + x + "/" + y + " does not exist; zoom must be"
+                                                          + " between 0 and " + MAX_ZOOM);
+        }
+        int minX = x << BIN_BITS;
+        int minY = y << BIN_BITS;
+        List<HeatmapCell> cells = cellRepository.findInRange(z + BIN_BITS, minX, minX + RESOLUTION - 1,
+                                                             minY, minY + RESOLUTION - 1);
+        long total = 0;
+        List<HeatmapCellDTO> bins = new ArrayList<>(cells.size());
+        for (HeatmapCell cell : cells) {
+            total += cell.getClaimCount();
+            bins.add(new HeatmapCellDTO(cell.getKey().getX() - minX, cell.getKey().getY() - minY,
+                                        cell.getClaimCount(), cell.getMaxSeverity()));
+        }
+        return new HeatmapTileDTO(z, x, y, RESOLUTION, total, bins);
+    }
+
+    /**
+     * Rebuilds the grid when its world totals, overall or for any severity, no
+     * longer match the claims table, e.g. on first start or after claims were
+     * edited outside the API. Both sides are read in one snapshot, so claims
+     * committed meanwhile never look like drift. Runs on one node at a time: a
+     * node that finds another one verifying skips the round.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.heatmap.verify-interval:PT15M}",
+               initialDelayString = "${app.heatmap.verify-interval:PT15M}")
+    public void verify() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!advisoryLocks.tryLock(AdvisoryLocks.Space.HEATMAP, 0)) {
+                log.debug("Heatmap grid is being verified by another node");
+                return;
+            }
+            if (Boolean.TRUE.equals(snapshotTemplate.execute(snapshot -> drifted()))) {
+                rebuild();
+            }
+        });
+    }
+
+    private boolean drifted() {
+        HeatmapCellRepository.LevelTotals cells = cellRepository.sumCounts(MIN_LEVEL);
+        Map<Object, Long> severities = new HashMap<>();
+        claimRepository.countBySeverity().forEach(row -> severities.put(row.getBucket(), row.getTotal()));
+        long claims = claimRepository.count();
+        long low = severities.getOrDefault(SeverityLevel.LOW, 0L);
+        long medium = severities.getOrDefault(SeverityLevel.MEDIUM, 0L);
+        long high = severities.getOrDefault(SeverityLevel.HIGH, 0L);
+        if (cells.getClaims() == claims && cells.getLow() == low && cells.getMedium() == medium
+                && cells.getHigh() == high) {
+            return false;
+        }
+        log.warn("Heatmap grid counts {} claims ({}/{}/{} low/medium/high) but the claims table has {} ({}/{}/{});"
+                         + " rebuilding", cells.getClaims(), cells.getLow(), cells.getMedium(), cells.getHigh(),
+                 claims, low, medium, high);
+        return true;
+    }
+
+    /**
+     * Recounts the finest level from the claims table, read in id order, and
+     * derives each coarser level from the one below it. On PostgreSQL the grid
+     * is locked against writers first, so claim writes that change the grid
+     * wait for the rebuild to commit. Joins the caller's transaction, if any.
+     */
+    public void rebuild() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (databasePlatform.isPostgres()) {
+                jdbcTemplate.execute("lock table heatmap_cells in share row exclusive mode");
+            }
+            Map<Cell, Counts> level = new HashMap<>();
+            long afterId = 0;
+            List<ClaimRepository.LocationView> batch;
+            do {
+                batch = claimRepository.findLocationsAfter(afterId, Limit.of(REBUILD_BATCH_SIZE));
+                for (ClaimRepository.LocationView claim : batch) {
+                    Cell cell = cellOf(claim.getLatitude(), claim.getLongitude(), MAX_LEVEL);
+                    level.merge(cell, Counts.of(claim.getSeverity(), 1), Counts::plus);
+                    afterId = claim.getId();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+
+            jdbcTemplate.update("delete from heatmap_cells");
+            for (int current = MAX_LEVEL; current >= MIN_LEVEL; current--) {
+                List<Object[]> rows = new ArrayList<>(level.size());
+                Map<Cell, Counts> parents = new HashMap<>();
+                level.forEach((cell, counts) -> {
+                    rows.add(row(cell, counts));
+                    parents.merge(cell.parent(), counts, Counts::plus);
+                });
+                jdbcTemplate.batchUpdate(INSERT, rows);
+                level = parents;
+            }
+        });
+        log.info("Rebuilt heatmap grid");
+    }
+
+    private static void add(Map<Cell, Counts> pending, ClaimSnapshot claim, long sign) {
+        if (claim == null || claim.latitude() == null || claim.longitude() == null) {
+            return;
+        }
+        Counts counts = Counts.of(claim.severity(), sign);
+        for (Cell cell = cellOf(claim.latitude(), claim.longitude(), MAX_LEVEL);
+             cell.level() >= MIN_LEVEL; cell = cell.parent()) {
+            pending.merge(cell, counts, Counts::plus);
+        }
+    }
+
+    private void apply(Map<Cell, Counts> deltas) {
+        List<Map.Entry<Cell, Counts>> changes = deltas.entrySet()
+                                                      .stream()
+                                                      .filter(entry -> !entry.getValue().isZero())
+                                                      // A fixed order keeps concurrent appliers from deadlocking
+                                                      .sorted(Map.Entry.comparingByKey(CELL_ORDER))
+                                                      .toList();
+        if (changes.isEmpty()) {
+            return;
+        }
+        // Claim rows are locked in the flush before any cell, so writers never wait on each other crosswise
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            entityManager.flush();
+        }
+        if (databasePlatform.isPostgres()) {
+            jdbcTemplate.batchUpdate(POSTGRES_UPSERT, changes.stream()
+                                                             .map(change -> row(change.getKey(), change.getValue()))
+                                                             .toList());
+            return;
+        }
+        changes.forEach(change -> increment(change.getKey(), change.getValue()));
+    }
+
+    private void increment(Cell cell, Counts counts) {
+        if (jdbcTemplate.update(UPDATE, counts.claims(), counts.low(), counts.medium(), counts.high(),
+                                cell.level(), cell.x(), cell.y()) == 0) {
+            jdbcTemplate.update(INSERT, row(cell, counts));
+        }
+    }
+
+    private static Cell cellOf(double latitude, double longitude, int level) {
+        return new Cell(level, TileMath.column(longitude, level), TileMath.row(latitude, level));
+    }
+
+    private static Object[] row(Cell cell, Counts counts) {
+        return new Object[]{cell.level(), cell.x(), cell.y(),
+                counts.claims(), counts.low(), counts.medium(), counts.high()};
+    }
+}
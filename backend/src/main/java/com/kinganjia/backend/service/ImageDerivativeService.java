@@ -0,0 +1,397 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.dto.ImageDerivativeDTO;
+import com.kinganjia.backend.event.ImageChangeEvent;
+import com.kinganjia.backend.exception.BusinessValidationException;
+import com.kinganjia.backend.exception.ResourceNotFoundException;
+import com.kinganjia.backend.mapper.ImageMapper;
+import com.kinganjia.backend.model.DerivativeStatus;
+import com.kinganjia.backend.model.Image;
+import com.kinganjia.backend.model.ImageDerivative;
+import com.kinganjia.backend.repository.ImageDerivativeRepository;
+import com.kinganjia.backend.repository.ImageRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Renders resized copies of uploaded images on a bounded worker pool. The
+ * {@code image_derivatives} table is the queue: a poller claims pending rows
+ * only while the pool has room, so a backlog stays in the database rather
+ * than in memory. Each node refreshes the rows it is working on every
+ * heartbeat; rows nobody has refreshed for {@code app.derivatives.stale-after}
+ * belong to a node that stopped, and are picked up again by any node.
+ * <p>
+ * Every upload is queued for a thumbnail and a preview, whose digests are
+ * copied onto the image row so list views can link them without a join.
+ */
+@Service
+@Slf4j
+public class ImageDerivativeService {
+
+    public static final int MIN_WIDTH = 32;
+    public static final int MAX_WIDTH = 2048;
+    private static final String DERIVATIVE_CONTENT_TYPE = "image/jpeg";
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    // Retrying cannot help when no installed ImageIO reader understands the bytes
+    private static final class UnsupportedImageException extends IOException {
+        private UnsupportedImageException() {
+            super("Unsupported image format");
+        }
+    }
+
+    private record Task(Long id, Long imageId, int width, String sourceHash, String sourceContentType,
+                        int attempts) {
+    }
+
+    private final ImageDerivativeRepository derivativeRepository;
+    private final ImageRepository imageRepository;
+    private final ImageMapper imageMapper;
+    private final BlobStore blobStore;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int thumbnailWidth;
+    private final int previewWidth;
+    private final int maxAttempts;
+    private final int capacity;
+    private final Duration staleAfter;
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Jobs this node has claimed and not yet finished, queued or rendering
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    public ImageDerivativeService(ImageDerivativeRepository derivativeRepository,
+                                  ImageRepository imageRepository,
+                                  ImageMapper imageMapper,
+                                  BlobStore blobStore,
+                                  TransactionTemplate transactionTemplate,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${app.derivatives.thumbnail-width:256}") int thumbnailWidth,
+                                  @Value("${app.derivatives.preview-width:1024}") int previewWidth,
+                                  @Value("${app.derivatives.max-attempts:3}") int maxAttempts,
+                                  @Value("${app.derivatives.threads:2}") int threads,
+                                  @Value("${app.derivatives.queue-capacity:32}") int queueCapacity,
+                                  @Value("${app.derivatives.stale-after:PT2M}") Duration staleAfter) {
+        this.derivativeRepository = derivativeRepository;
+        this.imageRepository = imageRepository;
+        this.imageMapper = imageMapper;
+        this.blobStore = blobStore;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.thumbnailWidth = thumbnailWidth;
+        this.previewWidth = previewWidth;
+        this.maxAttempts = maxAttempts;
+        this.capacity = threads + queueCapacity;
+        this.staleAfter = staleAfter;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                               new ArrayBlockingQueue<>(queueCapacity),
+                                               runnable -> {
+                                                   Thread thread = new Thread(runnable, "derivative-"
+                                                           + threadNumber.incrementAndGet());
+                                                   thread.setDaemon(true);
+                                                   return thread;
+                                               });
+    }
+
+    /**
+     * Queues the thumbnail and preview for a newly uploaded image, in the
+     * caller's transaction so the jobs exist exactly when the image does.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueStandard(Image image) {
+        enqueue(image, thumbnailWidth);
+        enqueue(image, previewWidth);
+    }
+
+    /**
+     * Queues a derivative of a specific width, or returns the existing one.
+     * A failed derivative is retried from scratch.
+     */
+    public ImageDerivativeDTO requestDerivative(Long imageId, Integer width) {
+        if (width == null || width < MIN_WIDTH || width > MAX_WIDTH) {
+            throw new BusinessValidationException("Width must be between " + MIN_WIDTH + " and " + MAX_WIDTH);
+        }
+        try {
+            return transactionTemplate.execute(status -> findOrEnqueue(imageId, width));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request queued the same width first; its row is there now
+            return transactionTemplate.execute(status -> findOrEnqueue(imageId, width));
+        }
+    }
+
+    private ImageDerivativeDTO findOrEnqueue(Long imageId, int width) {
+        Image image = imageRepository.findById(imageId)
+                                     .orElseThrow(() -> new ResourceNotFoundException("Image not found with id: " + imageId));
+        if (image.getContentHash() == null) {
+            throw new BusinessValidationException("Image " + imageId + " has no uploaded content to resize");
+        }
+        ImageDerivative derivative = derivativeRepository.findByImageIdAndWidth(imageId, width)
+                                                         .orElseGet(() -> enqueue(image, width));
+        if (derivative.getStatus() == DerivativeStatus.FAILED) {
+            derivative.setStatus(DerivativeStatus.PENDING);
+            derivative.setAttempts(0);
+            derivative.setError(null);
+        }
+        return imageMapper.toDerivative(derivative);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ImageDerivativeDTO> getDerivatives(Long imageId) {
+        if (!imageRepository.existsById(imageId)) {
+            throw new ResourceNotFoundException("Image not found with id: " + imageId);
+        }
+        return derivativeRepository.findByImageIdOrderByWidthAsc(imageId)
+                                   .stream()
+                                   .map(imageMapper::toDerivative)
+                                   .collect(Collectors.toList());
+    }
+
+    /**
+     * Queues derivatives for uploads that predate the worker.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long backfilled = 0;
+        Long afterId = 0L;
+        List<Image> batch;
+        do {
+            Long from = afterId;
+            batch = transactionTemplate.execute(status -> {
+                List<Image> images = imageRepository.findWithoutDerivatives(from, Limit.of(BACKFILL_BATCH_SIZE));
+                images.forEach(this::enqueueStandard);
+                return images;
+            });
+            backfilled += batch.size();
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == BACKFILL_BATCH_SIZE);
+        if (backfilled > 0) {
+            log.info("Queued derivatives for {} images", backfilled);
+        }
+    }
+
+    /**
+     * Keeps this node's jobs fresh, and queues again the running jobs of a
+     * node that stopped (including this one before a restart). Running jobs
+     * of live nodes are left alone.
+     */
+    @Scheduled(fixedDelayString = "${app.derivatives.heartbeat-interval:PT30S}")
+    public void heartbeat() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = List.copyOf(running);
+        Integer requeued = transactionTemplate.execute(status -> {
+            if (!ids.isEmpty()) {
+                derivativeRepository.touch(ids, DerivativeStatus.RUNNING, now);
+            }
+            return derivativeRepository.updateStaleStatus(DerivativeStatus.RUNNING, DerivativeStatus.PENDING,
+                                                          now.minus(staleAfter), now);
+        });
+        if (requeued != null && requeued > 0) {
+            log.info("Requeued {} derivative jobs abandoned by a stopped worker", requeued);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.derivatives.poll-interval:PT2S}")
+    public void poll() {
+        int free = capacity - inFlight.get();
+        if (free <= 0) {
+            return;
+        }
+        List<Task> tasks = transactionTemplate.execute(status -> derivativeRepository
+                .findForProcessing(DerivativeStatus.PENDING, Limit.of(free))
+                .stream()
+                .map(derivative -> {
+                    derivative.setStatus(DerivativeStatus.RUNNING);
+                    derivative.setAttempts(derivative.getAttempts() + 1);
+                    Image image = derivative.getImage();
+                    return new Task(derivative.getId(), image.getId(), derivative.getWidth(),
+                                    image.getContentHash(), image.getContentType(), derivative.getAttempts());
+                })
+                .collect(Collectors.toList()));
+        for (Task task : tasks) {
+            inFlight.incrementAndGet();
+            running.add(task.id());
+            executor.execute(() -> {
+                try {
+                    process(task);
+                } finally {
+                    running.remove(task.id());
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Unfinished jobs stay RUNNING and are requeued once stale
+        executor.shutdownNow();
+    }
+
+    private ImageDerivative enqueue(Image image, int width) {
+        return derivativeRepository.save(ImageDerivative.builder()
+                                                        .image(image)
+                                                        .width(width)
+                                                        .status(DerivativeStatus.PENDING)
+                                                        .build());
+    }
+
+    private void process(Task task) {
+        try {
+            Path source = blobStore.find(task.sourceHash())
+                                   .orElseThrow(() -> new IOException("Original blob " + task.sourceHash()
+                                                                              + " is missing"));
+            BufferedImage resized = render(source, task.width());
+            BlobStore.StoredBlob blob;
+            String contentType;
+            if (resized == null) {
+                // Already no wider than requested: the original serves as the derivative
+                blob = new BlobStore.StoredBlob(task.sourceHash(), source.toFile().length(), false);
+                contentType = task.sourceContentType();
+            } else {
+                blob = blobStore.store(new ByteArrayInputStream(encodeJpeg(resized)));
+                contentType = DERIVATIVE_CONTENT_TYPE;
+            }
+            complete(task, blob, contentType);
+        } catch (Exception e) {
+            fail(task, e);
+        }
+    }
+
+    private void complete(Task task, BlobStore.StoredBlob blob, String contentType) {
+        transactionTemplate.executeWithoutResult(status -> {
+            derivativeRepository.findById(task.id()).ifPresent(derivative -> {
+                derivative.setStatus(DerivativeStatus.DONE);
+                derivative.setContentHash(blob.sha256());
+                derivative.setContentType(contentType);
+                derivative.setSizeBytes(blob.size());
+                derivative.setError(null);
+            });
+            int updated = 0;
+            if (task.width() == thumbnailWidth) {
+                updated += imageRepository.updateThumbnailHash(task.imageId(), blob.sha256());
+            }
+            if (task.width() == previewWidth) {
+                updated += imageRepository.updatePreviewHash(task.imageId(), blob.sha256());
+            }
+            if (updated > 0) {
+                imageRepository.findClaimIdById(task.imageId()).ifPresent(claimId -> eventPublisher.publishEvent(
+                        ImageChangeEvent.updated(task.imageId(), claimId)));
+            }
+        });
+    }
+
+    private void fail(Task task, Exception e) {
+        boolean retry = task.attempts() < maxAttempts && !(e instanceof UnsupportedImageException);
+        log.warn("Derivative {} ({}px of image {}) failed on attempt {}{}: {}", task.id(), task.width(),
+                 task.imageId(), task.attempts(), retry ? ", will retry" : "", e.getMessage());
+        transactionTemplate.executeWithoutResult(status -> derivativeRepository.findById(task.id())
+                .ifPresent(derivative -> {
+                    derivative.setStatus(retry ? DerivativeStatus.PENDING : DerivativeStatus.FAILED);
+                    derivative.setError(e.getMessage());
+                }));
+    }
+
+    /**
+     * Decodes the source with subsampling so that large photos are never held
+     * in memory at full resolution, then scales it to {@code width}. Returns
+     * null when the source is not wider than {@code width}.
+     */
+    private static BufferedImage render(Path source, int width) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new UnsupportedImageException();
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int sourceWidth = reader.getWidth(0);
+                if (sourceWidth <= width) {
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                // Keep at least twice the target resolution for the final smooth scale
+                int subsampling = Math.max(1, sourceWidth / (width * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return scale(reader.read(0, param), width);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage image, int width) {
+        int height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            // JPEG has no alpha channel: flatten transparent PNG/GIF pixels onto white
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
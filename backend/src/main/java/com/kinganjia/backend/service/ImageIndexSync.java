@@ -0,0 +1,157 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.config.DatabasePlatform;
+import com.kinganjia.backend.config.NotificationListener;
+import com.kinganjia.backend.event.CommitBuffer;
+import com.kinganjia.backend.event.ImageChangeEvent;
+import com.kinganjia.backend.repository.ImageRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the {@link ImageSimilarityIndex} of every node in step with image
+ * changes made through any node. On PostgreSQL each writing transaction
+ * sends the current hash of every image it created, updated or deleted with
+ * {@code pg_notify} just before it commits, read on its own connection, and
+ * every node LISTENs and applies them, so receivers never read a possibly
+ * lagging replica. Notifications sent while a node was not listening are
+ * lost, so the index is rebuilt whenever listening (re)starts. Elsewhere
+ * there is only one node and the index is built once at startup.
+ * <p>
+ * The writing node also updates its own index after commit (see
+ * {@link ImageService}); applying its notification again is harmless.
+ */
+@Service
+@Slf4j
+public class ImageIndexSync {
+
+    public static final String CHANNEL = "image_index";
+
+    // NOTIFY payloads must stay below 8000 bytes
+    private static final int MAX_PAYLOAD_BYTES = 7_900;
+    private static final int LOOKUP_BATCH_SIZE = 1_000;
+
+    private final ImageSimilarityIndex index;
+    private final ImageRepository imageRepository;
+    private final DatabasePlatform databasePlatform;
+    private final DataSourceProperties dataSourceProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final CommitBuffer<Set<Long>> changed;
+    private NotificationListener listener;
+
+    public ImageIndexSync(ImageSimilarityIndex index,
+                          ImageRepository imageRepository,
+                          DatabasePlatform databasePlatform,
+                          DataSourceProperties dataSourceProperties,
+                          DataSource dataSource) {
+        this.index = index;
+        this.imageRepository = imageRepository;
+        this.databasePlatform = databasePlatform;
+        this.dataSourceProperties = dataSourceProperties;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.changed = new CommitBuffer<>(LinkedHashSet::new, this::publish);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (listener != null) {
+            return;
+        }
+        if (!databasePlatform.isPostgres()) {
+            index.rebuild();
+            return;
+        }
+        listener = new NotificationListener(CHANNEL, dataSourceProperties, this::rebuild, this::receive);
+        listener.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (listener != null) {
+            listener.stop();
+        }
+    }
+
+    @EventListener
+    public void onImageChange(ImageChangeEvent event) {
+        if (databasePlatform.isPostgres()) {
+            changed.record(pending -> pending.add(event.imageId()));
+        }
+    }
+
+    /**
+     * Sends one {@code id hash} line per image, or just the id for an image
+     * that is gone, on the writing transaction's connection.
+     */
+    private void publish(Set<Long> imageIds) {
+        List<Long> ids = new ArrayList<>(imageIds);
+        StringBuilder payload = new StringBuilder();
+        for (int from = 0; from < ids.size(); from += LOOKUP_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + LOOKUP_BATCH_SIZE, ids.size()));
+            Map<Long, String> hashes = new HashMap<>();
+            imageRepository.findHashesByIdIn(batch).forEach(image -> hashes.put(image.getId(), image.getHash()));
+            for (Long id : batch) {
+                String hash = hashes.get(id);
+                String line = hash == null ? id + "\n" : id + " " + hash + "\n";
+                if (payload.length() + line.length() > MAX_PAYLOAD_BYTES) {
+                    notify(payload);
+                }
+                payload.append(line);
+            }
+        }
+        notify(payload);
+    }
+
+    private void notify(StringBuilder payload) {
+        if (payload.isEmpty()) {
+            return;
+        }
+        String message = payload.toString();
+        jdbcTemplate.execute("select pg_notify(?, ?)", (PreparedStatementCallback<Boolean>) statement -> {
+            statement.setString(1, CHANNEL);
+            statement.setString(2, message);
+            return statement.execute();
+        });
+        payload.setLength(0);
+    }
+
+    private void receive(String payload) {
+        for (String line : payload.split("\n")) {
+            int separator = line.indexOf(' ');
+            try {
+                if (separator < 0) {
+                    index.remove(Long.valueOf(line));
+                } else {
+                    index.put(Long.valueOf(line.substring(0, separator)), line.substring(separator + 1));
+                }
+            } catch (NumberFormatException e) {
+                log.error("Cannot read image index notification line '{}', rebuilding the index", line);
+                rebuild();
+                return;
+            }
+        }
+    }
+
+    // Runs on the listener thread, which must survive a failed rebuild to try again on the next connection
+    private void rebuild() {
+        try {
+            index.rebuild();
+        } catch (RuntimeException e) {
+            log.error("Cannot rebuild the image similarity index", e);
+        }
+    }
+}
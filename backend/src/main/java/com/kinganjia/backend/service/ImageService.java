@@ -3,71 +3,336 @@ package com.kinganjia.backend.service;
 import com.kinganjia.backend.dto.ClaimResponseDTO;
 import com.kinganjia.backend.dto.ImageRequestDTO;
 import com.kinganjia.backend.dto.ImageResponseDTO;
+import com.kinganjia.backend.dto.SimilarImageDTO;
+import com.kinganjia.backend.event.ImageChangeEvent;
+import com.kinganjia.backend.exception.BusinessValidationException;
+import com.kinganjia.backend.exception.ResourceNotFoundException;
 import com.kinganjia.backend.mapper.ImageMapper;
+import com.kinganjia.backend.model.ChangeEntityType;
 import com.kinganjia.backend.model.Claim;
 import com.kinganjia.backend.model.Image;
+import com.kinganjia.backend.repository.ChangeLogRepository;
+import com.kinganjia.backend.repository.ClaimRepository;
+import com.kinganjia.backend.repository.ImageDerivativeRepository;
 import com.kinganjia.backend.repository.ImageRepository;
+import com.kinganjia.backend.repository.VersionSummary;
+import com.kinganjia.backend.util.ImageSignature;
+import com.kinganjia.backend.util.PerceptualHash;
+import com.kinganjia.backend.util.ResourceVersion;
+import com.kinganjia.backend.util.Versioned;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class ImageService {
+    public static final int MAX_SIMILARITY_DISTANCE = 16;
+
+    public record ImageContent(String sha256, Resource resource, MediaType contentType) {
+    }
+
+    private static final Set<String> UPLOAD_CONTENT_TYPES = Set.of("image/jpeg", "image/png", "image/webp",
+                                                                    "image/gif", "image/heic");
+
     private final ImageRepository imageRepository;
+    private final ClaimRepository claimRepository;
     private final ImageMapper imageMapper;
+    private final ImageSimilarityIndex similarityIndex;
+    private final BlobStore blobStore;
+    private final ImageDerivativeRepository derivativeRepository;
+    private final ChangeLogRepository changeLogRepository;
+    private final ImageDerivativeService derivativeService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int duplicateDistance;
 
-    public ImageService(ImageRepository imageRepository, ImageMapper imageMapper) {
+    public ImageService(ImageRepository imageRepository, ClaimRepository claimRepository, ImageMapper imageMapper,
+                        ImageSimilarityIndex similarityIndex, BlobStore blobStore,
+                        ImageDerivativeRepository derivativeRepository, ChangeLogRepository changeLogRepository,
+                        ImageDerivativeService derivativeService, TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher,
+                        @Value("${app.images.duplicate-distance:6}") int duplicateDistance) {
         this.imageRepository = imageRepository;
+        this.claimRepository = claimRepository;
         this.imageMapper = imageMapper;
+        this.similarityIndex = similarityIndex;
+        this.blobStore = blobStore;
+        this.derivativeRepository = derivativeRepository;
+        this.changeLogRepository = changeLogRepository;
+        this.derivativeService = derivativeService;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.duplicateDistance = duplicateDistance;
     }
 
+    @Transactional(readOnly = true)
     public List<ImageResponseDTO> getAllImages() {
         List<Image> images = imageRepository.findAll();
         return images.stream().map(u -> imageMapper.toResponse(u)).collect(Collectors.toList());
     }
 
-    public ImageResponseDTO getImageById(Long id) {
-        Image image = imageRepository.findById(id).orElseThrow(() -> new RuntimeException("Image not found"));
-        return imageMapper.toResponse(image);
+    @Transactional(readOnly = true)
+    public Versioned<ImageResponseDTO> getImageById(Long id) {
+        Image image = imageRepository.findDetailedById(id)
+                                     .orElseThrow(() -> new ResourceNotFoundException("Image not found"));
+        ResourceVersion version = ResourceVersion.of("image").add(image).add(image.getClaim()).build();
+        return new Versioned<>(imageMapper.toResponse(image), version);
     }
 
-    public List<ImageResponseDTO> getClaimByClaimId(Long id) {
+    /** The validators of {@link #getImageById}, without loading the image. */
+    @Transactional(readOnly = true)
+    public ResourceVersion getImageVersion(Long id) {
+        VersionSummary image = imageRepository.summarizeById(id);
+        if (image.getTotal() == 0) {
+            throw new ResourceNotFoundException("Image not found");
+        }
+        return ResourceVersion.of("image").add(image).add(claimRepository.summarizeByImageId(id)).build();
+    }
+
+    @Transactional(readOnly = true)
+    public Versioned<List<ImageResponseDTO>> getClaimByClaimId(Long id) {
+        long changeMarker = changeLogRepository.findLatestSeq(ChangeEntityType.CLAIM, id);
         List<Image> claims =imageRepository.findByClaimId(id).orElseThrow(() -> new RuntimeException("Image not found"));
-        return claims.stream().map(u -> imageMapper.toResponse(u)).collect(Collectors.toList());
+        ResourceVersion version = ResourceVersion.ofCollection("claim-images", changeMarker)
+                                                 .add(claims)
+                                                 .add(claims.isEmpty() ? null : claims.get(0).getClaim())
+                                                 .build();
+        return new Versioned<>(claims.stream().map(u -> imageMapper.toResponse(u)).collect(Collectors.toList()),
+                               version);
+    }
+
+    /** The validators of {@link #getClaimByClaimId}, without loading the images. */
+    @Transactional(readOnly = true)
+    public ResourceVersion getClaimImagesVersion(Long id) {
+        return ResourceVersion.ofCollection("claim-images",
+                                            changeLogRepository.findLatestSeq(ChangeEntityType.CLAIM, id))
+                              .add(imageRepository.summarizeByClaimId(id))
+                              .add(claimRepository.summarizeByIdWithImages(id))
+                              .build();
     }
 
     public ImageResponseDTO createImage(ImageRequestDTO imageDTO) {
         Image image = imageMapper.toEntity(imageDTO);
-        Image createdImage = imageRepository.save(image);
-        return imageMapper.toResponse(createdImage);
+        Image createdImage = transactionTemplate.execute(status -> {
+            Image saved = imageRepository.save(image);
+            eventPublisher.publishEvent(ImageChangeEvent.created(saved.getId(), claimIdOf(saved)));
+            return saved;
+        });
+        return indexCreated(createdImage);
     }
 
+    /**
+     * Stores the uploaded bytes in the blob store and creates an image pointing
+     * at them. {@code hash} is the client's perceptual hash; without one the
+     * image is stored but not indexed for near-duplicate search.
+     */
+    public ImageResponseDTO uploadImage(Long claimId, MultipartFile file, String hash, LocalDateTime timestamp)
+            throws IOException {
+        if (!claimRepository.existsById(claimId)) {
+            throw new ResourceNotFoundException("Claim not found with id: " + claimId);
+        }
+        if (file == null || file.isEmpty()) {
+            throw new BusinessValidationException("Image file is required");
+        }
+        String contentType = file.getContentType();
+        if (contentType == null || !UPLOAD_CONTENT_TYPES.contains(contentType)) {
+            throw new BusinessValidationException("Unsupported image type: " + contentType);
+        }
+
+        BlobStore.StoredBlob blob;
+        try (InputStream content = new BufferedInputStream(file.getInputStream())) {
+            // Blobs are served publicly with the stored type, so the bytes must really be that kind of image
+            content.mark(ImageSignature.HEADER_LENGTH);
+            byte[] header = content.readNBytes(ImageSignature.HEADER_LENGTH);
+            content.reset();
+            if (!contentType.equals(ImageSignature.detect(header))) {
+                throw new BusinessValidationException("File content is not a valid " + contentType + " image");
+            }
+            blob = blobStore.store(content);
+        }
+        Image image = Image.builder()
+                           .claim(claimRepository.getReferenceById(claimId))
+                           .url(BlobStore.urlOf(blob.sha256()))
+                           .hash(hash != null && !hash.isBlank() ? hash : blob.sha256())
+                           .timestamp(timestamp)
+                           .contentHash(blob.sha256())
+                           .contentType(contentType)
+                           .sizeBytes(blob.size())
+                           .build();
+        Image createdImage = transactionTemplate.execute(status -> {
+            Image saved = imageRepository.save(image);
+            derivativeService.enqueueStandard(saved);
+            eventPublisher.publishEvent(ImageChangeEvent.created(saved.getId(), claimId));
+            return saved;
+        });
+        return indexCreated(createdImage);
+    }
+
+    /**
+     * The stored bytes for a blob referenced by at least one image or derivative.
+     */
+    @Transactional(readOnly = true)
+    public ImageContent getImageContent(String sha256) {
+        Path path = blobStore.find(sha256)
+                             .orElseThrow(() -> new ResourceNotFoundException("Image content not found: " + sha256));
+        String contentType = imageRepository.findFirstByContentHash(sha256)
+                                            .map(ImageRepository.ImageContentView::getContentType)
+                                            .or(() -> derivativeRepository.findFirstByContentHash(sha256)
+                                                                          .map(ImageDerivativeRepository.DerivativeContentView::getContentType))
+                                            .orElseThrow(() -> new ResourceNotFoundException(
+                                                    "Image content not found: " + sha256));
+        return new ImageContent(sha256, new FileSystemResource(path), MediaType.parseMediaType(contentType));
+    }
+
+    private ImageResponseDTO indexCreated(Image createdImage) {
+        ImageResponseDTO response = imageMapper.toResponse(createdImage);
+
+        Long hash = PerceptualHash.parse(createdImage.getHash());
+        if (hash != null) {
+            List<SimilarImageDTO> duplicates = findSimilar(hash, duplicateDistance, createdImage.getId());
+            if (!duplicates.isEmpty()) {
+                log.info("Image {} is a near duplicate of {}", createdImage.getId(),
+                         duplicates.stream().map(SimilarImageDTO::getId).collect(Collectors.toList()));
+                response.setNearDuplicates(duplicates);
+            }
+        }
+        similarityIndex.put(createdImage.getId(), createdImage.getHash());
+        return response;
+    }
+
+    @Transactional(readOnly = true)
+    public List<SimilarImageDTO> getSimilarImages(String hash, Integer maxDistance) {
+        Long parsed = PerceptualHash.parse(hash);
+        if (parsed == null) {
+            throw new BusinessValidationException("Hash must be a 64-bit perceptual hash of 16 hex digits");
+        }
+        return findSimilar(parsed, resolveDistance(maxDistance), null);
+    }
+
+    @Transactional(readOnly = true)
+    public List<SimilarImageDTO> getSimilarImagesTo(Long id, Integer maxDistance) {
+        Long hash = similarityIndex.hashOf(id);
+        if (hash == null) {
+            Image image = findImageById(id);
+            hash = PerceptualHash.parse(image.getHash());
+            if (hash == null) {
+                throw new BusinessValidationException("Image " + id + " has no 64-bit perceptual hash");
+            }
+        }
+        return findSimilar(hash, resolveDistance(maxDistance), id);
+    }
+
+    private List<SimilarImageDTO> findSimilar(long hash, int maxDistance, Long excludeImageId) {
+        List<ImageSimilarityIndex.Match> matches = similarityIndex.search(hash, maxDistance)
+                                                                  .stream()
+                                                                  .filter(match -> !match.imageId().equals(excludeImageId))
+                                                                  .collect(Collectors.toList());
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Image> images = imageRepository.findAllById(matches.stream()
+                                                                     .map(ImageSimilarityIndex.Match::imageId)
+                                                                     .collect(Collectors.toList()))
+                                                 .stream()
+                                                 .collect(Collectors.toMap(Image::getId, Function.identity()));
+        return matches.stream()
+                      .filter(match -> images.containsKey(match.imageId()))
+                      .map(match -> {
+                          Image image = images.get(match.imageId());
+                          return new SimilarImageDTO(image.getId(), image.getClaim().getId(), image.getUrl(),
+                                                     image.getHash(), match.distance());
+                      })
+                      .collect(Collectors.toList());
+    }
+
+    private int resolveDistance(Integer maxDistance) {
+        int distance = maxDistance == null ? duplicateDistance : maxDistance;
+        if (distance < 0 || distance > MAX_SIMILARITY_DISTANCE) {
+            throw new BusinessValidationException("Distance must be between 0 and " + MAX_SIMILARITY_DISTANCE);
+        }
+        return distance;
+    }
+
+    @Transactional
     public ImageResponseDTO updateImage(Long id, ImageRequestDTO imageDTO) {
         Image existingImage = findImageById(id);
         imageMapper.fullUpdateImageFromDto(imageDTO, existingImage);
         log.info("Image update : {}",existingImage);
         Image updatedImage = imageRepository.save(existingImage);
+        eventPublisher.publishEvent(ImageChangeEvent.updated(updatedImage.getId(), claimIdOf(updatedImage)));
+        String hash = updatedImage.getHash();
+        afterCommit(() -> similarityIndex.put(id, hash));
         return imageMapper.toResponse(updatedImage);
     }
 
+    @Transactional
     public ImageResponseDTO partialUpdateImage(Long id, ImageRequestDTO imageUpdate) {
         Image existingImage = findImageById(id);
         imageMapper.updateImageFromDto(imageUpdate,existingImage);
         log.info("Image partial update : {}",existingImage);
         Image updatedImage = imageRepository.save(existingImage);
+        eventPublisher.publishEvent(ImageChangeEvent.updated(updatedImage.getId(), claimIdOf(updatedImage)));
+        String hash = updatedImage.getHash();
+        afterCommit(() -> similarityIndex.put(id, hash));
         return imageMapper.toResponse(updatedImage);
     }
 
+    @Transactional
     public void deleteImage(Long id) {
-        imageRepository.deleteById(id);
+        imageRepository.findById(id).ifPresent(image -> {
+            imageRepository.delete(image);
+            eventPublisher.publishEvent(ImageChangeEvent.deleted(id, claimIdOf(image)));
+        });
+        afterCommit(() -> similarityIndex.remove(id));
     }
 
+    @Transactional
     public void deleteAllImages() {
-        imageRepository.deleteAll();
+        List<Image> images = imageRepository.findAll();
+        imageRepository.deleteAll(images);
+        images.forEach(image -> eventPublisher.publishEvent(ImageChangeEvent.deleted(image.getId(),
+                                                                                     claimIdOf(image))));
+        afterCommit(similarityIndex::clear);
+    }
+
+    // The similarity index must only ever reflect committed rows
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Reading the id of a lazy claim proxy does not initialize it
+    private static Long claimIdOf(Image image) {
+        return image.getClaim() == null ? null : image.getClaim().getId();
     }
 
     private Image findImageById(Long id){
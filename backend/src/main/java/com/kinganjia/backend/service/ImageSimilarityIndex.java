@@ -0,0 +1,211 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.repository.ImageRepository;
+import com.kinganjia.backend.util.PerceptualHash;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory BK-tree over 64-bit perceptual image hashes. Hamming distance is
+ * a metric, so a radius-k search only descends into children whose edge
+ * distance lies within {@code [d - k, d + k]}, visiting a small fraction of
+ * the tree for the small k used for near-duplicate detection.
+ * <p>
+ * Images whose hash is not a 64-bit hex value are not indexed. Every node
+ * keeps its own index; {@link ImageIndexSync} keeps them in step.
+ */
+@Component
+@Slf4j
+public class ImageSimilarityIndex {
+
+    private static final int LOAD_BATCH_SIZE = 10_000;
+
+    public record Match(Long imageId, long hash, int distance) {
+    }
+
+    private static final class Node {
+        private final long hash;
+        private final Set<Long> imageIds = new LinkedHashSet<>(2);
+        // Indexed by distance to this node's hash, 1..64
+        private Node[] children;
+
+        private Node(long hash) {
+            this.hash = hash;
+        }
+    }
+
+    private final ImageRepository imageRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Long> hashByImageId = new HashMap<>();
+    private Node root;
+
+    public ImageSimilarityIndex(ImageRepository imageRepository) {
+        this.imageRepository = imageRepository;
+    }
+
+    /**
+     * Reloads every indexed hash from the database; at startup and whenever
+     * this node may have missed changes made through another (see {@link ImageIndexSync}).
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            root = null;
+            hashByImageId.clear();
+            long afterId = 0;
+            List<ImageRepository.ImageHashView> batch;
+            do {
+                batch = imageRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(LOAD_BATCH_SIZE));
+                for (ImageRepository.ImageHashView image : batch) {
+                    Long hash = PerceptualHash.parse(image.getHash());
+                    if (hash != null) {
+                        insert(image.getId(), hash);
+                    }
+                    afterId = image.getId();
+                }
+            } while (batch.size() == LOAD_BATCH_SIZE);
+            log.info("Image similarity index built with {} hashes", hashByImageId.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or re-indexes an image. A non-perceptual hash just removes it from the index.
+     */
+    public void put(Long imageId, String hash) {
+        Long parsed = PerceptualHash.parse(hash);
+        lock.writeLock().lock();
+        try {
+            removeInternal(imageId);
+            if (parsed != null) {
+                insert(imageId, parsed);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long imageId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(imageId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root = null;
+            hashByImageId.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Images within Hamming distance {@code maxDistance} of {@code hash}, closest first.
+     */
+    public List<Match> search(long hash, int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (root == null) {
+                return matches;
+            }
+            Deque<Node> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                Node node = pending.pop();
+                int distance = PerceptualHash.distance(hash, node.hash);
+                if (distance <= maxDistance) {
+                    for (Long imageId : node.imageIds) {
+                        matches.add(new Match(imageId, node.hash, distance));
+                    }
+                }
+                if (node.children != null) {
+                    int from = Math.max(1, distance - maxDistance);
+                    int to = Math.min(64, distance + maxDistance);
+                    for (int edge = from; edge <= to; edge++) {
+                        if (node.children[edge] != null) {
+                            pending.push(node.children[edge]);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(Comparator.comparingInt(Match::distance).thenComparing(Match::imageId));
+        return matches;
+    }
+
+    public Long hashOf(Long imageId) {
+        lock.readLock().lock();
+        try {
+            return hashByImageId.get(imageId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(Long imageId, long hash) {
+        hashByImageId.put(imageId, hash);
+        if (root == null) {
+            root = new Node(hash);
+            root.imageIds.add(imageId);
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = PerceptualHash.distance(hash, node.hash);
+            if (distance == 0) {
+                node.imageIds.add(imageId);
+                return;
+            }
+            if (node.children == null) {
+                node.children = new Node[65];
+            }
+            Node child = node.children[distance];
+            if (child == null) {
+                child = new Node(hash);
+                child.imageIds.add(imageId);
+                node.children[distance] = child;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    // Nodes are kept when they become empty: they still route searches to their subtrees
+    private void removeInternal(Long imageId) {
+        Long hash = hashByImageId.remove(imageId);
+        if (hash == null) {
+            return;
+        }
+        Node node = root;
+        while (node != null) {
+            int distance = PerceptualHash.distance(hash, node.hash);
+            if (distance == 0) {
+                node.imageIds.remove(imageId);
+                return;
+            }
+            node = node.children == null ? null : node.children[distance];
+        }
+    }
+}
@@ -6,7 +6,12 @@ import com.kinganjia.backend.exception.DuplicateResourceException;
 import com.kinganjia.backend.exception.ResourceNotFoundException;
 import com.kinganjia.backend.mapper.UserMapper;
 import com.kinganjia.backend.model.User;
+import com.kinganjia.backend.repository.ClaimRepository;
 import com.kinganjia.backend.repository.UserRepository;
+import com.kinganjia.backend.repository.VersionSummary;
+import com.kinganjia.backend.security.UserDetailsCache;
+import com.kinganjia.backend.util.ResourceVersion;
+import com.kinganjia.backend.util.Versioned;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -21,8 +26,10 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
+    private final ClaimRepository claimRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final UserDetailsCache userDetailsCache;
 
     @Transactional(readOnly = true)
     public List<UserResponseDTO> getAllUsers() {
@@ -33,9 +40,20 @@ public class UserService {
     }
 
     @Transactional(readOnly = true)
-    public UserResponseDTO getUserById(Long id) {
+    public Versioned<UserResponseDTO> getUserById(Long id) {
         User user = findUserById(id);
-        return userMapper.toResponse(user);
+        ResourceVersion version = ResourceVersion.of("user").add(user).add(user.getClaims()).build();
+        return new Versioned<>(userMapper.toResponse(user), version);
+    }
+
+    /** The validators of {@link #getUserById}, without loading the user. */
+    @Transactional(readOnly = true)
+    public ResourceVersion getUserVersion(Long id) {
+        VersionSummary user = userRepository.summarizeById(id);
+        if (user.getTotal() == 0) {
+            throw new ResourceNotFoundException("User not found with id: " + id);
+        }
+        return ResourceVersion.of("user").add(user).add(claimRepository.summarizeByUserId(id)).build();
     }
 
     @Transactional(readOnly = true)
@@ -70,6 +88,7 @@ public class UserService {
             throw new DuplicateResourceException("Email " + userDTO.getEmail() + " is already in use");
         }
 
+        userDetailsCache.evict(existingUser.getEmail());
         userMapper.fullUpdateUserFromDto(userDTO, existingUser);
 
         if (userDTO.getPassword() != null && !userDTO.getPassword()
@@ -93,6 +112,7 @@ public class UserService {
             throw new DuplicateResourceException("Email " + userUpdate.getEmail() + " is already in use");
         }
 
+        userDetailsCache.evict(existingUser.getEmail());
         userMapper.updateUserFromDto(userUpdate, existingUser);
 
         if (userUpdate.getPassword() != null && !userUpdate.getPassword()
@@ -107,12 +127,15 @@ public class UserService {
 
     @Transactional
     public void deleteUser(Long id) {
+        userRepository.findById(id)
+                      .ifPresent(user -> userDetailsCache.evict(user.getEmail()));
         userRepository.deleteById(id);
     }
 
     @Transactional
     public void deleteAllUsers() {
         userRepository.deleteAll();
+        userDetailsCache.evictAll();
     }
 
     private User findUserById(Long id) {
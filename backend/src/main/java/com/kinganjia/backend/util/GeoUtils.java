@@ -0,0 +1,116 @@
+package com.kinganjia.backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-resolution latitude/longitude grid used to index claim coordinates
+ * with an ordinary B-tree. A cell id is {@code row * COLUMNS + column}, so
+ * the cells of one grid row inside a bounding box form a contiguous id range.
+ */
+public final class GeoUtils {
+
+    /**
+     * Cell edge in degrees, roughly 1.1 km at the equator.
+     */
+    public static final double CELL_DEGREES = 0.01;
+    public static final long COLUMNS = Math.round(360 / CELL_DEGREES);
+    public static final long ROWS = Math.round(180 / CELL_DEGREES);
+
+    /**
+     * Above this many grid rows a range scan on latitude/longitude is cheaper
+     * than OR-ing one cell range per row.
+     */
+    public static final int MAX_CELL_ROWS = 64;
+
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private GeoUtils() {
+    }
+
+    public record BoundingBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+
+        public static BoundingBox around(double latitude, double longitude, double radiusMeters) {
+            double latDelta = Math.toDegrees(radiusMeters / EARTH_RADIUS_METERS);
+            double cosLat = Math.max(Math.cos(Math.toRadians(latitude)), 1e-6);
+            double lonDelta = Math.min(180, latDelta / cosLat);
+            return new BoundingBox(Math.max(-90, latitude - latDelta), Math.max(-180, longitude - lonDelta),
+                                   Math.min(90, latitude + latDelta), Math.min(180, longitude + lonDelta));
+        }
+
+        public boolean contains(double latitude, double longitude) {
+            return latitude >= minLatitude && latitude <= maxLatitude
+                    && longitude >= minLongitude && longitude <= maxLongitude;
+        }
+    }
+
+    /**
+     * Inclusive range of cell ids.
+     */
+    public record CellRange(long from, long to) {
+    }
+
+    public static long row(double latitude) {
+        return clamp((long) Math.floor((latitude + 90) / CELL_DEGREES), ROWS - 1);
+    }
+
+    public static long column(double longitude) {
+        return clamp((long) Math.floor((longitude + 180) / CELL_DEGREES), COLUMNS - 1);
+    }
+
+    public static Long cellOf(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            return null;
+        }
+        return row(latitude) * COLUMNS + column(longitude);
+    }
+
+    /**
+     * One contiguous cell range per grid row covered by {@code box}, or an
+     * empty list when the box spans more than {@link #MAX_CELL_ROWS} rows.
+     */
+    public static List<CellRange> cellRanges(BoundingBox box) {
+        long firstRow = row(box.minLatitude());
+        long lastRow = row(box.maxLatitude());
+        if (lastRow - firstRow + 1 > MAX_CELL_ROWS) {
+            return List.of();
+        }
+        long firstColumn = column(box.minLongitude());
+        long lastColumn = column(box.maxLongitude());
+        List<CellRange> ranges = new ArrayList<>();
+        for (long row = firstRow; row <= lastRow; row++) {
+            ranges.add(new CellRange(row * COLUMNS + firstColumn, row * COLUMNS + lastColumn));
+        }
+        return ranges;
+    }
+
+    /**
+     * The cell containing the point and its eight neighbours.
+     */
+    public static List<Long> neighbourCells(double latitude, double longitude) {
+        long centreRow = row(latitude);
+        long centreColumn = column(longitude);
+        List<Long> cells = new ArrayList<>(9);
+        for (long row = Math.max(0, centreRow - 1); row <= Math.min(ROWS - 1, centreRow + 1); row++) {
+            for (long column = centreColumn - 1; column <= centreColumn + 1; column++) {
+                // Wrap across the antimeridian
+                long wrapped = Math.floorMod(column, COLUMNS);
+                cells.add(row * COLUMNS + wrapped);
+            }
+        }
+        return cells;
+    }
+
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static long clamp(long value, long max) {
+        return Math.max(0, Math.min(max, value));
+    }
+}
@@ -0,0 +1,58 @@
+package com.kinganjia.backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Identifies the accepted upload formats by their leading bytes, so the
+ * stored content type never depends on what the client declared.
+ */
+public final class ImageSignature {
+
+    /**
+     * Bytes needed to recognise every supported format.
+     */
+    public static final int HEADER_LENGTH = 12;
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final Set<String> HEIC_BRANDS = Set.of("heic", "heix", "hevc", "hevx", "heim", "heis", "mif1",
+                                                          "msf1");
+
+    private ImageSignature() {
+    }
+
+    /**
+     * @return the MIME type of the image starting with {@code header}, or
+     * {@code null} if it is none of JPEG, PNG, GIF, WebP or HEIC
+     */
+    public static String detect(byte[] header) {
+        if (startsWith(header, 0, JPEG)) {
+            return "image/jpeg";
+        }
+        if (startsWith(header, 0, PNG)) {
+            return "image/png";
+        }
+        if (startsWith(header, 0, ascii("GIF87a")) || startsWith(header, 0, ascii("GIF89a"))) {
+            return "image/gif";
+        }
+        if (startsWith(header, 0, ascii("RIFF")) && startsWith(header, 8, ascii("WEBP"))) {
+            return "image/webp";
+        }
+        if (startsWith(header, 4, ascii("ftyp")) && header.length >= 12
+                && HEIC_BRANDS.contains(new String(header, 8, 4, StandardCharsets.US_ASCII))) {
+            return "image/heic";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] header, int offset, byte[] signature) {
+        return header.length >= offset + signature.length
+                && Arrays.equals(header, offset, offset + signature.length, signature, 0, signature.length);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,37 @@
+package com.kinganjia.backend.util;
+
+/**
+ * 64-bit perceptual hashes (aHash/dHash/pHash) exchanged as 16 hex digits.
+ */
+public final class PerceptualHash {
+
+    private PerceptualHash() {
+    }
+
+    /**
+     * Parses a 16-digit hex hash, optionally prefixed with {@code 0x}.
+     *
+     * @return the hash bits, or {@code null} if {@code value} is not a 64-bit hex hash
+     */
+    public static Long parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        String hex = value.trim();
+        if (hex.startsWith("0x") || hex.startsWith("0X")) {
+            hex = hex.substring(2);
+        }
+        if (hex.length() != 16) {
+            return null;
+        }
+        try {
+            return Long.parseUnsignedLong(hex, 16);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+}
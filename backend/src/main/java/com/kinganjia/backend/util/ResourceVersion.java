@@ -0,0 +1,124 @@
+package com.kinganjia.backend.util;
+
+import com.kinganjia.backend.model.VersionedEntity;
+import com.kinganjia.backend.repository.VersionSummary;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * HTTP validators of a representation assembled from versioned rows. The
+ * strong ETag concatenates the count, version sum and id sum of every set of
+ * rows the representation embeds, and Last-Modified is the latest timestamp
+ * among them. The same validators can be computed from aggregate queries,
+ * answering a conditional request without loading any entity, or from the
+ * entities loaded for a full response; both routes must add the same sets in
+ * the same order.
+ * <p>
+ * Sums alone cannot tell every pair of collections apart, e.g. when rows
+ * leave and others with the same ids and versions in total join. Collection
+ * validators therefore lead with a change marker that grows with every
+ * change to the collection, the head of {@code change_log}, and carry no
+ * Last-Modified: a deleted row moves no remaining timestamp forward.
+ */
+public record ResourceVersion(String etag, long lastModified) {
+
+    public static Builder of(String kind) {
+        return new Builder(kind, false);
+    }
+
+    /**
+     * Validators of a collection. Read {@code changeMarker} before the rows,
+     * so a change that lands in between makes the tag stale, never wrong.
+     */
+    public static Builder ofCollection(String kind, long changeMarker) {
+        Builder builder = new Builder(kind, true);
+        builder.tag.append('@').append(changeMarker);
+        return builder;
+    }
+
+    /** Whether the request carries validators, i.e. whether a cheap pre-check can pay off. */
+    public static boolean isConditional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    /** True when the request's validators still match; the response is then already a 304. */
+    public boolean isNotModified(WebRequest request) {
+        return request.checkNotModified(etag, lastModified);
+    }
+
+    /** A 200 carrying the validators; clients may keep the body but must revalidate before reuse. */
+    public ResponseEntity.BodyBuilder ok() {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                                                           .eTag(etag)
+                                                           .cacheControl(CacheControl.noCache().cachePrivate());
+        return lastModified < 0 ? builder : builder.lastModified(lastModified);
+    }
+
+    public static final class Builder {
+        private final StringBuilder tag;
+        private final boolean collection;
+        private LocalDateTime lastModified;
+
+        private Builder(String kind, boolean collection) {
+            this.tag = new StringBuilder(kind);
+            this.collection = collection;
+        }
+
+        public Builder add(VersionSummary rows) {
+            return add(rows.getTotal(), rows.getVersionSum(), rows.getIdSum(), rows.getLastCreated(),
+                       rows.getLastUpdated());
+        }
+
+        public Builder add(VersionedEntity row) {
+            return add(row == null ? List.of() : List.of(row));
+        }
+
+        public Builder add(Collection<? extends VersionedEntity> rows) {
+            long total = 0;
+            long versionSum = 0;
+            long idSum = 0;
+            LocalDateTime lastCreated = null;
+            LocalDateTime lastUpdated = null;
+            // Aggregate queries see each row once, however often it is embedded
+            Set<Long> seen = new HashSet<>();
+            for (VersionedEntity row : rows == null ? List.<VersionedEntity>of() : rows) {
+                if (!seen.add(row.getId())) {
+                    continue;
+                }
+                total++;
+                versionSum += row.getVersion();
+                idSum += row.getId();
+                lastCreated = latest(lastCreated, row.getCreatedAt());
+                lastUpdated = latest(lastUpdated, row.getUpdatedAt());
+            }
+            return add(total, versionSum, idSum, lastCreated, lastUpdated);
+        }
+
+        private Builder add(long total, long versionSum, long idSum, LocalDateTime lastCreated,
+                            LocalDateTime lastUpdated) {
+            tag.append('-').append(total).append('.').append(versionSum).append('.').append(idSum);
+            lastModified = latest(latest(lastModified, lastCreated), lastUpdated);
+            return this;
+        }
+
+        public ResourceVersion build() {
+            long millis = collection || lastModified == null ? -1
+                                                             : lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            return new ResourceVersion("\"" + tag + "\"", millis);
+        }
+
+        private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+            return a == null || (b != null && b.isAfter(a)) ? b : a;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.kinganjia.backend.util;
+
+/**
+ * Web Mercator ("slippy map") tile arithmetic. At level {@code L} the world
+ * is a {@code 2^L x 2^L} grid with x growing east and y growing south, so the
+ * cell containing a point at level {@code L - 1} is simply
+ * {@code (x >> 1, y >> 1)}: the levels nest exactly.
+ */
+public final class TileMath {
+
+    /**
+     * Latitude limit of the Mercator square; points further north or south
+     * are clamped onto the edge row.
+     */
+    public static final double MAX_LATITUDE = 85.05112878;
+
+    private TileMath() {
+    }
+
+    public static int column(double longitude, int level) {
+        double fraction = (longitude + 180) / 360;
+        return clamp((long) Math.floor(fraction * (1L << level)), level);
+    }
+
+    public static int row(double latitude, int level) {
+        double radians = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        double fraction = (1 - Math.log(Math.tan(radians) + 1 / Math.cos(radians)) / Math.PI) / 2;
+        return clamp((long) Math.floor(fraction * (1L << level)), level);
+    }
+
+    public static boolean isValidTile(int z, int x, int y, int maxZoom) {
+        if (z < 0 || z > maxZoom) {
+            return false;
+        }
+        long size = 1L << z;
+        return x >= 0 && x < size && y >= 0 && y < size;
+    }
+
+    private static int clamp(long index, int level) {
+        return (int) Math.max(0, Math.min((1L << level) - 1, index));
+    }
+}
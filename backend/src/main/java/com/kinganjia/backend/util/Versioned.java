@@ -0,0 +1,5 @@
+package com.kinganjia.backend.util;
+
+/** A response body together with the validators of the rows it was built from. */
+public record Versioned<T>(T body, ResourceVersion version) {
+}
@@ -0,0 +1,105 @@
+package com.kinganjia.backend.benchmark;
+
+import com.kinganjia.backend.mapper.ClaimMapperImpl;
+import com.kinganjia.backend.mapper.ImageMapperImpl;
+import com.kinganjia.backend.mapper.UserMapperImpl;
+import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.DetectionType;
+import com.kinganjia.backend.model.HazardCluster;
+import com.kinganjia.backend.model.Image;
+import com.kinganjia.backend.model.SeverityLevel;
+import com.kinganjia.backend.model.User;
+import com.kinganjia.backend.security.JwtUtil;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The beans and object graphs shared by the benchmarks. Beans come from a
+ * minimal Spring context so they are wired exactly as in the application,
+ * without starting JPA or the web server.
+ */
+final class BenchmarkFixtures {
+
+    static final int CLAIMS_PER_USER = 20;
+    static final int IMAGES_PER_CLAIM = 3;
+
+    private BenchmarkFixtures() {
+    }
+
+    static AnnotationConfigApplicationContext context() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        // Boot's conversions, e.g. "PT5M" to Duration for the token cache TTL
+        context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                "jwt.secret", "benchmark-secret-that-is-long-enough-for-hs256-signing",
+                "jwt.expiration", "86400000")));
+        context.register(JwtUtil.class, ClaimMapperImpl.class, ImageMapperImpl.class, UserMapperImpl.class);
+        context.refresh();
+        return context;
+    }
+
+    /**
+     * A reporter with {@link #CLAIMS_PER_USER} claims of {@link #IMAGES_PER_CLAIM}
+     * images each, fully populated as the detail endpoints load them.
+     */
+    static User userWithClaims(long userId) {
+        LocalDateTime now = LocalDateTime.of(2025, 3, 1, 8, 30);
+        User user = User.builder()
+                        .id(userId)
+                        .email("reporter" + userId + "@example.com")
+                        .firstName("Wanjiku")
+                        .lastName("Kamau")
+                        .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z2S0YkCrhmjZJdAoRr4kCHPi")
+                        .createdAt(now)
+                        .build();
+        HazardCluster cluster = new HazardCluster();
+        cluster.setId(userId);
+        List<Claim> claims = new ArrayList<>(CLAIMS_PER_USER);
+        for (int c = 0; c < CLAIMS_PER_USER; c++) {
+            long claimId = userId * 1000 + c;
+            Claim claim = Claim.builder()
+                               .id(claimId)
+                               .user(user)
+                               .cluster(cluster)
+                               .location("Thika Road, km " + c)
+                               .latitude(-1.2 - c * 0.001)
+                               .longitude(36.8 + c * 0.001)
+                               .status(ClaimStatus.values()[c % ClaimStatus.values().length])
+                               .severity(SeverityLevel.values()[c % SeverityLevel.values().length])
+                               .detectionType(DetectionType.AUTOMATIC)
+                               .description("Pothole spanning most of the left lane, roughly 40 cm deep")
+                               .hash("a1b2c3d4e5f6a7b8" + c)
+                               .createdAt(now.plusMinutes(c))
+                               .updatedAt(now.plusHours(c))
+                               .build();
+            List<Image> images = new ArrayList<>(IMAGES_PER_CLAIM);
+            for (int i = 0; i < IMAGES_PER_CLAIM; i++) {
+                String sha = String.format("%064x", claimId * 10 + i);
+                images.add(Image.builder()
+                                .id(claimId * 10 + i)
+                                .claim(claim)
+                                .url("/api/v1/blobs/" + sha)
+                                .hash("f0e1d2c3b4a59687")
+                                .contentHash(sha)
+                                .contentType("image/jpeg")
+                                .sizeBytes(2_400_000L)
+                                .thumbnailHash(sha)
+                                .previewHash(sha)
+                                .timestamp(now)
+                                .createdAt(now)
+                                .build());
+            }
+            claim.setImages(images);
+            claims.add(claim);
+        }
+        user.setClaims(claims);
+        return user;
+    }
+}
@@ -0,0 +1,53 @@
+package com.kinganjia.backend.benchmark;
+
+import com.kinganjia.backend.security.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token handling on the authentication filter path. {@code validateToken}
+ * for a token seen before is answered from the verified-token cache;
+ * {@code getEmailFromToken} always parses and checks the signature.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JwtBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkFixtures.context();
+        jwtUtil = context.getBean(JwtUtil.class);
+        token = jwtUtil.generateToken("reporter1@example.com");
+        jwtUtil.validateToken(token);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("reporter1@example.com");
+    }
+
+    @Benchmark
+    public boolean validateCachedToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public String getEmailFromToken() {
+        return jwtUtil.getEmailFromToken(token);
+    }
+}
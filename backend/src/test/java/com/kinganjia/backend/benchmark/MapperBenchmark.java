@@ -0,0 +1,67 @@
+package com.kinganjia.backend.benchmark;
+
+import com.kinganjia.backend.dto.ClaimResponseDTO;
+import com.kinganjia.backend.dto.UserResponseDTO;
+import com.kinganjia.backend.mapper.ClaimMapper;
+import com.kinganjia.backend.mapper.UserMapper;
+import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping as done by the list and detail endpoints, over a user
+ * with {@value BenchmarkFixtures#CLAIMS_PER_USER} claims of
+ * {@value BenchmarkFixtures#IMAGES_PER_CLAIM} images each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapperBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+    private ClaimMapper claimMapper;
+    private UserMapper userMapper;
+    private User user;
+    private Claim claim;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkFixtures.context();
+        claimMapper = context.getBean(ClaimMapper.class);
+        userMapper = context.getBean(UserMapper.class);
+        user = BenchmarkFixtures.userWithClaims(1);
+        claim = user.getClaims().get(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ClaimResponseDTO claimToResponse() {
+        return claimMapper.toResponse(claim);
+    }
+
+    @Benchmark
+    public List<ClaimResponseDTO> claimListToResponse() {
+        List<ClaimResponseDTO> responses = new ArrayList<>(user.getClaims().size());
+        for (Claim each : user.getClaims()) {
+            responses.add(claimMapper.toResponse(each));
+        }
+        return responses;
+    }
+
+    @Benchmark
+    public UserResponseDTO userToResponse() {
+        return userMapper.toResponse(user);
+    }
+}
@@ -0,0 +1,56 @@
+package com.kinganjia.backend.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kinganjia.backend.dto.ClaimResponseDTO;
+import com.kinganjia.backend.dto.response.ApiResponse;
+import com.kinganjia.backend.mapper.ClaimMapper;
+import com.kinganjia.backend.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a claim list response body, configured like the application's
+ * message converter (Java time module, ISO dates).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializationBenchmark {
+
+    @Param({"20", "200"})
+    public int claims;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<List<ClaimResponseDTO>> response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<ClaimResponseDTO> data = new ArrayList<>(claims);
+        try (AnnotationConfigApplicationContext context = BenchmarkFixtures.context()) {
+            ClaimMapper claimMapper = context.getBean(ClaimMapper.class);
+            for (long userId = 1; data.size() < claims; userId++) {
+                User user = BenchmarkFixtures.userWithClaims(userId);
+                user.getClaims()
+                    .stream()
+                    .limit(claims - data.size())
+                    .forEach(claim -> data.add(claimMapper.toResponse(claim)));
+            }
+        }
+        response = ApiResponse.ok("Claims retrieved successfully", data);
+    }
+
+    @Benchmark
+    public byte[] writeClaimList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
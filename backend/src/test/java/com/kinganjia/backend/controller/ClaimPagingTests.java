@@ -0,0 +1,154 @@
+package com.kinganjia.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kinganjia.backend.exception.BusinessValidationException;
+import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.DetectionType;
+import com.kinganjia.backend.model.SeverityLevel;
+import com.kinganjia.backend.model.User;
+import com.kinganjia.backend.repository.ClaimCursor;
+import com.kinganjia.backend.repository.ClaimRepository;
+import com.kinganjia.backend.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Keyset paging over {@code /claims/page}: every claim is returned exactly
+ * once and in order, including runs of claims sharing {@code created_at}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ClaimPagingTests {
+
+    // Outside the creation time of any other test data, so the page filter selects only these claims
+    private static final LocalDateTime BASE = LocalDateTime.of(2001, 3, 1, 8, 0);
+    private static final int CLAIMS = 23;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ClaimRepository claimRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Claim> claims = new ArrayList<>();
+
+    @BeforeAll
+    void seed() {
+        User user = userRepository.save(User.builder()
+                                            .email("pager@example.com")
+                                            .firstName("Page")
+                                            .lastName("Walker")
+                                            .password("secret")
+                                            .build());
+        for (int c = 0; c < CLAIMS; c++) {
+            Claim claim = claimRepository.save(Claim.builder()
+                                                    .user(user)
+                                                    .location("Mombasa Road " + c)
+                                                    .latitude(-1.3)
+                                                    .longitude(36.85)
+                                                    .status(ClaimStatus.PENDING)
+                                                    .severity(SeverityLevel.LOW)
+                                                    .detectionType(DetectionType.MANUAL)
+                                                    .hash("page-" + c)
+                                                    .build());
+            // Four distinct timestamps, so most page boundaries fall inside a run of ties
+            LocalDateTime createdAt = BASE.plusMinutes(c % 4);
+            jdbcTemplate.update("update claims set created_at = ? where id = ?", createdAt, claim.getId());
+            claim.setCreatedAt(createdAt);
+            claims.add(claim);
+        }
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        claims.sort(Comparator.comparing(Claim::getCreatedAt).thenComparing(Claim::getId).reversed());
+    }
+
+    @Test
+    void pagesThroughTiesWithoutGapsOrDuplicates() throws Exception {
+        for (int size : new int[]{1, 3, 5, CLAIMS, 100}) {
+            List<Long> seen = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                JsonNode page = page(size, cursor);
+                page.get("items").forEach(item -> seen.add(item.get("id").asLong()));
+                cursor = page.hasNonNull("nextCursor") ? page.get("nextCursor").asText() : null;
+                assertThat(page.get("hasMore").asBoolean()).isEqualTo(cursor != null);
+                assertThat(++pages).isLessThanOrEqualTo(CLAIMS + 1);
+            } while (cursor != null);
+
+            assertThat(seen).as("page size %d", size)
+                            .containsExactlyElementsOf(claims.stream().map(Claim::getId).toList());
+            assertThat(new HashSet<>(seen)).hasSize(CLAIMS);
+        }
+    }
+
+    @Test
+    void cursorRoundTrips() {
+        ClaimCursor cursor = new ClaimCursor(BASE.plusNanos(123_456_000), 42L);
+
+        assertThat(ClaimCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void malformedCursorIsRejected() throws Exception {
+        // Not base64, no separator ("no-separator"), bad date ("2001-13-01T00:00|1"), bad id ("2001-03-01T08:00|x")
+        for (String cursor : List.of("not base64!", "bm8tc2VwYXJhdG9y", "MjAwMS0xMy0wMVQwMDowMHwx",
+                                     "MjAwMS0wMy0wMVQwODowMHx4")) {
+            assertThatThrownBy(() -> ClaimCursor.decode(cursor)).isInstanceOf(BusinessValidationException.class);
+            mockMvc.perform(get("/api/v1/claims/page").param("cursor", cursor))
+                   .andExpect(status().isBadRequest());
+        }
+    }
+
+    private JsonNode page(int size, String cursor) throws Exception {
+        var request = get("/api/v1/claims/page").param("size", String.valueOf(size))
+                                                .param("from", BASE.toString())
+                                                .param("to", BASE.plusHours(1).toString());
+        if (cursor != null) {
+            request.param("cursor", cursor);
+        }
+        String body = mockMvc.perform(request)
+                             .andExpect(status().isOk())
+                             .andReturn()
+                             .getResponse()
+                             .getContentAsString();
+        return objectMapper.readTree(body).get("data");
+    }
+}
@@ -0,0 +1,165 @@
+package com.kinganjia.backend.controller;
+
+import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.DetectionType;
+import com.kinganjia.backend.model.Image;
+import com.kinganjia.backend.model.SeverityLevel;
+import com.kinganjia.backend.model.User;
+import com.kinganjia.backend.repository.ClaimRepository;
+import com.kinganjia.backend.repository.ImageRepository;
+import com.kinganjia.backend.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the per-endpoint fetch plans: each read endpoint must issue a fixed
+ * number of SQL statements however many claims, images and users it maps.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FetchPlanQueryCountTests {
+
+    private static final int USERS = 3;
+    private static final int CLAIMS_PER_USER = 15;
+    private static final int IMAGES_PER_CLAIM = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ClaimRepository claimRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long userId;
+    private Long claimId;
+    private Long imageId;
+
+    @BeforeAll
+    void seed() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<Image> images = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            User user = userRepository.save(User.builder()
+                                                .email("user" + u + "@example.com")
+                                                .firstName("First" + u)
+                                                .lastName("Last" + u)
+                                                .password("secret")
+                                                .build());
+            userId = user.getId();
+            for (int c = 0; c < CLAIMS_PER_USER; c++) {
+                Claim claim = claimRepository.save(Claim.builder()
+                                                        .user(user)
+                                                        .location("Thika Road " + c)
+                                                        .latitude(-1.2 - c * 0.001)
+                                                        .longitude(36.8 + c * 0.001)
+                                                        .status(ClaimStatus.PENDING)
+                                                        .severity(SeverityLevel.MEDIUM)
+                                                        .detectionType(DetectionType.AUTOMATIC)
+                                                        .hash("claim-" + u + "-" + c)
+                                                        .build());
+                claimId = claim.getId();
+                for (int i = 0; i < IMAGES_PER_CLAIM; i++) {
+                    images.add(Image.builder()
+                                    .claim(claim)
+                                    .url("https://example.com/" + u + "/" + c + "/" + i + ".jpg")
+                                    .hash("image-" + u + "-" + c + "-" + i)
+                                    .build());
+                }
+            }
+        }
+        imageId = imageRepository.saveAll(images).get(0).getId();
+    }
+
+    // The fetch plans are asserted against a cold second-level cache
+    @BeforeEach
+    void resetStatistics() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        statistics.clear();
+    }
+
+    @Test
+    void listClaimsJoinsUsersAndBatchesImages() throws Exception {
+        // Plus the change log head for the collection ETag
+        assertStatements("claims", "/api/v1/claims", 3);
+    }
+
+    @Test
+    void claimPageJoinsUsersAndBatchesImages() throws Exception {
+        assertStatements("claims page", "/api/v1/claims/page?size=40", 2);
+    }
+
+    @Test
+    void claimDetailLoadsGraphInOneQuery() throws Exception {
+        assertStatements("claim detail", "/api/v1/claims/" + claimId, 1);
+    }
+
+    @Test
+    void claimImagesLoadInOneQuery() throws Exception {
+        // Plus the claim's change log head for the collection ETag
+        assertStatements("claim images", "/api/v1/claims/" + claimId + "/images", 2);
+    }
+
+    @Test
+    void userClaimsJoinUsersAndBatchImages() throws Exception {
+        assertStatements("user claims", "/api/v1/users/" + userId + "/claims", 2);
+    }
+
+    @Test
+    void listUsersJoinsClaims() throws Exception {
+        assertStatements("users", "/api/v1/users", 1);
+    }
+
+    @Test
+    void userDetailLoadsClaimsOnce() throws Exception {
+        assertStatements("user detail", "/api/v1/users/" + userId, 2);
+    }
+
+    @Test
+    void listImagesJoinsClaims() throws Exception {
+        assertStatements("images", "/api/v1/images", 1);
+    }
+
+    @Test
+    void imageDetailJoinsClaim() throws Exception {
+        assertStatements("image detail", "/api/v1/images/" + imageId, 1);
+    }
+
+    private void assertStatements(String endpoint, String uri, long expected) throws Exception {
+        mockMvc.perform(get(uri)).andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount())
+                .as("SQL statements issued by %s", endpoint)
+                .isEqualTo(expected);
+    }
+}
@@ -0,0 +1,318 @@
+package com.kinganjia.backend.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.kinganjia.backend.BackendApplication;
+import com.kinganjia.backend.model.User;
+import com.kinganjia.backend.repository.ClaimRepository;
+import com.kinganjia.backend.repository.UserRepository;
+import com.kinganjia.backend.security.JwtUtil;
+import com.kinganjia.backend.service.ClaimIngestionService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end load run: boots the application on an embedded PostgreSQL
+ * (the real binary, unpacked and started by zonky), seeds users, claims and
+ * images, then drives a weighted mix of login, claim list, claim detail and
+ * claim creation at a fixed arrival rate. Requests are scheduled open-loop
+ * and latency is measured from each request's scheduled start, so a stalled
+ * server shows up as latency instead of silently lowering the rate.
+ * <p>
+ * Per-endpoint throughput, latency percentiles and error rates are printed
+ * and written as JSON to {@code target/load-results/}. Run with
+ * {@code mvn test -Pload-test -Dtest=ApiLoadTest}; the {@code load.*} system
+ * properties below size the data set and the workload.
+ */
+@Tag("load")
+class ApiLoadTest {
+
+    private static final int RATE = Integer.getInteger("load.rate", 50);
+    private static final Duration DURATION = Duration.parse(System.getProperty("load.duration", "PT30S"));
+    private static final Duration WARMUP = Duration.parse(System.getProperty("load.warmup", "PT5S"));
+    private static final int USERS = Integer.getInteger("load.users", 200);
+    private static final int CLAIMS = Integer.getInteger("load.claims", 10_000);
+    private static final int IMAGES_PER_CLAIM = Integer.getInteger("load.images-per-claim", 2);
+    private static final boolean VIRTUAL_THREADS = Boolean.getBoolean("load.virtual-threads");
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("load.max-error-rate", "0.01"));
+    private static final String PASSWORD = "load-test-password";
+
+    private enum Endpoint {
+        LOGIN(10), LIST_CLAIMS(40), GET_CLAIM(35), CREATE_CLAIM(15);
+
+        private final int weight;
+
+        Endpoint(int weight) {
+            this.weight = weight;
+        }
+
+        static Endpoint pick(int roll) {
+            for (Endpoint endpoint : values()) {
+                roll -= endpoint.weight;
+                if (roll < 0) {
+                    return endpoint;
+                }
+            }
+            throw new IllegalStateException("Weights must add up to 100");
+        }
+    }
+
+    private static final class Recorder {
+        private final ConcurrentLinkedQueue<Long> latenciesMicros = new ConcurrentLinkedQueue<>();
+        private final Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        private final AtomicInteger errors = new AtomicInteger();
+
+        void record(long latencyNanos, int status) {
+            latenciesMicros.add(latencyNanos / 1000);
+            statuses.computeIfAbsent(status, code -> new AtomicInteger()).incrementAndGet();
+            if (status < 200 || status >= 300) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    public record EndpointResult(long requests, long errors, double errorRate, double throughputPerSecond,
+                                 double p50Millis, double p90Millis, double p99Millis, double maxMillis,
+                                 Map<Integer, Integer> statusCounts) {
+    }
+
+    public record RunResult(Instant startedAt, Map<String, Object> config, Map<Endpoint, EndpointResult> endpoints) {
+    }
+
+    private record Fixture(String baseUrl, List<String> emails, List<String> tokens, List<Long> userIds,
+                           List<Long> claimIds) {
+    }
+
+    @Test
+    void mixedWorkload() throws Exception {
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             // Command-line arguments take precedence over application.properties and .env
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+                     .run("--server.port=0",
+                          "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                          "--spring.datasource.username=postgres",
+                          "--spring.datasource.password=",
+                          "--spring.jpa.show-sql=false",
+                          "--jwt.secret=load-test-secret-that-is-long-enough-for-hs256",
+                          "--spring.threads.virtual.enabled=" + VIRTUAL_THREADS,
+                          "--app.blobs.root=target/load-blobs",
+                          "--app.ingest.max-items=" + Math.max(CLAIMS, 50_000),
+                          "--logging.level.root=WARN");
+             HttpClient client = HttpClient.newBuilder()
+                                           .executor(Executors.newVirtualThreadPerTaskExecutor())
+                                           .connectTimeout(Duration.ofSeconds(10))
+                                           .build()) {
+            Fixture fixture = seed(context);
+
+            drive(client, fixture, WARMUP);
+            Instant startedAt = Instant.now();
+            Map<Endpoint, Recorder> recorders = drive(client, fixture, DURATION);
+
+            Map<Endpoint, EndpointResult> endpoints = new EnumMap<>(Endpoint.class);
+            recorders.forEach((endpoint, recorder) -> endpoints.put(endpoint, summarize(recorder)));
+            RunResult result = new RunResult(startedAt, config(), endpoints);
+            print(result);
+            write(result);
+
+            endpoints.forEach((endpoint, summary) -> assertThat(summary.errorRate())
+                    .as("%s error rate", endpoint)
+                    .isLessThanOrEqualTo(MAX_ERROR_RATE));
+        }
+    }
+
+    private static Fixture seed(ConfigurableApplicationContext context) throws Exception {
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        List<User> users = new ArrayList<>(USERS);
+        for (int u = 0; u < USERS; u++) {
+            users.add(User.builder()
+                          .email("reporter" + u + "@load.test")
+                          .firstName("Reporter")
+                          .lastName("No. " + u)
+                          .password(passwordHash)
+                          .build());
+        }
+        users = context.getBean(UserRepository.class).saveAll(users);
+
+        // Claims go through bulk ingestion so clusters, counters and heatmap cells are built as in production
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder ndjson = new StringBuilder();
+        for (int c = 0; c < CLAIMS; c++) {
+            ndjson.append(claimJson(users.get(random.nextInt(USERS)).getId(), c, IMAGES_PER_CLAIM)).append('\n');
+        }
+        context.getBean(ClaimIngestionService.class)
+               .ingest(new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)));
+
+        JwtUtil jwtUtil = context.getBean(JwtUtil.class);
+        List<String> emails = users.stream().map(User::getEmail).toList();
+        return new Fixture("http://localhost:" + context.getEnvironment().getProperty("local.server.port"),
+                           emails,
+                           emails.stream().map(jwtUtil::generateToken).toList(),
+                           users.stream().map(User::getId).toList(),
+                           context.getBean(ClaimRepository.class).findAll().stream().map(c -> c.getId()).toList());
+    }
+
+    private static Map<Endpoint, Recorder> drive(HttpClient client, Fixture fixture, Duration duration) {
+        Map<Endpoint, Recorder> recorders = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            recorders.put(endpoint, new Recorder());
+        }
+        long intervalNanos = 1_000_000_000L / RATE;
+        long durationNanos = duration.toNanos();
+        long start = System.nanoTime();
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i * intervalNanos < durationNanos; i++) {
+                long scheduled = start + i * intervalNanos;
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Endpoint endpoint = Endpoint.pick(ThreadLocalRandom.current().nextInt(100));
+                requests.submit(() -> {
+                    int status;
+                    try {
+                        status = client.send(request(endpoint, fixture), HttpResponse.BodyHandlers.discarding())
+                                       .statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    recorders.get(endpoint).record(System.nanoTime() - scheduled, status);
+                });
+            }
+        }
+        return recorders;
+    }
+
+    private static HttpRequest request(Endpoint endpoint, Fixture fixture) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int user = random.nextInt(fixture.emails().size());
+        HttpRequest.Builder builder = HttpRequest.newBuilder().timeout(Duration.ofSeconds(30));
+        if (endpoint != Endpoint.LOGIN) {
+            builder.header("Authorization", "Bearer " + fixture.tokens().get(user));
+        }
+        return switch (endpoint) {
+            case LOGIN -> builder.uri(URI.create(fixture.baseUrl() + "/api/v1/auth/login"))
+                                 .header("Content-Type", "application/json")
+                                 .POST(HttpRequest.BodyPublishers.ofString(
+                                         "{\"email\":\"" + fixture.emails().get(user) + "\",\"password\":\""
+                                                 + PASSWORD + "\"}"))
+                                 .build();
+            case LIST_CLAIMS -> builder.uri(URI.create(fixture.baseUrl() + "/api/v1/claims/page?size=20"))
+                                       .GET()
+                                       .build();
+            case GET_CLAIM -> builder.uri(URI.create(fixture.baseUrl() + "/api/v1/claims/"
+                                                             + fixture.claimIds().get(random.nextInt(fixture.claimIds().size()))))
+                                     .GET()
+                                     .build();
+            case CREATE_CLAIM -> builder.uri(URI.create(fixture.baseUrl() + "/api/v1/claims"))
+                                        .header("Content-Type", "application/json")
+                                        .POST(HttpRequest.BodyPublishers.ofString(
+                                                claimJson(fixture.userIds().get(user), random.nextInt(1_000_000), 0)))
+                                        .build();
+        };
+    }
+
+    private static String claimJson(long userId, int n, int images) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder json = new StringBuilder()
+                .append("{\"userId\":").append(userId)
+                .append(",\"location\":\"Load road ").append(n).append('"')
+                // Spread over roughly Kenya's extent
+                .append(",\"latitude\":").append(-4.5 + random.nextDouble(9))
+                .append(",\"longitude\":").append(34 + random.nextDouble(7.5))
+                .append(",\"status\":\"PENDING\",\"severity\":\"")
+                .append(n % 3 == 0 ? "HIGH" : n % 3 == 1 ? "MEDIUM" : "LOW")
+                .append("\",\"detectionType\":\"AUTOMATIC\",\"hash\":\"load-").append(n).append('"');
+        if (images > 0) {
+            json.append(",\"images\":[");
+            for (int i = 0; i < images; i++) {
+                json.append(i == 0 ? "" : ",")
+                    .append("{\"url\":\"https://example.com/load/").append(n).append('/').append(i)
+                    .append(".jpg\",\"hash\":\"").append(String.format("%016x", random.nextLong())).append("\"}");
+            }
+            json.append(']');
+        }
+        return json.append('}').toString();
+    }
+
+    private static EndpointResult summarize(Recorder recorder) {
+        long[] latencies = recorder.latenciesMicros.stream().mapToLong(Long::longValue).sorted().toArray();
+        Map<Integer, Integer> statuses = new TreeMap<>();
+        recorder.statuses.forEach((status, count) -> statuses.put(status, count.get()));
+        long requests = latencies.length;
+        return new EndpointResult(requests, recorder.errors.get(),
+                                  requests == 0 ? 0 : (double) recorder.errors.get() / requests,
+                                  requests / (double) DURATION.toSeconds(),
+                                  percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                                  percentile(latencies, 100), statuses);
+    }
+
+    private static double percentile(long[] sortedMicros, double percentile) {
+        if (sortedMicros.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sortedMicros.length) - 1;
+        return sortedMicros[Math.max(0, index)] / 1000.0;
+    }
+
+    private static Map<String, Object> config() {
+        Map<String, Object> config = new TreeMap<>();
+        config.put("ratePerSecond", RATE);
+        config.put("durationSeconds", DURATION.toSeconds());
+        config.put("warmupSeconds", WARMUP.toSeconds());
+        config.put("users", USERS);
+        config.put("claims", CLAIMS);
+        config.put("imagesPerClaim", IMAGES_PER_CLAIM);
+        config.put("virtualThreads", VIRTUAL_THREADS);
+        config.put("maxErrorRate", MAX_ERROR_RATE);
+        config.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        return config;
+    }
+
+    private static void print(RunResult result) {
+        System.out.printf("%n%-13s %8s %8s %8s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s",
+                          "p50 ms", "p90 ms", "p99 ms", "max ms");
+        result.endpoints().forEach((endpoint, summary) -> System.out.printf(
+                "%-13s %8d %8d %8.1f %9.2f %9.2f %9.2f %9.2f%n", endpoint, summary.requests(), summary.errors(),
+                summary.throughputPerSecond(), summary.p50Millis(), summary.p90Millis(), summary.p99Millis(),
+                summary.maxMillis()));
+    }
+
+    private static void write(RunResult result) throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build()
+                                                              .enable(SerializationFeature.INDENT_OUTPUT);
+        Path directory = Files.createDirectories(Path.of("target", "load-results"));
+        Path file = directory.resolve("api-load-" + result.startedAt().toEpochMilli() + ".json");
+        objectMapper.writeValue(file.toFile(), result);
+        System.out.println("Results written to " + file.toAbsolutePath());
+    }
+}
@@ -0,0 +1,193 @@
+package com.kinganjia.backend.load;
+
+import com.kinganjia.backend.BackendApplication;
+import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.DetectionType;
+import com.kinganjia.backend.model.SeverityLevel;
+import com.kinganjia.backend.model.User;
+import com.kinganjia.backend.repository.ClaimRepository;
+import com.kinganjia.backend.repository.UserRepository;
+import com.kinganjia.backend.security.JwtUtil;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the same read mix through a real Tomcat in platform-thread and
+ * virtual-thread mode and reports throughput and latency percentiles. Run
+ * with {@code mvn test -Pload-test}; {@code -Dload.concurrency},
+ * {@code -Dload.requests} and {@code -Dload.tomcat-threads} tune the run.
+ * The test profile's in-memory H2 has no I/O latency, so the figures mostly
+ * show scheduling overhead and queueing; point {@code -Dload.datasource-url}
+ * at a PostgreSQL database for representative numbers.
+ */
+@Tag("load")
+class ThreadModeLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 256);
+    private static final int REQUESTS = Integer.getInteger("load.requests", 20_000);
+    private static final int WARMUP_REQUESTS = REQUESTS / 10;
+    private static final int TOMCAT_THREADS = Integer.getInteger("load.tomcat-threads", 50);
+    private static final int CLAIMS = 500;
+
+    private record Result(String mode, int requests, int errors, double seconds, long[] latenciesMicros) {
+
+        double throughput() {
+            return requests / seconds;
+        }
+
+        double percentileMillis(double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * latenciesMicros.length) - 1;
+            return latenciesMicros[Math.max(0, index)] / 1000.0;
+        }
+    }
+
+    @Test
+    void compareThreadModes() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.printf("%n%-10s %10s %10s %10s %10s %8s%n", "mode", "req/s", "p50 ms", "p99 ms", "max ms",
+                          "errors");
+        for (Result result : List.of(platform, virtual)) {
+            System.out.printf("%-10s %10.0f %10.2f %10.2f %10.2f %8d%n", result.mode(), result.throughput(),
+                              result.percentileMillis(50), result.percentileMillis(99),
+                              result.percentileMillis(100), result.errors());
+        }
+
+        assertThat(platform.errors()).isZero();
+        assertThat(virtual.errors()).isZero();
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.datasource.url=" + System.getProperty("load.datasource-url",
+                                                              "jdbc:h2:mem:load-" + mode
+                                                                      + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"),
+                "--spring.jpa.properties.hibernate.generate_statistics=false",
+                "--logging.level.root=WARN"));
+        copySystemProperty(arguments, "load.datasource-username", "spring.datasource.username");
+        copySystemProperty(arguments, "load.datasource-password", "spring.datasource.password");
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+                .profiles("test")
+                // Command-line arguments, unlike builder properties, take precedence over the profile's settings
+                .run(arguments.toArray(String[]::new))) {
+            assertThat(context.getEnvironment().getProperty("spring.threads.virtual.enabled", Boolean.class))
+                    .isEqualTo(virtualThreads);
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            String token = seed(context, mode);
+            List<Long> claimIds = context.getBean(ClaimRepository.class)
+                                         .findAll()
+                                         .stream()
+                                         .map(Claim::getId)
+                                         .toList();
+
+            try (HttpClient client = HttpClient.newBuilder()
+                                               .executor(Executors.newVirtualThreadPerTaskExecutor())
+                                               .connectTimeout(Duration.ofSeconds(10))
+                                               .build()) {
+                drive(client, baseUrl, token, claimIds, WARMUP_REQUESTS, mode);
+                return drive(client, baseUrl, token, claimIds, REQUESTS, mode);
+            }
+        }
+    }
+
+    private Result drive(HttpClient client, String baseUrl, String token, List<Long> claimIds, int requests,
+                         String mode) throws InterruptedException {
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        long started = System.nanoTime();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                inFlight.acquire();
+                int index = i;
+                callers.submit(() -> {
+                    try {
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path(index, claimIds)))
+                                                         .header("Authorization", "Bearer " + token)
+                                                         .timeout(Duration.ofSeconds(30))
+                                                         .build();
+                        long sent = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[index] = (System.nanoTime() - sent) / 1000;
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        Arrays.sort(latencies);
+        return new Result(mode, requests, errors.get(), seconds, latencies);
+    }
+
+    private static String path(int index, List<Long> claimIds) {
+        return switch (index % 4) {
+            case 0 -> "/api/v1/claims/page?size=20";
+            case 1 -> "/api/v1/heatmap/6/38/32";
+            case 2 -> "/api/v1/stats/claims";
+            default -> "/api/v1/claims/" + claimIds.get(ThreadLocalRandom.current().nextInt(claimIds.size()));
+        };
+    }
+
+    private static String seed(ConfigurableApplicationContext context, String mode) {
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                                                                   .email("load-" + mode + "@example.com")
+                                                                   .firstName("Load")
+                                                                   .lastName("Test")
+                                                                   .password("secret")
+                                                                   .build());
+        List<Claim> claims = new ArrayList<>(CLAIMS);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < CLAIMS; i++) {
+            claims.add(Claim.builder()
+                            .user(user)
+                            .location("Load " + i)
+                            .latitude(-1.3 + random.nextDouble(0.2))
+                            .longitude(36.7 + random.nextDouble(0.2))
+                            .status(ClaimStatus.PENDING)
+                            .severity(SeverityLevel.values()[i % SeverityLevel.values().length])
+                            .detectionType(DetectionType.AUTOMATIC)
+                            .hash("load-" + i)
+                            .build());
+        }
+        context.getBean(ClaimRepository.class).saveAll(claims);
+        return context.getBean(JwtUtil.class).generateToken(user.getEmail());
+    }
+
+    private static void copySystemProperty(List<String> arguments, String from, String to) {
+        String value = System.getProperty(from);
+        if (value != null) {
+            arguments.add("--" + to + "=" + value);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.dto.AuthResponseDTO;
+import com.kinganjia.backend.dto.LoginRequestDTO;
+import com.kinganjia.backend.dto.RegisterRequestDTO;
+import com.kinganjia.backend.exception.BusinessValidationException;
+import com.kinganjia.backend.exception.DuplicateResourceException;
+import com.kinganjia.backend.model.User;
+import com.kinganjia.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Registration and login, with passwords hashed outside any transaction:
+ * a duplicate email is still rejected, and a login rehashes a password
+ * stored at an older cost.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AuthServiceTests {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void registerThenLogin() {
+        AuthResponseDTO registered = authService.register(
+                new RegisterRequestDTO("Auth", "Tester", "auth@example.com", "password1"));
+        assertThat(registered.getToken()).isNotBlank();
+        assertThat(registered.getUser().getEmail()).isEqualTo("auth@example.com");
+
+        assertThatThrownBy(() -> authService.register(
+                new RegisterRequestDTO("Auth", "Again", "auth@example.com", "password2")))
+                .isInstanceOf(DuplicateResourceException.class);
+        assertThatThrownBy(() -> authService.login(new LoginRequestDTO("auth@example.com", "password2")))
+                .isInstanceOf(BusinessValidationException.class);
+
+        AuthResponseDTO loggedIn = authService.login(new LoginRequestDTO("auth@example.com", "password1"));
+        assertThat(loggedIn.getUser().getId()).isEqualTo(registered.getUser().getId());
+    }
+
+    @Test
+    void loginUpgradesWeakHash() {
+        String weakHash = new BCryptPasswordEncoder(4).encode("password1");
+        Long userId = userRepository.save(User.builder()
+                                              .email("weak@example.com")
+                                              .firstName("Weak")
+                                              .lastName("Hash")
+                                              .password(weakHash)
+                                              .build())
+                                    .getId();
+
+        authService.login(new LoginRequestDTO("weak@example.com", "password1"));
+
+        String storedHash = userRepository.findById(userId).orElseThrow().getPassword();
+        assertThat(storedHash).isNotEqualTo(weakHash);
+        assertThat(passwordEncoder.upgradeEncoding(storedHash)).isFalse();
+        assertThat(passwordEncoder.matches("password1", storedHash)).isTrue();
+    }
+}
@@ -0,0 +1,127 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.dto.ChangeDTO;
+import com.kinganjia.backend.dto.ClaimRequestDTO;
+import com.kinganjia.backend.dto.CursorPageDTO;
+import com.kinganjia.backend.exception.CursorExpiredException;
+import com.kinganjia.backend.exception.GlobalExceptionHandler;
+import com.kinganjia.backend.model.ChangeEntityType;
+import com.kinganjia.backend.model.ChangeOperation;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.DetectionType;
+import com.kinganjia.backend.model.SeverityLevel;
+import com.kinganjia.backend.model.User;
+import com.kinganjia.backend.repository.ChangeCursor;
+import com.kinganjia.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The change feed returns one entry per changed entity, with the latest
+ * operation, leaves a tombstone for a deleted claim, and rejects cursors
+ * older than the change log with 410 Gone.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ChangeFeedServiceTests {
+
+    // Entries are only served once older than the settle window (app.changes.settle)
+    private static final long SETTLE_MILLIS = 2_500;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private ClaimService claimService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GlobalExceptionHandler exceptionHandler;
+
+    private Long userId;
+
+    @BeforeAll
+    void seed() {
+        userId = userRepository.save(User.builder()
+                                         .email("changes@example.com")
+                                         .firstName("Change")
+                                         .lastName("Reader")
+                                         .password("secret")
+                                         .build())
+                               .getId();
+    }
+
+    @Test
+    void oneEntryPerEntityAndTombstonesForDeletes() throws Exception {
+        String cursor = changeFeedService.getChanges(null, null).getNextCursor();
+
+        Long kept = createClaim("Ngong Road");
+        ClaimRequestDTO update = new ClaimRequestDTO();
+        update.setSeverity(SeverityLevel.HIGH);
+        claimService.partialUpdateClaim(kept, update);
+        update.setSeverity(SeverityLevel.MEDIUM);
+        claimService.partialUpdateClaim(kept, update);
+        Long deleted = createClaim("Jogoo Road");
+        claimService.deleteClaim(deleted);
+        Thread.sleep(SETTLE_MILLIS);
+
+        List<ChangeDTO> changes = new ArrayList<>();
+        CursorPageDTO<ChangeDTO> page;
+        do {
+            page = changeFeedService.getChanges(cursor, null);
+            changes.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (page.isHasMore());
+
+        List<ChangeDTO> ours = changes.stream()
+                                      .filter(change -> change.getType() == ChangeEntityType.CLAIM)
+                                      .filter(change -> Set.of(kept, deleted).contains(change.getId()))
+                                      .toList();
+        assertThat(ours).extracting(ChangeDTO::getId).containsExactly(kept, deleted);
+        assertThat(ours.get(0).getOperation()).isEqualTo(ChangeOperation.UPSERT);
+        assertThat(ours.get(0).getClaim().getSeverity()).isEqualTo(SeverityLevel.MEDIUM);
+        assertThat(ours.get(1).getOperation()).isEqualTo(ChangeOperation.DELETE);
+        assertThat(ours.get(1).getClaim()).isNull();
+
+        // Nothing new since the last cursor
+        assertThat(changeFeedService.getChanges(cursor, null).getItems()).isEmpty();
+    }
+
+    @Test
+    void expiredCursorIsGone() {
+        String cursor = new ChangeCursor(LocalDateTime.now().minusDays(30), 0, 0).encode();
+
+        assertThatThrownBy(() -> changeFeedService.getChanges(cursor, null))
+                .isInstanceOfSatisfying(CursorExpiredException.class, e ->
+                        assertThat(exceptionHandler.handleCursorExpired(e).getStatusCode()).isEqualTo(HttpStatus.GONE));
+    }
+
+    private Long createClaim(String location) {
+        ClaimRequestDTO request = new ClaimRequestDTO();
+        request.setUserId(userId);
+        request.setLocation(location);
+        request.setLatitude(-1.3);
+        request.setLongitude(36.8);
+        request.setStatus(ClaimStatus.PENDING);
+        request.setSeverity(SeverityLevel.LOW);
+        request.setDetectionType(DetectionType.MANUAL);
+        request.setHash("changes-" + location);
+        return claimService.createClaim(request).getId();
+    }
+}
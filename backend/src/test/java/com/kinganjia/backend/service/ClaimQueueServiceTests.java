@@ -0,0 +1,215 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.dto.ClaimDecisionDTO;
+import com.kinganjia.backend.dto.ClaimLeaseDTO;
+import com.kinganjia.backend.dto.ClaimResponseDTO;
+import com.kinganjia.backend.exception.BusinessValidationException;
+import com.kinganjia.backend.exception.LeaseConflictException;
+import com.kinganjia.backend.model.Claim;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.DetectionType;
+import com.kinganjia.backend.model.SeverityLevel;
+import com.kinganjia.backend.model.User;
+import com.kinganjia.backend.repository.ClaimRepository;
+import com.kinganjia.backend.repository.UserRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Moderation queue leases: concurrent moderators never share a claim, a
+ * lapsed lease returns the claim to the queue, and decisions need a live
+ * lease and the reviewed version.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ClaimQueueServiceTests {
+
+    private static final int CLAIMS = 30;
+
+    @Autowired
+    private ClaimQueueService queueService;
+
+    @Autowired
+    private ClaimRepository claimRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Long> claimIds = new ArrayList<>();
+
+    @BeforeAll
+    void seed() {
+        User user = userRepository.save(User.builder()
+                                            .email("queue@example.com")
+                                            .firstName("Queue")
+                                            .lastName("Tester")
+                                            .password("secret")
+                                            .build());
+        for (int c = 0; c < CLAIMS; c++) {
+            claimIds.add(claimRepository.save(Claim.builder()
+                                                   .user(user)
+                                                   .location("Waiyaki Way " + c)
+                                                   .latitude(-1.26)
+                                                   .longitude(36.8)
+                                                   .status(ClaimStatus.PENDING)
+                                                   .severity(SeverityLevel.values()[c % 3])
+                                                   .detectionType(DetectionType.MANUAL)
+                                                   .hash("queue-" + c)
+                                                   .build())
+                                        .getId());
+        }
+    }
+
+    @BeforeEach
+    void releaseAllLeases() {
+        jdbcTemplate.update("update claims set leased_by = null, lease_expires_at = null");
+        evictCache();
+    }
+
+    @Test
+    void concurrentModeratorsNeverLeaseTheSameClaim() throws Exception {
+        CyclicBarrier start = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Set<Long>>> leased = new ArrayList<>();
+            for (String moderator : List.of("alice", "bob")) {
+                leased.add(executor.submit(() -> {
+                    Set<Long> ids = new HashSet<>();
+                    start.await();
+                    ClaimLeaseDTO lease;
+                    do {
+                        lease = queueService.lease(moderator, 3);
+                        lease.getClaims().forEach(claim -> assertThat(ids.add(claim.getId())).isTrue());
+                    } while (lease.getCount() > 0);
+                    return ids;
+                }));
+            }
+            Set<Long> alice = leased.get(0).get();
+            Set<Long> bob = leased.get(1).get();
+
+            assertThat(alice).doesNotContainAnyElementsOf(bob);
+            Set<Long> both = new HashSet<>(alice);
+            both.addAll(bob);
+            assertThat(both).containsAll(claimIds);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void expiredLeaseReturnsTheClaimToTheQueue() {
+        Long claimId = claimIds.get(0);
+        leaseTo("alice", claimId, LocalDateTime.now().minusSeconds(1));
+
+        assertThat(queueService.heartbeat("alice").getCount()).isZero();
+        assertThat(leaseUntilFound("bob", claimId)).isTrue();
+        assertThatThrownBy(() -> queueService.decide("alice", claimId, decision(ClaimStatus.VERIFIED, claimId)))
+                .isInstanceOf(LeaseConflictException.class);
+
+        ClaimResponseDTO decided = queueService.decide("bob", claimId, decision(ClaimStatus.VERIFIED, claimId));
+        assertThat(decided.getStatus()).isEqualTo(ClaimStatus.VERIFIED);
+        jdbcTemplate.update("update claims set status = 'PENDING' where id = ?", claimId);
+        evictCache();
+    }
+
+    @Test
+    void decisionAtAStaleVersionConflicts() {
+        Long claimId = claimIds.get(1);
+        leaseTo("alice", claimId, LocalDateTime.now().plusMinutes(5));
+        ClaimDecisionDTO stale = decision(ClaimStatus.REJECTED, claimId);
+        stale.setVersion(stale.getVersion() - 1);
+
+        assertThatThrownBy(() -> queueService.decide("alice", claimId, stale))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(claimRepository.findById(claimId).orElseThrow().getStatus()).isEqualTo(ClaimStatus.PENDING);
+    }
+
+    @Test
+    void decisionWithoutTheLeaseIsRejected() {
+        Long claimId = claimIds.get(2);
+        assertThatThrownBy(() -> queueService.decide("alice", claimId, decision(ClaimStatus.VERIFIED, claimId)))
+                .isInstanceOf(LeaseConflictException.class);
+
+        leaseTo("bob", claimId, LocalDateTime.now().plusMinutes(5));
+        assertThatThrownBy(() -> queueService.decide("alice", claimId, decision(ClaimStatus.VERIFIED, claimId)))
+                .isInstanceOf(LeaseConflictException.class);
+        assertThatThrownBy(() -> queueService.release("alice", claimId)).isInstanceOf(LeaseConflictException.class);
+        assertThatThrownBy(() -> queueService.decide("bob", claimId, decision(ClaimStatus.PENDING, claimId)))
+                .isInstanceOf(BusinessValidationException.class);
+        assertThat(claimRepository.findById(claimId).orElseThrow().getStatus()).isEqualTo(ClaimStatus.PENDING);
+    }
+
+    @Test
+    void leaseUpdatesEvictOnlyTheirClaimsFromTheCache() {
+        Long leased = claimIds.get(3);
+        Long other = claimIds.get(4);
+        LocalDateTime until = LocalDateTime.now().plusMinutes(5);
+        leaseTo("alice", leased, until);
+        claimRepository.findById(leased);
+        claimRepository.findById(other);
+        Cache cache = entityManagerFactory.getCache();
+        assertThat(cache.contains(Claim.class, leased)).isTrue();
+        assertThat(cache.contains(Claim.class, other)).isTrue();
+
+        assertThat(queueService.heartbeat("alice").getCount()).isEqualTo(1);
+
+        assertThat(cache.contains(Claim.class, leased)).isFalse();
+        assertThat(cache.contains(Claim.class, other)).isTrue();
+        assertThat(claimRepository.findById(leased).orElseThrow().getLeaseExpiresAt()).isAfter(until);
+    }
+
+    private boolean leaseUntilFound(String moderator, Long claimId) {
+        ClaimLeaseDTO lease;
+        do {
+            lease = queueService.lease(moderator, 10);
+            if (lease.getClaims().stream().anyMatch(claim -> claim.getId().equals(claimId))) {
+                return true;
+            }
+        } while (lease.getCount() > 0);
+        return false;
+    }
+
+    private void leaseTo(String moderator, Long claimId, LocalDateTime until) {
+        jdbcTemplate.update("update claims set leased_by = ?, lease_expires_at = ? where id = ?", moderator, until,
+                            claimId);
+        evictCache();
+    }
+
+    private ClaimDecisionDTO decision(ClaimStatus status, Long claimId) {
+        return new ClaimDecisionDTO(status, claimRepository.findById(claimId).orElseThrow().getVersion());
+    }
+
+    private void evictCache() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+}
@@ -0,0 +1,153 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.dto.BulkStatusRequestDTO;
+import com.kinganjia.backend.dto.ClaimRequestDTO;
+import com.kinganjia.backend.dto.ClaimStatsDTO;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.DetectionType;
+import com.kinganjia.backend.model.SeverityLevel;
+import com.kinganjia.backend.model.User;
+import com.kinganjia.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dashboard counters follow claim creation, edits, bulk status changes and
+ * deletion, ignore rolled back transactions, and reconciliation corrects
+ * counters that drifted from the claims table.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ClaimStatsServiceTests {
+
+    @Autowired
+    private ClaimStatsService statsService;
+
+    @Autowired
+    private ClaimService claimService;
+
+    @Autowired
+    private ClaimModerationService moderationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+    @BeforeAll
+    void seed() {
+        userId = userRepository.save(User.builder()
+                                         .email("stats@example.com")
+                                         .firstName("Stats")
+                                         .lastName("Tester")
+                                         .password("secret")
+                                         .build())
+                               .getId();
+    }
+
+    @Test
+    void countersFollowClaimChanges() {
+        ClaimStatsDTO before = statsService.getStats(1);
+
+        Long claimId = createClaim(SeverityLevel.HIGH);
+        ClaimStatsDTO created = statsService.getStats(1);
+        assertThat(created.getTotal()).isEqualTo(before.getTotal() + 1);
+        assertThat(count(created.getByStatus(), "PENDING")).isEqualTo(count(before.getByStatus(), "PENDING") + 1);
+        assertThat(count(created.getBySeverity(), "HIGH")).isEqualTo(count(before.getBySeverity(), "HIGH") + 1);
+        assertThat(count(created.getByDetectionType(), "MANUAL")).isEqualTo(count(before.getByDetectionType(), "MANUAL") + 1);
+        assertThat(count(created.getByDay(), today())).isEqualTo(count(before.getByDay(), today()) + 1);
+
+        ClaimRequestDTO update = new ClaimRequestDTO();
+        update.setSeverity(SeverityLevel.LOW);
+        claimService.partialUpdateClaim(claimId, update);
+        ClaimStatsDTO updated = statsService.getStats(1);
+        assertThat(updated.getTotal()).isEqualTo(created.getTotal());
+        assertThat(count(updated.getBySeverity(), "HIGH")).isEqualTo(count(before.getBySeverity(), "HIGH"));
+        assertThat(count(updated.getBySeverity(), "LOW")).isEqualTo(count(before.getBySeverity(), "LOW") + 1);
+
+        moderationService.updateStatus(new BulkStatusRequestDTO(ClaimStatus.VERIFIED, Arrays.asList(claimId), null));
+        ClaimStatsDTO verified = statsService.getStats(1);
+        assertThat(count(verified.getByStatus(), "PENDING")).isEqualTo(count(before.getByStatus(), "PENDING"));
+        assertThat(count(verified.getByStatus(), "VERIFIED")).isEqualTo(count(before.getByStatus(), "VERIFIED") + 1);
+
+        claimService.deleteClaim(claimId);
+        assertThat(statsService.getStats(1)).usingRecursiveComparison()
+                                            .ignoringFields("reconciledAt")
+                                            .isEqualTo(before);
+    }
+
+    @Test
+    void rolledBackChangesAreNotCounted() {
+        ClaimStatsDTO before = statsService.getStats(1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            createClaim(SeverityLevel.MEDIUM);
+            status.setRollbackOnly();
+        });
+
+        assertThat(statsService.getStats(1)).usingRecursiveComparison()
+                                            .ignoringFields("reconciledAt")
+                                            .isEqualTo(before);
+    }
+
+    @Test
+    void reconcileCorrectsDrift() {
+        Long claimId = createClaim(SeverityLevel.MEDIUM);
+        // Other tests save claims through the repository, which the counters never see
+        statsService.reconcile();
+        ClaimStatsDTO before = statsService.getStats(1);
+
+        jdbcTemplate.update("update claim_stats set claim_count = claim_count + 5 where dimension = 'TOTAL'");
+        jdbcTemplate.update("delete from claim_stats where dimension = 'DAY' and bucket = ?", today());
+        assertThat(statsService.getStats(1).getTotal()).isEqualTo(before.getTotal() + 5);
+
+        statsService.reconcile();
+
+        ClaimStatsDTO reconciled = statsService.getStats(1);
+        assertThat(reconciled).usingRecursiveComparison()
+                              .ignoringFields("reconciledAt")
+                              .isEqualTo(before);
+        assertThat(reconciled.getReconciledAt()).isNotNull();
+        claimService.deleteClaim(claimId);
+    }
+
+    private Long createClaim(SeverityLevel severity) {
+        ClaimRequestDTO request = new ClaimRequestDTO();
+        request.setUserId(userId);
+        request.setLocation("Thika Road");
+        request.setLatitude(-1.2);
+        request.setLongitude(36.9);
+        request.setStatus(ClaimStatus.PENDING);
+        request.setSeverity(severity);
+        request.setDetectionType(DetectionType.MANUAL);
+        request.setHash("stats-" + System.nanoTime());
+        return claimService.createClaim(request).getId();
+    }
+
+    private static long count(Map<String, Long> counters, String bucket) {
+        return counters.getOrDefault(bucket, 0L);
+    }
+
+    private static String today() {
+        return LocalDate.now().toString();
+    }
+}
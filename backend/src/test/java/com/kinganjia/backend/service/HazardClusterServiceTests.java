@@ -0,0 +1,187 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.dto.ClaimRequestDTO;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.DetectionType;
+import com.kinganjia.backend.model.HazardCluster;
+import com.kinganjia.backend.model.SeverityLevel;
+import com.kinganjia.backend.model.User;
+import com.kinganjia.backend.repository.ClaimRepository;
+import com.kinganjia.backend.repository.HazardClusterRepository;
+import com.kinganjia.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Cluster centroids are running means kept up to date as claims are added,
+ * moved and deleted, the maximum severity follows the members' edits, and
+ * concurrent first reports of a hazard end up in one cluster.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class HazardClusterServiceTests {
+
+    @Autowired
+    private ClaimService claimService;
+
+    @Autowired
+    private ClaimRepository claimRepository;
+
+    @Autowired
+    private HazardClusterRepository clusterRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long userId;
+
+    @BeforeAll
+    void seed() {
+        userId = userRepository.save(User.builder()
+                                         .email("clusters@example.com")
+                                         .firstName("Cluster")
+                                         .lastName("Tester")
+                                         .password("secret")
+                                         .build())
+                               .getId();
+    }
+
+    @Test
+    void centroidIsTheMeanOfTheMembers() {
+        // A few metres apart, well inside the 25 m cluster radius
+        double[][] points = {{-0.5, 37.5}, {-0.50008, 37.50005}, {-0.49995, 37.49992}, {-0.50003, 37.50011}};
+        List<Long> claimIds = new ArrayList<>();
+        for (int p = 0; p < points.length; p++) {
+            claimIds.add(createClaim(points[p][0], points[p][1], SeverityLevel.LOW));
+            assertCentroid(claimIds.get(0), p + 1, points, 0, p + 1);
+        }
+        Long clusterId = clusterOf(claimIds.get(0));
+        assertThat(claimIds).allSatisfy(id -> assertThat(clusterOf(id)).isEqualTo(clusterId));
+
+        claimService.deleteClaim(claimIds.get(0));
+        assertCentroid(claimIds.get(1), 3, points, 1, 4);
+
+        // Moving a member far away takes it out of the cluster into a new one of its own
+        ClaimRequestDTO move = new ClaimRequestDTO();
+        move.setLatitude(-0.6);
+        claimService.partialUpdateClaim(claimIds.get(3), move);
+        assertCentroid(claimIds.get(1), 2, points, 1, 3);
+        HazardCluster moved = clusterRepository.findById(clusterOf(claimIds.get(3))).orElseThrow();
+        assertThat(moved.getId()).isNotEqualTo(clusterId);
+        assertThat(moved.getMemberCount()).isEqualTo(1);
+        assertThat(moved.getCentroidLatitude()).isEqualTo(-0.6);
+
+        claimService.deleteClaim(claimIds.get(1));
+        claimService.deleteClaim(claimIds.get(2));
+        assertThat(clusterRepository.findById(clusterId)).isEmpty();
+    }
+
+    @Test
+    void maxSeverityFollowsMemberEdits() {
+        Long first = createClaim(0.5, 38.5, SeverityLevel.MEDIUM);
+        Long second = createClaim(0.50005, 38.50005, SeverityLevel.LOW);
+        Long clusterId = clusterOf(first);
+        assertThat(clusterOf(second)).isEqualTo(clusterId);
+        assertThat(maxSeverity(clusterId)).isEqualTo(SeverityLevel.MEDIUM);
+
+        setSeverity(second, SeverityLevel.HIGH);
+        assertThat(maxSeverity(clusterId)).isEqualTo(SeverityLevel.HIGH);
+
+        setSeverity(second, SeverityLevel.LOW);
+        assertThat(maxSeverity(clusterId)).isEqualTo(SeverityLevel.MEDIUM);
+
+        setSeverity(first, SeverityLevel.LOW);
+        assertThat(maxSeverity(clusterId)).isEqualTo(SeverityLevel.LOW);
+
+        claimService.deleteClaim(first);
+        claimService.deleteClaim(second);
+    }
+
+    @Test
+    void concurrentFirstReportsShareOneCluster() throws Exception {
+        int reporters = 6;
+        ExecutorService executor = Executors.newFixedThreadPool(reporters);
+        try {
+            for (int round = 0; round < 5; round++) {
+                // A hazard nobody has reported yet, a few metres apart from each reporter
+                double latitude = 10.5 + round;
+                CyclicBarrier start = new CyclicBarrier(reporters);
+                List<Future<Long>> created = new ArrayList<>();
+                for (int r = 0; r < reporters; r++) {
+                    double offset = r * 0.00002;
+                    created.add(executor.submit(() -> {
+                        start.await();
+                        return createClaim(latitude + offset, 20.5, SeverityLevel.MEDIUM);
+                    }));
+                }
+                Set<Long> clusters = new HashSet<>();
+                for (Future<Long> claimId : created) {
+                    clusters.add(clusterOf(claimId.get()));
+                }
+
+                assertThat(clusters).as("round %d", round).hasSize(1);
+                assertThat(clusterRepository.findById(clusters.iterator().next()).orElseThrow().getMemberCount())
+                        .isEqualTo(reporters);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Long createClaim(double latitude, double longitude, SeverityLevel severity) {
+        ClaimRequestDTO request = new ClaimRequestDTO();
+        request.setUserId(userId);
+        request.setLocation("Kenol Road");
+        request.setLatitude(latitude);
+        request.setLongitude(longitude);
+        request.setStatus(ClaimStatus.PENDING);
+        request.setSeverity(severity);
+        request.setDetectionType(DetectionType.MANUAL);
+        request.setHash("cluster-" + latitude + "-" + longitude);
+        return claimService.createClaim(request).getId();
+    }
+
+    private void setSeverity(Long claimId, SeverityLevel severity) {
+        ClaimRequestDTO update = new ClaimRequestDTO();
+        update.setSeverity(severity);
+        claimService.partialUpdateClaim(claimId, update);
+    }
+
+    private void assertCentroid(Long memberId, int members, double[][] points, int from, int to) {
+        HazardCluster cluster = clusterRepository.findById(clusterOf(memberId)).orElseThrow();
+        double latitude = 0;
+        double longitude = 0;
+        for (int p = from; p < to; p++) {
+            latitude += points[p][0] / (to - from);
+            longitude += points[p][1] / (to - from);
+        }
+        assertThat(cluster.getMemberCount()).isEqualTo(members);
+        assertThat(cluster.getCentroidLatitude()).isCloseTo(latitude, within(1e-9));
+        assertThat(cluster.getCentroidLongitude()).isCloseTo(longitude, within(1e-9));
+    }
+
+    private Long clusterOf(Long claimId) {
+        return claimRepository.findById(claimId).orElseThrow().getCluster().getId();
+    }
+
+    private SeverityLevel maxSeverity(Long clusterId) {
+        return clusterRepository.findById(clusterId).orElseThrow().getMaxSeverity();
+    }
+}
@@ -0,0 +1,142 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.dto.BulkStatusRequestDTO;
+import com.kinganjia.backend.dto.ClaimRequestDTO;
+import com.kinganjia.backend.dto.HeatmapTileDTO;
+import com.kinganjia.backend.model.ClaimStatus;
+import com.kinganjia.backend.model.DetectionType;
+import com.kinganjia.backend.model.SeverityLevel;
+import com.kinganjia.backend.model.User;
+import com.kinganjia.backend.repository.UserRepository;
+import com.kinganjia.backend.util.TileMath;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Heatmap tiles follow claim creation, edits, moves, bulk status changes and
+ * deletion, ignore rolled back transactions, and verification rebuilds a
+ * grid that drifted from the claims table.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class HeatmapServiceTests {
+
+    private static final int ZOOM = 10;
+
+    @Autowired
+    private HeatmapService heatmapService;
+
+    @Autowired
+    private ClaimService claimService;
+
+    @Autowired
+    private ClaimModerationService moderationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+    @BeforeAll
+    void seed() {
+        userId = userRepository.save(User.builder()
+                                         .email("heatmap@example.com")
+                                         .firstName("Heatmap")
+                                         .lastName("Tester")
+                                         .password("secret")
+                                         .build())
+                               .getId();
+    }
+
+    @Test
+    void tilesFollowClaimChanges() {
+        Long first = createClaim(60.5, 120.5, SeverityLevel.HIGH);
+        Long second = createClaim(60.5, 120.5, SeverityLevel.LOW);
+        assertTile(60.5, 120.5, 2, SeverityLevel.HIGH);
+
+        ClaimRequestDTO lower = new ClaimRequestDTO();
+        lower.setSeverity(SeverityLevel.MEDIUM);
+        claimService.partialUpdateClaim(first, lower);
+        assertTile(60.5, 120.5, 2, SeverityLevel.MEDIUM);
+
+        ClaimRequestDTO move = new ClaimRequestDTO();
+        move.setLatitude(61.5);
+        move.setLongitude(121.5);
+        claimService.partialUpdateClaim(second, move);
+        assertTile(60.5, 120.5, 1, SeverityLevel.MEDIUM);
+        assertTile(61.5, 121.5, 1, SeverityLevel.LOW);
+
+        moderationService.updateStatus(new BulkStatusRequestDTO(ClaimStatus.VERIFIED, Arrays.asList(first, second),
+                                                                null));
+        assertTile(60.5, 120.5, 1, SeverityLevel.MEDIUM);
+        assertTile(61.5, 121.5, 1, SeverityLevel.LOW);
+
+        claimService.deleteClaim(first);
+        claimService.deleteClaim(second);
+        assertThat(tile(60.5, 120.5).getTotal()).isZero();
+        assertThat(tile(61.5, 121.5).getTotal()).isZero();
+    }
+
+    @Test
+    void rolledBackChangesAreNotDrawn() {
+        transactionTemplate.executeWithoutResult(status -> {
+            createClaim(62.5, 122.5, SeverityLevel.HIGH);
+            status.setRollbackOnly();
+        });
+
+        assertThat(tile(62.5, 122.5).getTotal()).isZero();
+    }
+
+    @Test
+    void verifyRebuildsDriftedGrid() {
+        Long claimId = createClaim(63.5, 123.5, SeverityLevel.HIGH);
+        jdbcTemplate.update("delete from heatmap_cells");
+        assertThat(tile(63.5, 123.5).getTotal()).isZero();
+
+        heatmapService.verify();
+
+        assertTile(63.5, 123.5, 1, SeverityLevel.HIGH);
+        claimService.deleteClaim(claimId);
+    }
+
+    private Long createClaim(double latitude, double longitude, SeverityLevel severity) {
+        ClaimRequestDTO request = new ClaimRequestDTO();
+        request.setUserId(userId);
+        request.setLocation("Garissa Road");
+        request.setLatitude(latitude);
+        request.setLongitude(longitude);
+        request.setStatus(ClaimStatus.PENDING);
+        request.setSeverity(severity);
+        request.setDetectionType(DetectionType.MANUAL);
+        request.setHash("heatmap-" + latitude + "-" + longitude);
+        return claimService.createClaim(request).getId();
+    }
+
+    private void assertTile(double latitude, double longitude, long claims, SeverityLevel maxSeverity) {
+        HeatmapTileDTO tile = tile(latitude, longitude);
+        assertThat(tile.getTotal()).isEqualTo(claims);
+        assertThat(tile.getCells()).singleElement()
+                                   .satisfies(cell -> assertThat(cell.getMaxSeverity()).isEqualTo(maxSeverity));
+    }
+
+    private HeatmapTileDTO tile(double latitude, double longitude) {
+        return heatmapService.getTile(ZOOM, TileMath.column(longitude, ZOOM), TileMath.row(latitude, ZOOM));
+    }
+}
@@ -0,0 +1,96 @@
+package com.kinganjia.backend.service;
+
+import com.kinganjia.backend.util.PerceptualHash;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the BK-tree search against a linear scan over the same hashes,
+ * through inserts, re-indexing and removals.
+ */
+class ImageSimilarityIndexTests {
+
+    private final Random random = new Random(7);
+    private final ImageSimilarityIndex index = new ImageSimilarityIndex(null);
+    private final Map<Long, Long> hashes = new HashMap<>();
+
+    @Test
+    void searchMatchesLinearScan() {
+        List<Long> bases = new ArrayList<>();
+        for (int b = 0; b < 40; b++) {
+            bases.add(random.nextLong());
+        }
+        // Near duplicates of a few base images, plus unrelated hashes and exact duplicates
+        for (long id = 1; id <= 3000; id++) {
+            long hash = id % 10 == 0 ? random.nextLong() : flip(bases.get(random.nextInt(bases.size())),
+                                                               random.nextInt(12));
+            put(id, hash);
+        }
+        assertSearchesMatch();
+
+        for (long id = 1; id <= 3000; id += 7) {
+            put(id, flip(hashes.get(id), 1 + random.nextInt(6)));
+        }
+        for (long id = 2; id <= 3000; id += 5) {
+            index.remove(id);
+            hashes.remove(id);
+        }
+        // Not a 64-bit hash: the image drops out of the index
+        index.put(3L, "sha256-of-the-bytes");
+        hashes.remove(3L);
+        assertSearchesMatch();
+        assertThat(index.hashOf(3L)).isNull();
+        assertThat(index.hashOf(4L)).isEqualTo(hashes.get(4L));
+    }
+
+    @Test
+    void emptyIndexFindsNothing() {
+        assertThat(index.search(random.nextLong(), 64)).isEmpty();
+
+        put(1L, 0L);
+        index.clear();
+        assertThat(index.search(0L, 64)).isEmpty();
+    }
+
+    private void assertSearchesMatch() {
+        List<Long> probes = new ArrayList<>(hashes.values().stream().limit(50).toList());
+        for (int p = 0; p < 50; p++) {
+            probes.add(random.nextLong());
+        }
+        for (long probe : probes) {
+            for (int distance : new int[]{0, 3, 6, 10, 16}) {
+                List<ImageSimilarityIndex.Match> expected = new ArrayList<>();
+                hashes.forEach((id, hash) -> {
+                    if (PerceptualHash.distance(probe, hash) <= distance) {
+                        expected.add(new ImageSimilarityIndex.Match(id, hash, PerceptualHash.distance(probe, hash)));
+                    }
+                });
+                expected.sort(Comparator.comparingInt(ImageSimilarityIndex.Match::distance)
+                                        .thenComparing(ImageSimilarityIndex.Match::imageId));
+                assertThat(index.search(probe, distance)).as("probe %x within %d", probe, distance)
+                                                         .containsExactlyElementsOf(expected);
+            }
+        }
+    }
+
+    private void put(long id, long hash) {
+        index.put(id, String.format("%016x", hash));
+        hashes.put(id, hash);
+    }
+
+    private long flip(long hash, int bits) {
+        long flipped = hash;
+        for (int b = 0; b < bits; b++) {
+            flipped ^= 1L << random.nextInt(64);
+        }
+        return flipped;
+    }
+}
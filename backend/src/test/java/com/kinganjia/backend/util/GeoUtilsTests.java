@@ -0,0 +1,66 @@
+package com.kinganjia.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The cell ranges for a box must cover every point inside it, one range per
+ * grid row, and never reach cells outside the box's rows and columns.
+ */
+class GeoUtilsTests {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void cellRangesCoverEveryPointInTheBox() {
+        for (int b = 0; b < 500; b++) {
+            double minLatitude = -89 + random.nextDouble() * 178;
+            double minLongitude = -179 + random.nextDouble() * 358;
+            double maxLatitude = Math.min(90, minLatitude + random.nextDouble() * 0.5);
+            double maxLongitude = Math.min(180, minLongitude + random.nextDouble() * 0.5);
+            GeoUtils.BoundingBox box = new GeoUtils.BoundingBox(minLatitude, minLongitude, maxLatitude, maxLongitude);
+            List<GeoUtils.CellRange> ranges = GeoUtils.cellRanges(box);
+
+            assertThat(ranges).hasSize((int) (GeoUtils.row(maxLatitude) - GeoUtils.row(minLatitude) + 1));
+            for (GeoUtils.CellRange range : ranges) {
+                assertThat(range.from() / GeoUtils.COLUMNS).isEqualTo(range.to() / GeoUtils.COLUMNS);
+                assertThat(range.from() % GeoUtils.COLUMNS).isEqualTo(GeoUtils.column(minLongitude));
+                assertThat(range.to() % GeoUtils.COLUMNS).isEqualTo(GeoUtils.column(maxLongitude));
+            }
+            for (int p = 0; p < 50; p++) {
+                double latitude = minLatitude + random.nextDouble() * (maxLatitude - minLatitude);
+                double longitude = minLongitude + random.nextDouble() * (maxLongitude - minLongitude);
+                assertThat(covered(ranges, GeoUtils.cellOf(latitude, longitude))).isTrue();
+            }
+            // Corners sit exactly on the box edge
+            assertThat(covered(ranges, GeoUtils.cellOf(minLatitude, minLongitude))).isTrue();
+            assertThat(covered(ranges, GeoUtils.cellOf(maxLatitude, maxLongitude))).isTrue();
+        }
+    }
+
+    @Test
+    void cellRangesClampAtTheEdgesOfTheWorld() {
+        List<GeoUtils.CellRange> ranges = GeoUtils.cellRanges(new GeoUtils.BoundingBox(89.995, 179.995, 90, 180));
+
+        assertThat(ranges).containsExactly(new GeoUtils.CellRange(GeoUtils.ROWS * GeoUtils.COLUMNS - 1,
+                                                                  GeoUtils.ROWS * GeoUtils.COLUMNS - 1));
+        assertThat(covered(ranges, GeoUtils.cellOf(90.0, 180.0))).isTrue();
+    }
+
+    @Test
+    void tallBoxesFallBackToCoordinateBounds() {
+        double height = (GeoUtils.MAX_CELL_ROWS + 1) * GeoUtils.CELL_DEGREES;
+
+        assertThat(GeoUtils.cellRanges(new GeoUtils.BoundingBox(-1.005, 36.8, -1.005 + height, 36.9))).isEmpty();
+        assertThat(GeoUtils.cellRanges(new GeoUtils.BoundingBox(-1.005, 36.8, -1.005 + height / 2, 36.9)))
+                .isNotEmpty();
+    }
+
+    private static boolean covered(List<GeoUtils.CellRange> ranges, long cell) {
+        return ranges.stream().anyMatch(range -> cell >= range.from() && cell <= range.to());
+    }
+}
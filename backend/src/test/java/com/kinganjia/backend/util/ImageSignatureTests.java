@@ -0,0 +1,52 @@
+package com.kinganjia.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageSignatureTests {
+
+    @Test
+    void recognisesEncodedImages() throws IOException {
+        assertThat(ImageSignature.detect(header(encode("png")))).isEqualTo("image/png");
+        assertThat(ImageSignature.detect(header(encode("jpg")))).isEqualTo("image/jpeg");
+        assertThat(ImageSignature.detect(header(encode("gif")))).isEqualTo("image/gif");
+    }
+
+    @Test
+    void recognisesContainerFormatsByBrand() {
+        assertThat(ImageSignature.detect(ascii("RIFF\u0000\u0000\u0000\u0000WEBPVP8 "))).isEqualTo("image/webp");
+        assertThat(ImageSignature.detect(ascii("\u0000\u0000\u0000\u0018ftypheic"))).isEqualTo("image/heic");
+        assertThat(ImageSignature.detect(ascii("RIFF\u0000\u0000\u0000\u0000WAVEfmt "))).isNull();
+        assertThat(ImageSignature.detect(ascii("\u0000\u0000\u0000\u0018ftypisom"))).isNull();
+    }
+
+    @Test
+    void rejectsOtherContent() {
+        assertThat(ImageSignature.detect(ascii("<html><script>"))).isNull();
+        assertThat(ImageSignature.detect(ascii("%PDF-1.7\n%"))).isNull();
+        assertThat(ImageSignature.detect(new byte[]{(byte) 0xFF, (byte) 0xD8})).isNull();
+        assertThat(ImageSignature.detect(new byte[0])).isNull();
+    }
+
+    private static byte[] encode(String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB), format, out);
+        return out.toByteArray();
+    }
+
+    private static byte[] header(byte[] content) {
+        return Arrays.copyOf(content, ImageSignature.HEADER_LENGTH);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}